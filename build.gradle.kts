@@ -1,6 +1,7 @@
 plugins {
     kotlin("jvm") version "1.9.0"
     id("com.github.johnrengelman.shadow") version "8.1.1"
+    id("me.champeau.jmh") version "0.7.2"
     java
 }
 
@@ -23,9 +24,32 @@ dependencies {
 }
 
 java {
-    toolchain.languageVersion.set(JavaLanguageVersion.of(17))
+    // Build with -PjavaVersion=21 to target servers running Java 21
+    val javaVersion = (findProperty("javaVersion") as String?)?.toInt() ?: 17
+    toolchain.languageVersion.set(JavaLanguageVersion.of(javaVersion))
 }
 
+// Benchmarks live in src/jmh/java: ./gradlew jmh
+// Narrow a run with -PjmhIncludes=ReadBenchmark; the 1GB cases need about 4GB of heap and free disk
+jmh {
+    warmupIterations.set(2)
+    iterations.set(5)
+    fork.set(1)
+    jvmArgs.set(listOf("-Xms4g", "-Xmx4g"))
+    resultFormat.set("JSON")
+    includeTests.set(true) // Benchmarks build their storage with the TestStorage fixture in src/test/java
+    (findProperty("jmhIncludes") as String?)?.let { includes.set(listOf(it)) }
+}
+
+// End-to-end HTTP load test in src/loadtest/java: ./gradlew loadTest --args="--concurrency=32"
+val loadtest by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations["loadtestImplementation"].extendsFrom(configurations.implementation.get())
+configurations["loadtestRuntimeOnly"].extendsFrom(configurations.runtimeOnly.get())
+
 tasks {
     compileJava {
         options.encoding = "UTF-8"
@@ -34,6 +58,21 @@ tasks {
     compileTestJava {
         options.encoding = "UTF-8"
     }
+
+    named<JavaCompile>("compileLoadtestJava") {
+        options.encoding = "UTF-8"
+    }
+
+    register<JavaExec>("loadTest") {
+        group = "verification"
+        description = "Runs the HTTP load test against an embedded or remote BlobCraft node"
+        classpath = loadtest.runtimeClasspath
+        mainClass.set("dev.arubik.blobcraft.loadtest.LoadTest")
+        jvmArgs("-Xms2g", "-Xmx2g")
+        // -Dblobcraft.<key>=... on the Gradle command line configures the embedded server
+        systemProperties(System.getProperties().filterKeys { it.toString().startsWith("blobcraft.") }
+            .mapKeys { it.key.toString() })
+    }
     
     shadowJar {
         archiveClassifier.set("")
@@ -41,7 +80,7 @@ tasks {
         
         manifest {
             attributes(
-                "Main-Class" to "dev.arubik.blobcraft.Main"
+                "Main-Class" to "dev.arubik.blobcraft.host.StandaloneHost"
             )
         }
     }
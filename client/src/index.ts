@@ -106,6 +106,9 @@ export interface ChunkedUploadInit {
   chunkSize: number
   totalChunks: number
   expiresAt: string
+  completed?: boolean
+  deduplicated?: boolean // The server already had the content; no chunks to send
+  fileId?: string
 }
 
 export interface ChunkUploadResponse {
@@ -113,6 +116,7 @@ export interface ChunkUploadResponse {
   chunkNumber: number
   progress: number
   completed: boolean
+  deduplicated?: boolean // Filled from content the server already stores
   fileId?: string
 }
 
@@ -135,6 +139,55 @@ export interface ChunkedUploadOptions extends UploadOptions {
   onProgress?: (progress: UploadProgress) => void
   onChunkUploaded?: (chunkNumber: number, progress: number) => void
   enableResume?: boolean
+  deduplicate?: boolean // Hash the file and its chunks so the server can skip content it has (default true)
+}
+
+const HASH_SLICE_SIZE = 4 * 1024 * 1024
+// Without an incremental hasher (browsers) the whole file has to sit in memory to be hashed
+const WHOLE_FILE_HASH_LIMIT = 64 * 1024 * 1024
+
+function toHex(digest: ArrayBuffer | Uint8Array): string {
+  return Array.from(new Uint8Array(digest), (b) => b.toString(16).padStart(2, "0")).join("")
+}
+
+async function nodeCrypto(): Promise<typeof import("crypto") | undefined> {
+  try {
+    const crypto = await import("crypto")
+    return typeof crypto.createHash === "function" ? crypto : undefined
+  } catch {
+    return undefined
+  }
+}
+
+async function sha256Hex(data: Blob | Buffer): Promise<string> {
+  const bytes = data instanceof Blob ? await data.arrayBuffer() : data
+  const subtle = globalThis.crypto?.subtle ?? (await import("crypto")).webcrypto.subtle
+  return toHex(await subtle.digest("SHA-256", bytes))
+}
+
+/**
+ * Hash a whole file for deduplication, a slice at a time where an incremental hasher exists.
+ * Resolves undefined when the file can't be hashed cheaply; the upload then just sends every chunk.
+ */
+async function contentSha256(file: Blob | Buffer): Promise<string | undefined> {
+  try {
+    const crypto = await nodeCrypto()
+    if (crypto) {
+      const hash = crypto.createHash("sha256")
+      if (file instanceof Blob) {
+        for (let offset = 0; offset < file.size; offset += HASH_SLICE_SIZE) {
+          hash.update(new Uint8Array(await file.slice(offset, offset + HASH_SLICE_SIZE).arrayBuffer()))
+        }
+      } else {
+        hash.update(file)
+      }
+      return hash.digest("hex")
+    }
+    const size = file instanceof Blob ? file.size : file.length
+    return size <= WHOLE_FILE_HASH_LIMIT ? await sha256Hex(file) : undefined
+  } catch {
+    return undefined
+  }
 }
 
 export class BlobCraftClient {
@@ -438,14 +491,29 @@ export class BlobCraftClient {
   ): Promise<UploadResponse> {
     const fileSize = file instanceof Blob ? file.size : file.length
     const chunkSize = options.chunkSize || 12 * 1024 * 1024 // 12MB default
-
-    // Initialize chunked upload
-    const initResponse = await this.initializeChunkedUpload(filename, fileSize, options)
+    const deduplicate = options.deduplicate !== false
+
+    // Initialize chunked upload; with the content hash the server may already have the file
+    const fileSha256 = deduplicate ? await contentSha256(file) : undefined
+    const initResponse = await this.initializeChunkedUpload(filename, fileSize, options, fileSha256)
+
+    if (initResponse.completed && initResponse.fileId) {
+      return {
+        id: initResponse.fileId,
+        filename: filename,
+        size: fileSize,
+        uploadedAt: new Date().toISOString(),
+        public: options.isPublic || false,
+        url: options.isPublic ? `/public/${initResponse.fileId}` : `/blob/${initResponse.fileId}`,
+      }
+    }
 
     try {
       // Upload chunks
       const totalChunks = initResponse.totalChunks
       const actualChunkSize = initResponse.chunkSize
+      // Shared content is usually a prefix, so the first miss ends the probing
+      let probing = deduplicate
 
       for (let chunkNumber = 0; chunkNumber < totalChunks; chunkNumber++) {
         const start = chunkNumber * actualChunkSize
@@ -458,7 +526,19 @@ export class BlobCraftClient {
           chunkData = new Blob([file.slice(start, end)])
         }
 
-        const chunkResponse = await this.uploadChunk(initResponse.uploadId, chunkNumber, chunkData)
+        // Offer the hash alone first and send the bytes only if the server lacks them
+        let chunkResponse: ChunkUploadResponse | null = null
+        let chunkSha256: string | undefined
+        if (deduplicate) {
+          chunkSha256 = await sha256Hex(chunkData).catch(() => undefined)
+          if (chunkSha256 && probing) {
+            chunkResponse = await this.reuseChunk(initResponse.uploadId, chunkNumber, chunkSha256)
+            probing = chunkResponse !== null
+          }
+        }
+        if (!chunkResponse) {
+          chunkResponse = await this.uploadChunk(initResponse.uploadId, chunkNumber, chunkData, chunkSha256)
+        }
 
         if (options.onChunkUploaded) {
           options.onChunkUploaded(chunkNumber, chunkResponse.progress)
@@ -497,6 +577,7 @@ export class BlobCraftClient {
     filename: string,
     totalSize: number,
     options: UploadOptions = {},
+    contentSha256?: string,
   ): Promise<ChunkedUploadInit> {
     const headers: Record<string, string> = {
       Authorization: `Bearer ${this.accessKey}`,
@@ -510,6 +591,7 @@ export class BlobCraftClient {
     if (options.category) headers["X-Category"] = options.category
     if (options.uploader) headers["X-Uploader"] = options.uploader
     if (options.description) headers["X-Description"] = options.description
+    if (contentSha256) headers["X-Content-SHA256"] = contentSha256
 
     if (options.metadata) {
       for (const [key, value] of Object.entries(options.metadata)) {
@@ -531,16 +613,51 @@ export class BlobCraftClient {
   }
 
   /**
-   * Upload a single chunk
+   * Ask the server to fill a chunk from content it already stores.
+   * Returns null when it does not have the chunk and the data has to be sent.
    */
-  async uploadChunk(uploadId: string, chunkNumber: number, chunkData: Blob): Promise<ChunkUploadResponse> {
+  async reuseChunk(uploadId: string, chunkNumber: number, chunkSha256: string): Promise<ChunkUploadResponse | null> {
     const response = await fetch(`${this.baseUrl}/upload/chunk`, {
       method: "POST",
       headers: {
         Authorization: `Bearer ${this.accessKey}`,
         "X-Upload-Id": uploadId,
         "X-Chunk-Number": chunkNumber.toString(),
+        "X-Chunk-SHA256": chunkSha256,
       },
+      body: "",
+    })
+
+    if (response.status === 404) {
+      return null
+    }
+    if (!response.ok) {
+      const errorText = await response.text()
+      throw new Error(`Failed to reuse chunk ${chunkNumber}: ${response.status} ${errorText}`)
+    }
+
+    return response.json()
+  }
+
+  /**
+   * Upload a single chunk
+   */
+  async uploadChunk(
+    uploadId: string,
+    chunkNumber: number,
+    chunkData: Blob,
+    chunkSha256?: string,
+  ): Promise<ChunkUploadResponse> {
+    const headers: Record<string, string> = {
+      Authorization: `Bearer ${this.accessKey}`,
+      "X-Upload-Id": uploadId,
+      "X-Chunk-Number": chunkNumber.toString(),
+    }
+    if (chunkSha256) headers["X-Chunk-SHA256"] = chunkSha256
+
+    const response = await fetch(`${this.baseUrl}/upload/chunk`, {
+      method: "POST",
+      headers,
       body: chunkData,
     })
 
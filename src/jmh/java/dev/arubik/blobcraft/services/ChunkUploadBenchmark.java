@@ -0,0 +1,102 @@
+package dev.arubik.blobcraft.services;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import dev.arubik.blobcraft.io.BufferPool;
+import dev.arubik.blobcraft.models.ChunkedUpload;
+import dev.arubik.blobcraft.storage.BenchmarkStorage;
+import dev.arubik.blobcraft.storage.TestStorage;
+import dev.arubik.blobcraft.storage.FileStorage;
+
+/**
+ * Chunked upload path: receiving a single chunk, and a whole upload including
+ * the final assembly and store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChunkUploadBenchmark {
+
+    // Chunks per session before a new one is started, bounds the temp files on disk
+    private static final int SESSION_CHUNKS = 256;
+    private static final int FILE_CHUNKS = 8;
+
+    @Param({"65536", "1048576", "12582912"})
+    public int chunkSize;
+
+    private Path dataFolder;
+    private FileStorage storage;
+    private ChunkedUploadService service;
+    private byte[] chunk;
+
+    private String sessionId;
+    private int nextChunk;
+    private final List<String> storedFiles = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataFolder = BenchmarkStorage.tempDir();
+        storage = BenchmarkStorage.create(dataFolder, 0, false, 64 * 1024);
+        service = new ChunkedUploadService(storage, dataFolder, TestStorage.SILENT, "temp/uploads",
+            chunkSize, Long.MAX_VALUE, false, 0, new BufferPool(65536, 16, false, TestStorage.SILENT));
+        chunk = BenchmarkStorage.content(chunkSize, 3);
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanUp() {
+        if (sessionId != null) {
+            service.cancelUpload(sessionId);
+            sessionId = null;
+        }
+        storage.deleteFiles(storedFiles);
+        storedFiles.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        service.shutdown();
+        storage.shutdown();
+        BenchmarkStorage.delete(dataFolder);
+    }
+
+    @Benchmark
+    public boolean uploadChunk() {
+        if (sessionId == null || nextChunk == SESSION_CHUNKS) {
+            if (sessionId != null) {
+                service.cancelUpload(sessionId);
+            }
+            // One chunk more than is ever sent, so the session never finalizes
+            sessionId = service.initializeUpload("bench.bin", (long) chunkSize * (SESSION_CHUNKS + 1), false,
+                null, null, "127.0.0.1", "jmh", null).getUploadId();
+            nextChunk = 0;
+        }
+        return service.uploadChunk(sessionId, nextChunk++, chunk);
+    }
+
+    @Benchmark
+    public boolean uploadFile() {
+        ChunkedUpload upload = service.initializeUpload("bench.bin", (long) chunkSize * FILE_CHUNKS, false,
+            null, null, "127.0.0.1", "jmh", null);
+        boolean done = false;
+        for (int i = 0; i < FILE_CHUNKS; i++) {
+            done = service.uploadChunk(upload.getUploadId(), i, chunk);
+        }
+        storedFiles.add(upload.getFinalFileId());
+        return done;
+    }
+}
@@ -0,0 +1,49 @@
+package dev.arubik.blobcraft.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Shared setup for the benchmarks: a {@link TestStorage} in a throwaway directory.
+ */
+public final class BenchmarkStorage {
+
+    private BenchmarkStorage() {}
+
+    public static Path tempDir() throws IOException {
+        return Files.createTempDirectory("blobcraft-bench");
+    }
+
+    /**
+     * @param maxRam          heap cache budget, 0 to cache nothing
+     * @param segmentThreshold largest blob packed into segments, 0 to store every blob as a file
+     */
+    public static FileStorage create(Path dataFolder, long maxRam, boolean compression, long segmentThreshold) {
+        return TestStorage.create(dataFolder, maxRam, 0, compression, segmentThreshold, 64L * 1024 * 1024);
+    }
+
+    /**
+     * Deterministic content over a 26-letter alphabet, compressible to roughly 60%.
+     */
+    public static byte[] content(int size, long seed) {
+        Random random = new Random(seed);
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) ('a' + random.nextInt(26));
+        }
+        return data;
+    }
+
+    public static void delete(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
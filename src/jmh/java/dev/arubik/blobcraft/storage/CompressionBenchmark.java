@@ -0,0 +1,57 @@
+package dev.arubik.blobcraft.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Gzip round trip applied to stored blobs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CompressionBenchmark {
+
+    @Param({"1024", "65536", "1048576", "67108864", "1073741824"})
+    public int blobSize;
+
+    private Path dataFolder;
+    private FileStorage storage;
+    private byte[] data;
+    private byte[] compressed;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataFolder = BenchmarkStorage.tempDir();
+        storage = BenchmarkStorage.create(dataFolder, 0, true, 0);
+        data = BenchmarkStorage.content(blobSize, 42);
+        compressed = storage.compressData(data);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        storage.shutdown();
+        BenchmarkStorage.delete(dataFolder);
+    }
+
+    @Benchmark
+    public byte[] compress() throws IOException {
+        return storage.compressData(data);
+    }
+
+    @Benchmark
+    public byte[] decompress() throws IOException {
+        return storage.decompressData(compressed);
+    }
+}
@@ -0,0 +1,60 @@
+package dev.arubik.blobcraft.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Writing the whole file index, which every group commit does.
+ * Entries are small blobs packed into segments so setup stays fast at a million files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IndexBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int indexSize;
+
+    private Path dataFolder;
+    private FileStorage storage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataFolder = BenchmarkStorage.tempDir();
+        storage = BenchmarkStorage.create(dataFolder, 0, false, 64 * 1024);
+
+        byte[] data = BenchmarkStorage.content(64, 1);
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put("uploader", "bench");
+        metadata.put("tags", "a,b,c");
+        metadata.put("category", "general");
+        for (int i = 0; i < indexSize; i++) {
+            storage.storeFile("file-" + i + ".txt", data, i % 2 == 0, null, "127.0.0.1", "jmh", metadata);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        storage.shutdown();
+        BenchmarkStorage.delete(dataFolder);
+    }
+
+    @Benchmark
+    public void saveFileIndex() {
+        storage.saveFileIndex();
+    }
+}
@@ -0,0 +1,79 @@
+package dev.arubik.blobcraft.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * {@link FileStorage#getFileData} over a working set of about 256MB, with the heap
+ * cache sized so that the given fraction of reads are hits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReadBenchmark {
+
+    private static final long WORKING_SET = 256L * 1024 * 1024;
+
+    @Param({"1024", "65536", "1048576", "16777216"})
+    public int blobSize;
+
+    @Param({"0", "0.5", "0.9", "1"})
+    public double cacheHitRatio;
+
+    private Path dataFolder;
+    private FileStorage storage;
+    private String[] ids;
+    private int[] order;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        int count = (int) Math.max(16, Math.min(4096, WORKING_SET / blobSize));
+        dataFolder = BenchmarkStorage.tempDir();
+        // Uncompressed, so the cache holds exactly blobSize per entry; storeFile caches
+        // while there is room, which fills it with the first cacheHitRatio of the blobs
+        storage = BenchmarkStorage.create(dataFolder, (long) (cacheHitRatio * count * blobSize), false, 64 * 1024);
+
+        ids = new String[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = storage.storeFile("bench-" + i + ".bin", BenchmarkStorage.content(blobSize, i),
+                false, null, "127.0.0.1", "jmh", null).getId();
+        }
+
+        // Uniform random access, precomputed so it costs nothing per operation
+        Random random = new Random(7);
+        order = new int[8192];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = random.nextInt(count);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        storage.shutdown();
+        BenchmarkStorage.delete(dataFolder);
+    }
+
+    @Benchmark
+    public byte[] getFileData(Cursor cursor) throws IOException {
+        String id = ids[order[cursor.next++ & (order.length - 1)]];
+        return storage.getFileData(id);
+    }
+}
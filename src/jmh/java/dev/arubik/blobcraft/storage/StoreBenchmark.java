@@ -0,0 +1,69 @@
+package dev.arubik.blobcraft.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import dev.arubik.blobcraft.models.StoredFile;
+
+/**
+ * {@link FileStorage#storeFile} end to end: hashing, optional compression, quota
+ * and the disk or segment write. Files written during an iteration are deleted
+ * after it, so the largest sizes need a few GB of free disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StoreBenchmark {
+
+    @Param({"1024", "65536", "1048576", "67108864", "1073741824"})
+    public int blobSize;
+
+    @Param({"false", "true"})
+    public boolean compression;
+
+    private Path dataFolder;
+    private FileStorage storage;
+    private byte[] data;
+    private final List<String> stored = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataFolder = BenchmarkStorage.tempDir();
+        // No heap cache, so every store pays for its own write
+        storage = BenchmarkStorage.create(dataFolder, 0, compression, 64 * 1024);
+        data = BenchmarkStorage.content(blobSize, 42);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteStored() {
+        storage.deleteFiles(stored);
+        stored.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        storage.shutdown();
+        BenchmarkStorage.delete(dataFolder);
+    }
+
+    @Benchmark
+    public StoredFile storeFile() {
+        StoredFile file = storage.storeFile("bench.txt", data, false, null, "127.0.0.1", "jmh", null);
+        stored.add(file.getId());
+        return file;
+    }
+}
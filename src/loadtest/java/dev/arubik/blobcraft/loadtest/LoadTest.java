@@ -0,0 +1,567 @@
+package dev.arubik.blobcraft.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import dev.arubik.blobcraft.BlobCraftServer;
+import dev.arubik.blobcraft.host.PropertiesConfigSource;
+import dev.arubik.blobcraft.host.StandaloneHost;
+
+/**
+ * HTTP load generator for a running BlobCraft node, or for one started in-process
+ * when no {@code --url} is given. Workers mix simple uploads, chunked uploads,
+ * downloads and listings, and the run ends with a latency summary on stdout and a
+ * JSON report for comparing builds.
+ *
+ * <pre>
+ * ./gradlew loadTest --args="--concurrency=32 --duration=60 --label=main"
+ * ./gradlew loadTest --args="--url=http://blobs:9090 --key=secret --rate=500"
+ * </pre>
+ *
+ * With {@code --rate} workers send on a fixed schedule and latency is measured from
+ * the intended send time, so a stalled server shows up in the tail instead of just
+ * lowering throughput (coordinated omission).
+ */
+public class LoadTest {
+
+    enum Operation {
+        UPLOAD("upload"),
+        CHUNKED("chunked"),
+        CHUNK("chunk"),
+        DOWNLOAD("download"),
+        LIST("list");
+
+        final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+
+        static Operation parse(String key) {
+            for (Operation operation : values()) {
+                if (operation.key.equals(key) && operation != CHUNK) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operation '" + key + "' (upload, chunked, download, list)");
+        }
+    }
+
+    /** Latency, bytes and status counts for one operation. */
+    static class OperationStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final Map<String, Long> statuses = new TreeMap<>();
+        long errors;
+        long bytes;
+
+        void record(long latencyNanos, int status, long transferred) {
+            latency.record(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+            bytes += transferred;
+            statuses.merge(status < 0 ? "io-error" : String.valueOf(status), 1L, Long::sum);
+            if (status < 200 || status >= 300) {
+                errors++;
+            }
+        }
+
+        void add(OperationStats other) {
+            latency.add(other.latency);
+            other.statuses.forEach((status, count) -> statuses.merge(status, count, Long::sum));
+            errors += other.errors;
+            bytes += other.bytes;
+        }
+    }
+
+    private final Map<String, String> options;
+    private final int concurrency;
+    private final long durationNanos;
+    private final long warmupNanos;
+    private final double rate;
+    private final int seedFiles;
+    private final Duration requestTimeout;
+    private final WeightedChoice<Operation> mix;
+    private final WeightedChoice<Integer> payloads;
+    private final String label;
+    private final Path reportPath;
+
+    private URI baseUri;
+    private String accessKey;
+    private HttpClient client;
+    private byte[] payload;
+    private final List<String> fileIds = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> uploadedIds = Collections.synchronizedList(new ArrayList<>());
+
+    public LoadTest(Map<String, String> options) {
+        this.options = options;
+        this.concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+        this.durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("duration", "60")));
+        this.warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("warmup", "10")));
+        this.rate = Double.parseDouble(options.getOrDefault("rate", "0"));
+        this.seedFiles = Integer.parseInt(options.getOrDefault("seed-files", "64"));
+        this.requestTimeout = Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout", "60")));
+        this.mix = WeightedChoice.parse(options.getOrDefault("mix", "upload:30,chunked:5,download:50,list:15"),
+            Operation::parse);
+        this.payloads = WeightedChoice.parse(options.getOrDefault("payloads", "1k:50,64k:30,1m:15,8m:5"),
+            LoadTest::parseSize);
+        this.label = options.getOrDefault("label",
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC).format(Instant.now()));
+        this.reportPath = Paths.get(options.getOrDefault("report", "build/reports/loadtest/" + label + ".json"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Expected --name=value, got '" + arg + "'");
+            }
+            int equals = arg.indexOf('=');
+            options.put(equals < 0 ? arg.substring(2) : arg.substring(2, equals),
+                equals < 0 ? "true" : arg.substring(equals + 1));
+        }
+        new LoadTest(options).run();
+    }
+
+    public void run() throws Exception {
+        Path embeddedFolder = null;
+        BlobCraftServer embedded = null;
+        if (options.containsKey("url")) {
+            baseUri = URI.create(options.get("url"));
+            accessKey = options.getOrDefault("key", "your-secret-key-here");
+        } else {
+            embeddedFolder = Files.createTempDirectory("blobcraft-loadtest");
+            accessKey = UUID.randomUUID().toString();
+            int port = freePort();
+            embedded = startEmbedded(embeddedFolder, port, accessKey);
+            baseUri = URI.create("http://127.0.0.1:" + port);
+        }
+
+        client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+        int largest = payloads.getValues().stream().max(Comparator.naturalOrder()).orElse(0);
+        payload = new byte[largest];
+        new Random(1).nextBytes(payload);
+
+        try {
+            seed();
+            Map<Operation, OperationStats> results = drive();
+            JsonObject report = report(results);
+            printSummary(results);
+            writeReport(report);
+        } finally {
+            if (options.containsKey("url") && Boolean.parseBoolean(options.getOrDefault("cleanup", "true"))) {
+                cleanUp();
+            }
+            if (embedded != null) {
+                embedded.stop();
+                deleteRecursively(embeddedFolder);
+            }
+        }
+    }
+
+    private static BlobCraftServer startEmbedded(Path dataFolder, int port, String accessKey) throws Exception {
+        // Limits that would throttle a single client IP are off; anything else can be
+        // changed with -Dblobcraft.<key>, which overrides this file
+        List<String> lines = List.of(
+            "server.port=" + port,
+            "server.bind-address=127.0.0.1",
+            "server.access-key=" + accessKey,
+            "server.log-requests=false",
+            "storage.max-storage=0",
+            "chunked-upload.max-concurrent-per-ip=0",
+            "security.max-uploads-per-ip=0");
+        Path configFile = dataFolder.resolve("blobcraft.properties");
+        Files.write(configFile, lines, StandardCharsets.UTF_8);
+
+        BlobCraftServer server = new BlobCraftServer(new StandaloneHost(dataFolder),
+            new PropertiesConfigSource(configFile));
+        server.start();
+        return server;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /** Uploads the initial files that downloads pick from. */
+    private void seed() throws Exception {
+        Random random = new Random(2);
+        Worker worker = new Worker(0, random);
+        for (int i = 0; i < seedFiles; i++) {
+            int status = worker.upload(payloads.next(random), System.nanoTime(), false);
+            if (status != 200) {
+                throw new IllegalStateException("Seeding failed with HTTP " + status + " from " + baseUri);
+            }
+        }
+        System.out.println("Seeded " + fileIds.size() + " files on " + baseUri);
+    }
+
+    private Map<Operation, OperationStats> drive() throws InterruptedException {
+        long start = System.nanoTime();
+        long measureStart = start + warmupNanos;
+        long end = measureStart + durationNanos;
+
+        List<Worker> workers = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            Worker worker = new Worker(i, new Random(100 + i));
+            Thread thread = new Thread(() -> worker.run(start, measureStart, end), "loadtest-" + i);
+            workers.add(worker);
+            threads.add(thread);
+            thread.start();
+        }
+        System.out.println("Running " + concurrency + " workers for " +
+            TimeUnit.NANOSECONDS.toSeconds(durationNanos) + "s after " +
+            TimeUnit.NANOSECONDS.toSeconds(warmupNanos) + "s warmup" +
+            (rate > 0 ? " at " + rate + " ops/s" : ""));
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Map<Operation, OperationStats> merged = new EnumMap<>(Operation.class);
+        for (Worker worker : workers) {
+            worker.stats.forEach((operation, stats) ->
+                merged.computeIfAbsent(operation, o -> new OperationStats()).add(stats));
+        }
+        return merged;
+    }
+
+    private class Worker {
+        final Random random;
+        final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        final byte[] drain = new byte[64 * 1024];
+        final long intervalNanos;
+        final long offsetNanos;
+
+        Worker(int index, Random random) {
+            this.random = random;
+            this.intervalNanos = rate > 0 ? (long) (concurrency * 1_000_000_000L / rate) : 0;
+            // Spread paced workers over one interval instead of firing together
+            this.offsetNanos = intervalNanos * index / Math.max(1, concurrency);
+        }
+
+        void run(long start, long measureStart, long end) {
+            long nextSend = start + offsetNanos;
+            while (true) {
+                long intended;
+                if (intervalNanos > 0) {
+                    intended = nextSend;
+                    nextSend += intervalNanos;
+                    long wait;
+                    while ((wait = intended - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                } else {
+                    intended = System.nanoTime();
+                }
+                if (intended >= end) {
+                    return;
+                }
+
+                boolean measured = intended >= measureStart;
+                try {
+                    switch (mix.next(random)) {
+                        case UPLOAD -> upload(payloads.next(random), intended, measured);
+                        case CHUNKED -> chunkedUpload(payloads.next(random), intended, measured);
+                        case DOWNLOAD -> download(intended, measured);
+                        case LIST -> list(intended, measured);
+                        default -> { }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        void record(Operation operation, boolean measured, long started, int status, long bytes) {
+            if (measured) {
+                stats.computeIfAbsent(operation, o -> new OperationStats())
+                    .record(System.nanoTime() - started, status, bytes);
+            }
+        }
+
+        int upload(int size, long intended, boolean measured) throws InterruptedException {
+            HttpRequest request = request("/upload")
+                .header("X-Filename", "loadtest-" + size + ".bin")
+                .header("Content-Type", "application/octet-stream")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(payload, 0, size))
+                .build();
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                record(Operation.UPLOAD, measured, intended, response.statusCode(), size);
+                if (response.statusCode() == 200) {
+                    remember(JsonParser.parseString(response.body()).getAsJsonObject().get("id").getAsString());
+                }
+                return response.statusCode();
+            } catch (IOException e) {
+                record(Operation.UPLOAD, measured, intended, -1, 0);
+                return -1;
+            }
+        }
+
+        void chunkedUpload(int size, long intended, boolean measured) throws InterruptedException {
+            HttpRequest init = request("/upload/init")
+                .header("X-Filename", "loadtest-chunked-" + size + ".bin")
+                .header("X-Total-Size", String.valueOf(size))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+            try {
+                HttpResponse<String> response = client.send(init, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 200) {
+                    record(Operation.CHUNKED, measured, intended, response.statusCode(), 0);
+                    return;
+                }
+                JsonObject session = JsonParser.parseString(response.body()).getAsJsonObject();
+                String uploadId = session.get("uploadId").getAsString();
+                int chunkSize = session.get("chunkSize").getAsInt();
+                int totalChunks = session.get("totalChunks").getAsInt();
+
+                for (int chunk = 0; chunk < totalChunks; chunk++) {
+                    int offset = chunk * chunkSize;
+                    int length = Math.min(chunkSize, size - offset);
+                    HttpRequest request = request("/upload/chunk")
+                        .header("X-Upload-Id", uploadId)
+                        .header("X-Chunk-Number", String.valueOf(chunk))
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(payload, offset, length))
+                        .build();
+                    long chunkStart = System.nanoTime();
+                    response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                    record(Operation.CHUNK, measured, chunkStart, response.statusCode(), length);
+                    if (response.statusCode() != 200) {
+                        record(Operation.CHUNKED, measured, intended, response.statusCode(), offset);
+                        return;
+                    }
+                }
+
+                JsonObject last = JsonParser.parseString(response.body()).getAsJsonObject();
+                record(Operation.CHUNKED, measured, intended, response.statusCode(), size);
+                if (last.has("fileId")) {
+                    remember(last.get("fileId").getAsString());
+                }
+            } catch (IOException e) {
+                record(Operation.CHUNKED, measured, intended, -1, 0);
+            }
+        }
+
+        void download(long intended, boolean measured) throws InterruptedException {
+            String id;
+            synchronized (fileIds) {
+                if (fileIds.isEmpty()) {
+                    return;
+                }
+                id = fileIds.get(random.nextInt(fileIds.size()));
+            }
+            HttpRequest request = request("/blob/" + id).GET().build();
+            try {
+                HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                long bytes = 0;
+                try (InputStream body = response.body()) {
+                    int read;
+                    while ((read = body.read(drain)) != -1) {
+                        bytes += read;
+                    }
+                }
+                record(Operation.DOWNLOAD, measured, intended, response.statusCode(), bytes);
+            } catch (IOException e) {
+                record(Operation.DOWNLOAD, measured, intended, -1, 0);
+            }
+        }
+
+        void list(long intended, boolean measured) throws InterruptedException {
+            HttpRequest request = request("/list?page=" + (1 + random.nextInt(5)) + "&pageSize=50").GET().build();
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                record(Operation.LIST, measured, intended, response.statusCode(), response.body().length());
+            } catch (IOException e) {
+                record(Operation.LIST, measured, intended, -1, 0);
+            }
+        }
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+            .timeout(requestTimeout)
+            .header("Authorization", "Bearer " + accessKey)
+            .header("User-Agent", "BlobCraft-LoadTest");
+    }
+
+    private void remember(String id) {
+        fileIds.add(id);
+        uploadedIds.add(id);
+    }
+
+    /** Deletes what this run uploaded to a remote node. */
+    private void cleanUp() {
+        int failed = 0;
+        synchronized (uploadedIds) {
+            for (String id : uploadedIds) {
+                try {
+                    HttpResponse<Void> response = client.send(request("/delete/" + id).DELETE().build(),
+                        HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() != 200) {
+                        failed++;
+                    }
+                } catch (IOException e) {
+                    failed++;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            System.out.println("Deleted " + (uploadedIds.size() - failed) + " uploaded files" +
+                (failed > 0 ? ", " + failed + " failed" : ""));
+        }
+    }
+
+    private JsonObject report(Map<Operation, OperationStats> results) {
+        double seconds = durationNanos / 1e9;
+
+        JsonObject settings = new JsonObject();
+        settings.addProperty("concurrency", concurrency);
+        settings.addProperty("durationSeconds", seconds);
+        settings.addProperty("warmupSeconds", warmupNanos / 1e9);
+        settings.addProperty("rate", rate);
+        settings.addProperty("seedFiles", seedFiles);
+        settings.add("mix", new Gson().toJsonTree(mix.getWeights()));
+        settings.add("payloads", new Gson().toJsonTree(payloads.getWeights()));
+
+        JsonObject environment = new JsonObject();
+        environment.addProperty("java", System.getProperty("java.version"));
+        environment.addProperty("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+        environment.addProperty("cpus", Runtime.getRuntime().availableProcessors());
+        environment.addProperty("maxHeapBytes", Runtime.getRuntime().maxMemory());
+
+        JsonObject operations = new JsonObject();
+        long totalCount = 0;
+        long totalErrors = 0;
+        long totalBytes = 0;
+        for (Map.Entry<Operation, OperationStats> entry : results.entrySet()) {
+            OperationStats stats = entry.getValue();
+            JsonObject json = new JsonObject();
+            json.addProperty("count", stats.latency.getCount());
+            json.addProperty("errors", stats.errors);
+            json.addProperty("opsPerSecond", stats.latency.getCount() / seconds);
+            json.addProperty("bytesPerSecond", stats.bytes / seconds);
+            json.add("statuses", new Gson().toJsonTree(stats.statuses));
+            json.add("latencyMicros", stats.latency.toJson());
+            operations.add(entry.getKey().key, json);
+
+            // Chunks are already counted in their chunked upload
+            if (entry.getKey() != Operation.CHUNK) {
+                totalCount += stats.latency.getCount();
+                totalErrors += stats.errors;
+                totalBytes += stats.bytes;
+            }
+        }
+
+        JsonObject summary = new JsonObject();
+        summary.addProperty("operations", totalCount);
+        summary.addProperty("errors", totalErrors);
+        summary.addProperty("opsPerSecond", totalCount / seconds);
+        summary.addProperty("bytesPerSecond", totalBytes / seconds);
+
+        JsonObject report = new JsonObject();
+        report.addProperty("label", label);
+        report.addProperty("finishedAt", Instant.now().toString());
+        report.addProperty("target", options.containsKey("url") ? baseUri.toString() : "embedded");
+        report.add("settings", settings);
+        report.add("environment", environment);
+        report.add("summary", summary);
+        report.add("operations", operations);
+        return report;
+    }
+
+    private void printSummary(Map<Operation, OperationStats> results) {
+        double seconds = durationNanos / 1e9;
+        System.out.printf(Locale.ROOT, "%n%-10s %9s %7s %10s %10s %9s %9s %9s %9s %9s%n",
+            "operation", "count", "errors", "ops/s", "MB/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "mean ms");
+        for (Map.Entry<Operation, OperationStats> entry : results.entrySet()) {
+            OperationStats stats = entry.getValue();
+            LatencyHistogram latency = stats.latency;
+            System.out.printf(Locale.ROOT, "%-10s %9d %7d %10.1f %10.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                entry.getKey().key, latency.getCount(), stats.errors, latency.getCount() / seconds,
+                stats.bytes / seconds / (1024 * 1024),
+                latency.valueAtPercentile(50) / 1000.0, latency.valueAtPercentile(99) / 1000.0,
+                latency.valueAtPercentile(99.9) / 1000.0, latency.getMax() / 1000.0, latency.getMean() / 1000.0);
+        }
+    }
+
+    private void writeReport(JsonObject report) throws IOException {
+        Path parent = reportPath.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (Writer writer = Files.newBufferedWriter(reportPath, StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(report, writer);
+        }
+        System.out.println("\nReport written to " + reportPath.toAbsolutePath());
+    }
+
+    static int parseSize(String size) {
+        String value = size.trim().toLowerCase(Locale.ROOT);
+        long multiplier = 1;
+        if (value.endsWith("k")) {
+            multiplier = 1024;
+        } else if (value.endsWith("m")) {
+            multiplier = 1024 * 1024;
+        } else if (value.endsWith("g")) {
+            multiplier = 1024 * 1024 * 1024;
+        }
+        if (multiplier > 1) {
+            value = value.substring(0, value.length() - 1);
+        }
+        long bytes = Long.parseLong(value) * multiplier;
+        if (bytes <= 0 || bytes > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Payload size out of range: " + size);
+        }
+        return (int) bytes;
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    // Best effort, it is a temp directory
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package dev.arubik.blobcraft.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Picks values with a fixed weight each, parsed from specs like
+ * {@code upload:30,download:70} or {@code 1k:50,1m:50}.
+ */
+public class WeightedChoice<T> {
+    private final List<T> values = new ArrayList<>();
+    private final List<Integer> cumulative = new ArrayList<>();
+    private final Map<String, Integer> weights = new LinkedHashMap<>();
+    private int total;
+
+    public static <T> WeightedChoice<T> parse(String spec, Function<String, T> parser) {
+        WeightedChoice<T> choice = new WeightedChoice<>();
+        for (String part : spec.split(",")) {
+            String entry = part.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            int colon = entry.lastIndexOf(':');
+            String name = colon < 0 ? entry : entry.substring(0, colon).trim();
+            int weight = colon < 0 ? 1 : Integer.parseInt(entry.substring(colon + 1).trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in '" + spec + "'");
+            }
+            if (weight > 0) {
+                choice.add(name, parser.apply(name), weight);
+            }
+        }
+        if (choice.total == 0) {
+            throw new IllegalArgumentException("No positive weights in '" + spec + "'");
+        }
+        return choice;
+    }
+
+    private void add(String name, T value, int weight) {
+        total += weight;
+        values.add(value);
+        cumulative.add(total);
+        weights.put(name, weight);
+    }
+
+    public T next(Random random) {
+        int pick = random.nextInt(total);
+        for (int i = 0; i < values.size(); i++) {
+            if (pick < cumulative.get(i)) {
+                return values.get(i);
+            }
+        }
+        return values.get(values.size() - 1);
+    }
+
+    public List<T> getValues() {
+        return values;
+    }
+
+    public Map<String, Integer> getWeights() {
+        return weights;
+    }
+}
@@ -0,0 +1,349 @@
+package dev.arubik.blobcraft;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.logging.Logger;
+
+import dev.arubik.blobcraft.host.BlobHost;
+import dev.arubik.blobcraft.host.ConfigSource;
+import dev.arubik.blobcraft.io.BufferPool;
+import dev.arubik.blobcraft.profiling.Profiler;
+import dev.arubik.blobcraft.server.AccessLog;
+import dev.arubik.blobcraft.server.HttpServerWrapper;
+import dev.arubik.blobcraft.server.TrustedProxies;
+import dev.arubik.blobcraft.services.ChunkedUploadService;
+import dev.arubik.blobcraft.storage.FileStorage;
+
+/**
+ * Builds and runs the storage, upload service and HTTP server from configuration.
+ * Shared by the plugin and the standalone server so both read the same keys with the same defaults.
+ */
+public class BlobCraftServer {
+    private final BlobHost host;
+    private final ConfigSource config;
+    private final Logger logger;
+    private FileStorage fileStorage;
+    private HttpServerWrapper httpServer;
+    private AccessLog accessLog;
+    private ChunkedUploadService chunkedUploadService;
+    private Profiler profiler;
+
+    public BlobCraftServer(BlobHost host, ConfigSource config) {
+        this.host = host;
+        this.config = config;
+        this.logger = host.getLogger();
+    }
+
+    public void start() {
+        logger.info("Loading BlobCraft configuration...");
+        
+        // Storage configuration
+        long maxRam = config.getLong("storage.max-ram", 1073741824L); // 1GB default
+        long maxStorage = config.getLong("storage.max-storage", 10737418240L); // 10GB default
+        boolean enableExpiration = config.getBoolean("storage.enable-expiration", true);
+        long defaultTtl = config.getLong("storage.default-ttl", 86400L); // 24 hours
+        long maxTtl = config.getLong("storage.max-ttl", 604800L); // 7 days
+        long cleanupInterval = config.getLong("storage.cleanup-interval", 3600L); // 1 hour
+        
+        // Compression settings
+        boolean enableCompression = config.getBoolean("storage.compression.enabled", true);
+        int compressionLevel = config.getInt("storage.compression.level", 6);
+        long compressThreshold = config.getLong("storage.compression.threshold", 1024L);
+        
+        // Index persistence (group commit)
+        long indexFlushInterval = config.getLong("storage.index.flush-interval", 1000L); // 1 second
+        int indexFlushThreshold = config.getInt("storage.index.flush-threshold", 500);
+        
+        // Quotas (0 = unlimited)
+        long perIpQuota = config.getLong("storage.quota.per-ip", 0L);
+        long perUploaderQuota = config.getLong("storage.quota.per-uploader", 0L);
+        
+        // Packed segment storage for small blobs (threshold 0 = disabled)
+        long segmentThreshold = config.getBoolean("storage.segments.enabled", true)
+            ? config.getLong("storage.segments.small-file-threshold", 65536L) : 0L; // 64KB
+        long maxSegmentSize = config.getLong("storage.segments.max-segment-size", 67108864L); // 64MB
+        double compactionRatio = config.getDouble("storage.segments.compaction-ratio", 0.5);
+        long compactionInterval = config.getLong("storage.segments.compaction-interval", 600L); // 10 minutes
+        
+        // Memory-mapped downloads (pool size 0 = disabled)
+        long mmapMinSize = config.getLong("storage.mmap.min-size", 262144L); // 256KB
+        long mmapMaxSize = config.getLong("storage.mmap.max-size", 268435456L); // 256MB
+        int mmapPoolEntries = config.getBoolean("storage.mmap.enabled", true)
+            ? config.getInt("storage.mmap.pool-size", 64) : 0;
+        long mmapPoolBytes = config.getLong("storage.mmap.max-mapped", 2147483648L); // 2GB
+        
+        // Initialize file storage with correct parameters
+        fileStorage = new FileStorage(
+            maxRam,
+            maxStorage,
+            enableExpiration,
+            defaultTtl,
+            maxTtl,
+            cleanupInterval,
+            enableCompression,
+            compressionLevel,
+            compressThreshold,
+            indexFlushInterval,
+            indexFlushThreshold,
+            perIpQuota,
+            perUploaderQuota,
+            segmentThreshold,
+            maxSegmentSize,
+            compactionRatio,
+            compactionInterval,
+            mmapMinSize,
+            mmapMaxSize,
+            mmapPoolEntries,
+            mmapPoolBytes,
+            host.getDataFolder(),
+            logger
+        );
+        
+        // Move files left in the old flat layout into shard directories (runs in background)
+        if (config.getBoolean("storage.layout.auto-migrate", true)) {
+            fileStorage.migrateLayout();
+        }
+        
+        // Transfer buffers shared by the HTTP handlers and chunked uploads
+        BufferPool bufferPool = new BufferPool(
+            config.getInt("server.buffer-size", 65536),
+            config.getInt("server.buffer-pool.max-idle", 256),
+            config.getBoolean("server.buffer-pool.leak-detection", false),
+            logger
+        );
+        
+        // Chunked upload configuration
+        boolean chunkedUploadEnabled = config.getBoolean("chunked-upload.enabled", true);
+        if (chunkedUploadEnabled) {
+            int chunkSize = config.getInt("chunked-upload.chunk-size", 12582912); // 8MB
+            String tempUploadPath = config.getString("chunked-upload.temp-dir", "temp/uploads");
+            long maxFileSize = config.getLong("chunked-upload.max-file-size", 5368709120L); // 5GB
+            boolean enableStreamingCompression = config.getBoolean("chunked-upload.streaming-compression", false);
+            int maxConcurrentPerIp = config.getInt("chunked-upload.max-concurrent-per-ip", 3);
+            
+            chunkedUploadService = new ChunkedUploadService(
+                fileStorage,
+                host.getDataFolder(),
+                logger,
+                tempUploadPath,
+                chunkSize,
+                maxFileSize,
+                enableStreamingCompression,
+                maxConcurrentPerIp,
+                bufferPool
+            );
+            
+            logger.info("Chunked upload service initialized:");
+            logger.info("- Chunk size: " + (chunkSize / 1024 / 1024) + "MB");
+            logger.info("- Max file size: " + (maxFileSize / 1024 / 1024) + "MB");
+            logger.info("- Temp directory: " + tempUploadPath);
+        }
+        
+        // Server configuration
+        int port = config.getInt("server.port", 8080);
+        String bindAddress = config.getString("server.bind-address", "0.0.0.0");
+        String accessKey = config.getString("server.access-key", "your-secret-key-here");
+        int maxThreads = config.getInt("server.max-threads", 10);
+        String engine = config.getString("server.engine", "platform");
+        
+        // Per-route-class pools (transfer threads = max-threads)
+        int transferQueue = config.getInt("server.pools.transfer.queue", 100);
+        String transferRejection = config.getString("server.pools.transfer.rejection", "reject");
+        int metadataThreads = config.getInt("server.pools.metadata.threads", 4);
+        int metadataQueue = config.getInt("server.pools.metadata.queue", 200);
+        String metadataRejection = config.getString("server.pools.metadata.rejection", "reject");
+        int adminThreads = config.getInt("server.pools.admin.threads", 2);
+        int adminQueue = config.getInt("server.pools.admin.queue", 20);
+        String adminRejection = config.getString("server.pools.admin.rejection", "drop-oldest");
+        boolean enableCors = config.getBoolean("server.enable-cors", true);
+        boolean logRequests = config.getBoolean("server.log-requests", true);
+        if (logRequests) {
+            String accessLogFile = config.getString("server.access-log.file", "logs/access.log");
+            try {
+                accessLog = new AccessLog(
+                    host.getDataFolder().toAbsolutePath().resolve(accessLogFile),
+                    AccessLog.Level.parse(config.getString("server.access-log.level", "info")),
+                    config.getDouble("server.access-log.sample-rate", 1.0),
+                    config.getInt("server.access-log.buffer", 8192),
+                    config.getLong("server.access-log.max-size", 52428800L), // 50MB
+                    config.getInt("server.access-log.max-files", 5),
+                    logger
+                );
+            } catch (IOException e) {
+                logger.warning("Failed to open access log " + accessLogFile + ", requests will not be logged: " + 
+                    e.getMessage());
+            }
+        }
+        
+        // Timeout settings
+        int readTimeout = config.getInt("server.read-timeout", 30000);
+        int writeTimeout = config.getInt("server.write-timeout", 30000);
+        long minTransferRate = config.getLong("server.min-transfer-rate", 1024L); // 1KB/s
+        
+        // Request limits
+        long maxRequestSize = config.getLong("server.max-request-size", 104857600L); // 100MB
+        
+        // Rate limiting
+        boolean rateLimitEnabled = config.getBoolean("server.rate-limit.enabled", false);
+        int rateLimitRequests = config.getInt("server.rate-limit.requests", 100);
+        int rateLimitWindow = config.getInt("server.rate-limit.window", 60);
+        int rateLimitUploaderRequests = config.getInt("server.rate-limit.uploader-requests", 0);
+        long rateLimitBytesPerSecond = config.getLong("server.rate-limit.bytes-per-second", 0L);
+        int maxUploadsPerIp = config.getInt("security.max-uploads-per-ip", 100);
+        
+        // Forwarding headers are only believed from these peers (empty = use the socket address)
+        TrustedProxies trustedProxies = TrustedProxies.parse(config.getString("server.trusted-proxies", ""), logger);
+        
+        // Download egress shaping (0 = unlimited)
+        long bandwidthGlobalLimit = config.getLong("server.bandwidth.global-limit", 0L);
+        long bandwidthPerConnectionLimit = config.getLong("server.bandwidth.per-connection-limit", 0L);
+        int bandwidthPublicWeight = config.getInt("server.bandwidth.public-weight", 1);
+        int bandwidthPrivateWeight = config.getInt("server.bandwidth.private-weight", 2);
+        
+        // Download caching
+        long publicCacheMaxAge = config.getLong("server.cache.public-max-age", 31536000L); // 1 year
+        boolean publicCacheImmutable = config.getBoolean("server.cache.public-immutable", true);
+        String privateCacheControl = config.getString("server.cache.private-control", "private, no-cache");
+        
+        // Dashboard settings
+        boolean enableDashboard = config.getBoolean("dashboard.enabled", true);
+        String dashboardPath = config.getString("dashboard.path", "/dashboard");
+        boolean dashboardAuth = config.getBoolean("dashboard.require-auth", true);
+        
+        // Metrics endpoint
+        boolean enableMetrics = config.getBoolean("metrics.enabled", true);
+        String metricsPath = config.getString("metrics.path", "/metrics");
+        boolean metricsAuth = config.getBoolean("metrics.require-auth", true);
+        
+        // Flight recordings (/blobcraft profile)
+        profiler = new Profiler(
+            host.getDataFolder().toAbsolutePath().resolve(config.getString("profiling.directory", "recordings")),
+            config.getString("profiling.settings", "profile"),
+            Duration.ofSeconds(config.getLong("profiling.max-age", 3600L)), // 1 hour
+            config.getLong("profiling.max-size", 268435456L), // 256MB
+            logger
+        );
+        
+        // Progress settings
+        boolean progressEnabled = config.getBoolean("chunked-upload.progress.enabled", true);
+        long progressUpdateInterval = config.getLong("chunked-upload.progress.update-interval", 1000L);
+        
+        // Initialize HTTP server with correct parameters
+        httpServer = new HttpServerWrapper(
+            port,
+            bindAddress,
+            accessKey,
+            maxThreads,
+            enableCors,
+            accessLog,
+            fileStorage,
+            logger,
+            enableDashboard,
+            dashboardPath,
+            dashboardAuth,
+            chunkedUploadService,
+            readTimeout,
+            writeTimeout,
+            maxRequestSize,
+            bufferPool,
+            rateLimitEnabled,
+            rateLimitRequests,
+            rateLimitWindow,
+            progressEnabled,
+            progressUpdateInterval,
+            engine,
+            transferQueue,
+            transferRejection,
+            metadataThreads,
+            metadataQueue,
+            metadataRejection,
+            adminThreads,
+            adminQueue,
+            adminRejection,
+            rateLimitBytesPerSecond,
+            rateLimitUploaderRequests,
+            maxUploadsPerIp,
+            bandwidthGlobalLimit,
+            bandwidthPerConnectionLimit,
+            bandwidthPublicWeight,
+            bandwidthPrivateWeight,
+            minTransferRate,
+            publicCacheMaxAge,
+            publicCacheImmutable,
+            privateCacheControl,
+            enableMetrics,
+            metricsPath,
+            metricsAuth,
+            trustedProxies
+        );
+        
+        // Start HTTP server
+        httpServer.start();
+        if (!httpServer.isRunning()) {
+            throw new IllegalStateException("HTTP server failed to start on " + bindAddress + ":" + port);
+        }
+        
+        // Log configuration details
+        logger.info("BlobCraft has started successfully!");
+        logger.info("Configuration loaded:");
+        logger.info("- Server: " + bindAddress + ":" + port);
+        logger.info("- Max RAM: " + (maxRam / 1024 / 1024) + "MB");
+        logger.info("- Max Storage: " + (maxStorage / 1024 / 1024 / 1024) + "GB");
+        logger.info("- Compression: " + (enableCompression ? "enabled (level " + compressionLevel + ")" : "disabled"));
+        logger.info("- Dashboard: " + (enableDashboard ? "enabled at " + dashboardPath : "disabled"));
+        logger.info("- Chunked Upload: " + (chunkedUploadEnabled ? "enabled" : "disabled"));
+        
+        // Validate access key
+        if ("your-secret-key-here".equals(accessKey)) {
+            logger.warning("WARNING: You are using the default access key! Please change it in the configuration");
+        }
+        
+        logger.info("HTTP server is running on http://" + bindAddress + ":" + port);
+        if (enableDashboard) {
+            logger.info("Dashboard available at: http://" + bindAddress + ":" + port + dashboardPath);
+        }
+    }
+
+    public void stop() {
+        // Stop HTTP server
+        if (httpServer != null) {
+            httpServer.stop();
+        }
+        
+        // Write out buffered access log entries
+        if (accessLog != null) {
+            accessLog.shutdown();
+        }
+        
+        // Keep a recording that was still running
+        if (profiler != null) {
+            profiler.shutdown();
+        }
+        
+        // Stop chunked upload service
+        if (chunkedUploadService != null) {
+            chunkedUploadService.shutdown();
+        }
+        
+        // Stop file storage
+        if (fileStorage != null) {
+            fileStorage.shutdown();
+        }
+    }
+
+    public BlobHost getHost() {
+        return host;
+    }
+
+    public FileStorage getFileStorage() {
+        return fileStorage;
+    }
+
+    public ChunkedUploadService getChunkedUploadService() {
+        return chunkedUploadService;
+    }
+
+    public Profiler getProfiler() {
+        return profiler;
+    }
+}
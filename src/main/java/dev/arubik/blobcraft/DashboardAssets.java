@@ -0,0 +1,66 @@
+package dev.arubik.blobcraft;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import dev.arubik.blobcraft.server.StaticAsset;
+
+/**
+ * Dashboard page, stylesheet and script, read from the jar and encoded once at startup.
+ * The page links the other two with their content hash in the URL, so they can be
+ * cached for good while the page itself is revalidated.
+ */
+public class DashboardAssets {
+
+    private final StaticAsset page;
+    private final StaticAsset stylesheet;
+    private final StaticAsset script;
+
+    public DashboardAssets(String dashboardPath) throws IOException {
+        this.stylesheet = new StaticAsset("text/css; charset=utf-8", read("dashboard.css"));
+        this.script = new StaticAsset("text/javascript; charset=utf-8", read("dashboard.js"));
+
+        String base = dashboardPath.endsWith("/") 
+            ? dashboardPath.substring(0, dashboardPath.length() - 1) : dashboardPath;
+        String html = new String(read("index.html"), StandardCharsets.UTF_8)
+            .replace("{{base}}", base)
+            .replace("{{cssVersion}}", stylesheet.getVersion())
+            .replace("{{jsVersion}}", script.getVersion());
+        this.page = new StaticAsset("text/html; charset=utf-8", html.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Asset for a path below the dashboard path, or null if there is none.
+     */
+    public StaticAsset get(String relativePath) {
+        switch (relativePath) {
+            case "":
+            case "/":
+            case "/index.html":
+                return page;
+            case "/dashboard.css":
+                return stylesheet;
+            case "/dashboard.js":
+                return script;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Whether the asset's URL changes with its content (everything but the page).
+     */
+    public boolean isVersioned(StaticAsset asset) {
+        return asset != page;
+    }
+
+    private static byte[] read(String name) throws IOException {
+        try (InputStream in = DashboardAssets.class.getResourceAsStream("/dashboard/" + name)) {
+            if (in == null) {
+                throw new IOException("Missing dashboard resource: " + name);
+            }
+            return in.readAllBytes();
+        }
+    }
+}
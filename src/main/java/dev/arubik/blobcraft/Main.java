@@ -9,14 +9,15 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
 
-import dev.arubik.blobcraft.models.StoredFile;
-import dev.arubik.blobcraft.server.HttpServerWrapper;
+import dev.arubik.blobcraft.host.BukkitHost;
+import dev.arubik.blobcraft.models.FileView;
+import dev.arubik.blobcraft.profiling.Profiler;
 import dev.arubik.blobcraft.services.ChunkedUploadService;
 import dev.arubik.blobcraft.storage.FileStorage;
 
 public class Main extends JavaPlugin {
+    private BlobCraftServer server;
     private FileStorage fileStorage;
-    private HttpServerWrapper httpServer;
     private ChunkedUploadService chunkedUploadService;
 
     @Override
@@ -24,142 +25,12 @@ public class Main extends JavaPlugin {
         // Save default config
         saveDefaultConfig();
         
-        // Load configuration
-        FileConfiguration config = getConfig();
-        
-        // Log configuration loading
-        getLogger().info("Loading BlobCraft configuration...");
-        
         try {
-            // Storage configuration
-            long maxRam = config.getLong("storage.max-ram", 1073741824L); // 1GB default
-            long maxStorage = config.getLong("storage.max-storage", 10737418240L); // 10GB default
-            boolean enableExpiration = config.getBoolean("storage.enable-expiration", true);
-            long defaultTtl = config.getLong("storage.default-ttl", 86400L); // 24 hours
-            long maxTtl = config.getLong("storage.max-ttl", 604800L); // 7 days
-            long cleanupInterval = config.getLong("storage.cleanup-interval", 3600L); // 1 hour
-            
-            // Compression settings
-            boolean enableCompression = config.getBoolean("storage.compression.enabled", true);
-            int compressionLevel = config.getInt("storage.compression.level", 6);
-            long compressThreshold = config.getLong("storage.compression.threshold", 1024L);
-            
-            // Initialize file storage with correct parameters
-            fileStorage = new FileStorage(
-                maxRam,
-                maxStorage,
-                enableExpiration,
-                defaultTtl,
-                maxTtl,
-                cleanupInterval,
-                enableCompression,
-                compressionLevel,
-                compressThreshold,
-                this
-            );
-            
-            // Chunked upload configuration
-            boolean chunkedUploadEnabled = config.getBoolean("chunked-upload.enabled", true);
-            if (chunkedUploadEnabled) {
-                int chunkSize = config.getInt("chunked-upload.chunk-size", 12582912); // 8MB
-                String tempUploadPath = config.getString("chunked-upload.temp-dir", "temp/uploads");
-                long maxFileSize = config.getLong("chunked-upload.max-file-size", 5368709120L); // 5GB
-                boolean enableStreamingCompression = config.getBoolean("chunked-upload.streaming-compression", false);
-                
-                chunkedUploadService = new ChunkedUploadService(
-                    fileStorage,
-                    this,
-                    tempUploadPath,
-                    chunkSize,
-                    maxFileSize,
-                    enableStreamingCompression
-                );
-                
-                getLogger().info("Chunked upload service initialized:");
-                getLogger().info("- Chunk size: " + (chunkSize / 1024 / 1024) + "MB");
-                getLogger().info("- Max file size: " + (maxFileSize / 1024 / 1024) + "MB");
-                getLogger().info("- Temp directory: " + tempUploadPath);
-            }
-            
-            // Server configuration
-            int port = config.getInt("server.port", 8080);
-            String bindAddress = config.getString("server.bind-address", "0.0.0.0");
-            String accessKey = config.getString("server.access-key", "your-secret-key-here");
-            int maxThreads = config.getInt("server.max-threads", 10);
-            boolean enableCors = config.getBoolean("server.enable-cors", true);
-            boolean logRequests = config.getBoolean("server.log-requests", true);
-            
-            // Timeout settings
-            int readTimeout = config.getInt("server.read-timeout", 30000);
-            int writeTimeout = config.getInt("server.write-timeout", 30000);
-            int idleTimeout = config.getInt("server.idle-timeout", 60000);
-            
-            // Request limits
-            long maxRequestSize = config.getLong("server.max-request-size", 104857600L); // 100MB
-            int bufferSize = config.getInt("server.buffer-size", 8192);
-            
-            // Rate limiting
-            boolean rateLimitEnabled = config.getBoolean("server.rate-limit.enabled", false);
-            int rateLimitRequests = config.getInt("server.rate-limit.requests", 100);
-            int rateLimitWindow = config.getInt("server.rate-limit.window", 60);
-            
-            // Dashboard settings
-            boolean enableDashboard = config.getBoolean("dashboard.enabled", true);
-            String dashboardPath = config.getString("dashboard.path", "/dashboard");
-            boolean dashboardAuth = config.getBoolean("dashboard.require-auth", true);
-            
-            // Progress settings
-            boolean progressEnabled = config.getBoolean("chunked-upload.progress.enabled", true);
-            long progressUpdateInterval = config.getLong("chunked-upload.progress.update-interval", 1000L);
-            
-            // Initialize HTTP server with correct parameters
-            httpServer = new HttpServerWrapper(
-                port,
-                bindAddress,
-                accessKey,
-                maxThreads,
-                enableCors,
-                logRequests,
-                fileStorage,
-                this,
-                enableDashboard,
-                dashboardPath,
-                dashboardAuth,
-                chunkedUploadService,
-                readTimeout,
-                writeTimeout,
-                idleTimeout,
-                maxRequestSize,
-                bufferSize,
-                rateLimitEnabled,
-                rateLimitRequests,
-                rateLimitWindow,
-                progressEnabled,
-                progressUpdateInterval
-            );
-            
-            // Start HTTP server
-            httpServer.start();
-            
-            // Log configuration details
-            getLogger().info("BlobCraft has been enabled successfully!");
-            getLogger().info("Configuration loaded:");
-            getLogger().info("- Server: " + bindAddress + ":" + port);
-            getLogger().info("- Max RAM: " + (maxRam / 1024 / 1024) + "MB");
-            getLogger().info("- Max Storage: " + (maxStorage / 1024 / 1024 / 1024) + "GB");
-            getLogger().info("- Compression: " + (enableCompression ? "enabled (level " + compressionLevel + ")" : "disabled"));
-            getLogger().info("- Dashboard: " + (enableDashboard ? "enabled at " + dashboardPath : "disabled"));
-            getLogger().info("- Chunked Upload: " + (chunkedUploadEnabled ? "enabled" : "disabled"));
-            
-            // Validate access key
-            if ("your-secret-key-here".equals(accessKey)) {
-                getLogger().warning("WARNING: You are using the default access key! Please change it in config.yml");
-            }
-            
-            getLogger().info("HTTP server is running on http://" + bindAddress + ":" + port);
-            if (enableDashboard) {
-                getLogger().info("Dashboard available at: http://" + bindAddress + ":" + port + dashboardPath);
-            }
+            BukkitHost host = new BukkitHost(this);
+            server = new BlobCraftServer(host, host);
+            server.start();
+            fileStorage = server.getFileStorage();
+            chunkedUploadService = server.getChunkedUploadService();
             
         } catch (Exception e) {
             getLogger().severe("Failed to initialize BlobCraft: " + e.getMessage());
@@ -172,19 +43,8 @@ public class Main extends JavaPlugin {
     public void onDisable() {
         getLogger().info("Shutting down BlobCraft...");
         
-        // Stop HTTP server
-        if (httpServer != null) {
-            httpServer.stop();
-        }
-        
-        // Stop chunked upload service
-        if (chunkedUploadService != null) {
-            chunkedUploadService.shutdown();
-        }
-        
-        // Stop file storage
-        if (fileStorage != null) {
-            fileStorage.shutdown();
+        if (server != null) {
+            server.stop();
         }
         
         getLogger().info("BlobCraft has been disabled.");
@@ -239,6 +99,14 @@ public class Main extends JavaPlugin {
                 handleUploadsCommand(sender);
                 break;
                 
+            case "migrate":
+                handleMigrateCommand(sender);
+                break;
+                
+            case "profile":
+                handleProfileCommand(sender, args);
+                break;
+                
             default:
                 sendHelpMessage(sender);
                 break;
@@ -256,6 +124,8 @@ public class Main extends JavaPlugin {
         sender.sendMessage(ChatColor.YELLOW + "/blobcraft info <id>" + ChatColor.WHITE + " - Show file information");
         sender.sendMessage(ChatColor.YELLOW + "/blobcraft cleanup" + ChatColor.WHITE + " - Run cleanup manually");
         sender.sendMessage(ChatColor.YELLOW + "/blobcraft uploads" + ChatColor.WHITE + " - Show active uploads");
+        sender.sendMessage(ChatColor.YELLOW + "/blobcraft migrate" + ChatColor.WHITE + " - Move files to the sharded storage layout");
+        sender.sendMessage(ChatColor.YELLOW + "/blobcraft profile <start|stop>" + ChatColor.WHITE + " - Record a flight recording");
         sender.sendMessage(ChatColor.YELLOW + "/blobcraft reload" + ChatColor.WHITE + " - Reload configuration");
     }
 
@@ -323,7 +193,7 @@ public class Main extends JavaPlugin {
                 }
             }
             
-            List<StoredFile> files = fileStorage.listFiles(page, 10, null);
+            List<FileView> files = fileStorage.listFiles(page, 10, null);
             int totalFiles = fileStorage.getTotalFiles(null);
             int totalPages = (int) Math.ceil((double) totalFiles / 10);
             
@@ -334,7 +204,7 @@ public class Main extends JavaPlugin {
                 return;
             }
             
-            for (StoredFile file : files) {
+            for (FileView file : files) {
                 String status = file.isPublic() ? ChatColor.GREEN + "Public" : ChatColor.RED + "Private";
                 String compressed = file.isCompressed() ? ChatColor.BLUE + " [Compressed]" : "";
                 sender.sendMessage(ChatColor.WHITE + file.getId() + " - " + file.getFilename() + 
@@ -359,7 +229,7 @@ public class Main extends JavaPlugin {
         String fileId = args[1];
         
         try {
-            StoredFile file = fileStorage.getFile(fileId);
+            FileView file = fileStorage.getFileView(fileId);
             if (file == null) {
                 sender.sendMessage(ChatColor.RED + "File not found: " + fileId);
                 return;
@@ -386,7 +256,7 @@ public class Main extends JavaPlugin {
         String fileId = args[1];
         
         try {
-            StoredFile file = fileStorage.getFile(fileId);
+            FileView file = fileStorage.getFileView(fileId);
             if (file == null) {
                 sender.sendMessage(ChatColor.RED + "File not found: " + fileId);
                 return;
@@ -454,6 +324,52 @@ public class Main extends JavaPlugin {
         }
     }
 
+    private void handleMigrateCommand(CommandSender sender) {
+        sender.sendMessage(ChatColor.YELLOW + "Migrating storage layout in the background...");
+        fileStorage.migrateLayout().whenCompleteAsync((migrated, error) -> {
+            if (error != null) {
+                sender.sendMessage(ChatColor.RED + "Migration failed: " + error.getMessage());
+            } else {
+                sender.sendMessage(ChatColor.GREEN + "Migration completed: " + migrated + " files moved.");
+            }
+        }, server.getHost().getScheduler());
+    }
+
+    private void handleProfileCommand(CommandSender sender, String[] args) {
+        Profiler profiler = server.getProfiler();
+        String action = args.length > 1 ? args[1].toLowerCase() : "";
+        try {
+            switch (action) {
+                case "start":
+                    profiler.start();
+                    sender.sendMessage(ChatColor.GREEN + "Flight recording started. Use /blobcraft profile stop to save it.");
+                    break;
+                    
+                case "stop":
+                    sender.sendMessage(ChatColor.YELLOW + "Writing flight recording...");
+                    profiler.stop().whenCompleteAsync((file, error) -> {
+                        if (error != null) {
+                            sender.sendMessage(ChatColor.RED + "Failed to write recording: " + error.getMessage());
+                        } else {
+                            sender.sendMessage(ChatColor.GREEN + "Recording saved: " + file);
+                        }
+                    }, server.getHost().getScheduler());
+                    break;
+                    
+                default:
+                    sender.sendMessage(ChatColor.RED + "Usage: /blobcraft profile <start|stop>");
+                    sender.sendMessage(ChatColor.BLUE + "Recording: " + ChatColor.WHITE + 
+                        (profiler.isRecording() ? "running" : "stopped"));
+                    break;
+            }
+        } catch (IllegalStateException e) {
+            sender.sendMessage(ChatColor.RED + e.getMessage());
+        } catch (Exception e) {
+            sender.sendMessage(ChatColor.RED + "Error " + ("stop".equals(action) ? "stopping" : "starting") + 
+                " recording: " + e.getMessage());
+        }
+    }
+
     private void handleReloadCommand(CommandSender sender) {
         try {
             sender.sendMessage(ChatColor.YELLOW + "Reloading configuration...");
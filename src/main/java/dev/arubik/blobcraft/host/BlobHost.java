@@ -0,0 +1,24 @@
+package dev.arubik.blobcraft.host;
+
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
+
+/**
+ * What BlobCraft needs from the process it runs in: a Minecraft server
+ * ({@link BukkitHost}) or its own JVM ({@link StandaloneHost}).
+ */
+public interface BlobHost {
+
+    /**
+     * Directory holding the configuration, storage and temporary uploads.
+     */
+    Path getDataFolder();
+
+    Logger getLogger();
+
+    /**
+     * Runs callbacks on the host's own thread (the server thread under Bukkit).
+     */
+    Executor getScheduler();
+}
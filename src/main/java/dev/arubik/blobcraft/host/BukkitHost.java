@@ -0,0 +1,61 @@
+package dev.arubik.blobcraft.host;
+
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
+
+/**
+ * Runs BlobCraft inside a Minecraft server, configured from config.yml.
+ */
+public class BukkitHost implements BlobHost, ConfigSource {
+    private final JavaPlugin plugin;
+    private final FileConfiguration config;
+
+    public BukkitHost(JavaPlugin plugin) {
+        this.plugin = plugin;
+        this.config = plugin.getConfig();
+    }
+
+    @Override
+    public Path getDataFolder() {
+        return plugin.getDataFolder().toPath();
+    }
+
+    @Override
+    public Logger getLogger() {
+        return plugin.getLogger();
+    }
+
+    @Override
+    public Executor getScheduler() {
+        return task -> plugin.getServer().getScheduler().runTask(plugin, task);
+    }
+
+    @Override
+    public String getString(String key, String defaultValue) {
+        return config.getString(key, defaultValue);
+    }
+
+    @Override
+    public int getInt(String key, int defaultValue) {
+        return config.getInt(key, defaultValue);
+    }
+
+    @Override
+    public long getLong(String key, long defaultValue) {
+        return config.getLong(key, defaultValue);
+    }
+
+    @Override
+    public double getDouble(String key, double defaultValue) {
+        return config.getDouble(key, defaultValue);
+    }
+
+    @Override
+    public boolean getBoolean(String key, boolean defaultValue) {
+        return config.getBoolean(key, defaultValue);
+    }
+}
@@ -0,0 +1,17 @@
+package dev.arubik.blobcraft.host;
+
+/**
+ * Configuration values by dotted key (e.g. {@code server.port}); missing keys yield the default.
+ */
+public interface ConfigSource {
+
+    String getString(String key, String defaultValue);
+
+    int getInt(String key, int defaultValue);
+
+    long getLong(String key, long defaultValue);
+
+    double getDouble(String key, double defaultValue);
+
+    boolean getBoolean(String key, boolean defaultValue);
+}
@@ -0,0 +1,77 @@
+package dev.arubik.blobcraft.host;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Configuration from a .properties file using the same keys as config.yml
+ * ({@code server.port=9090}). A {@code -Dblobcraft.<key>} system property overrides
+ * the file, so a single setting can be changed from the command line.
+ */
+public class PropertiesConfigSource implements ConfigSource {
+    private static final String SYSTEM_PREFIX = "blobcraft.";
+
+    private final Properties properties = new Properties();
+
+    public PropertiesConfigSource(Path file) throws IOException {
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+        }
+    }
+
+    private String get(String key) {
+        String value = System.getProperty(SYSTEM_PREFIX + key);
+        if (value == null) {
+            value = properties.getProperty(key);
+        }
+        return value != null ? value.trim() : null;
+    }
+
+    @Override
+    public String getString(String key, String defaultValue) {
+        String value = get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public int getInt(String key, int defaultValue) {
+        String value = get(key);
+        try {
+            return value != null ? Integer.parseInt(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    @Override
+    public long getLong(String key, long defaultValue) {
+        String value = get(key);
+        try {
+            return value != null ? Long.parseLong(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    @Override
+    public double getDouble(String key, double defaultValue) {
+        String value = get(key);
+        try {
+            return value != null ? Double.parseDouble(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    @Override
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key);
+        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    }
+}
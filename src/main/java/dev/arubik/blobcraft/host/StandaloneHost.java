@@ -0,0 +1,85 @@
+package dev.arubik.blobcraft.host;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import dev.arubik.blobcraft.BlobCraftServer;
+import dev.arubik.blobcraft.server.HttpServerWrapper;
+
+/**
+ * Runs BlobCraft as a dedicated blob node in its own JVM:
+ * {@code java -jar BlobCraft.jar [data-folder]}. Settings are read from
+ * {@code blobcraft.properties} in the data folder.
+ */
+public class StandaloneHost implements BlobHost {
+    private final Path dataFolder;
+    private final Logger logger = Logger.getLogger("BlobCraft");
+    private final ExecutorService scheduler = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "BlobCraft-host");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public StandaloneHost(Path dataFolder) {
+        this.dataFolder = dataFolder;
+    }
+
+    @Override
+    public Path getDataFolder() {
+        return dataFolder;
+    }
+
+    @Override
+    public Logger getLogger() {
+        return logger;
+    }
+
+    @Override
+    public Executor getScheduler() {
+        return scheduler;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path dataFolder = Paths.get(args.length > 0 ? args[0] : "blobcraft-data").toAbsolutePath();
+        Files.createDirectories(dataFolder);
+
+        StandaloneHost host = new StandaloneHost(dataFolder);
+        Path configFile = dataFolder.resolve("blobcraft.properties");
+        if (!Files.exists(configFile)) {
+            host.getLogger().warning("No " + configFile + " found, using defaults");
+        }
+
+        PropertiesConfigSource config = new PropertiesConfigSource(configFile);
+        // The keep-alive idle limit is JVM-wide in the JDK server, so only a JVM of our own sets it
+        int idleTimeout = config.getInt("server.idle-timeout", 60000);
+        if (idleTimeout > 0 && System.getProperty(HttpServerWrapper.IDLE_INTERVAL_PROPERTY) == null) {
+            System.setProperty(HttpServerWrapper.IDLE_INTERVAL_PROPERTY, String.valueOf(Math.max(1, idleTimeout / 1000)));
+        }
+
+        BlobCraftServer server = new BlobCraftServer(host, config);
+        try {
+            server.start();
+        } catch (RuntimeException e) {
+            // e.g. the port is taken; release whatever did start so the exit is clean
+            host.getLogger().log(Level.SEVERE, "Failed to start BlobCraft", e);
+            server.stop();
+            System.exit(1);
+        }
+
+        // The HTTP server runs on daemon threads; keep the JVM up until it is asked to stop
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            host.scheduler.shutdown();
+            stopped.countDown();
+        }, "BlobCraft-shutdown"));
+        stopped.await();
+    }
+}
@@ -0,0 +1,161 @@
+package dev.arubik.blobcraft.io;
+
+import java.lang.ref.Cleaner;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import dev.arubik.blobcraft.metrics.BlobMetrics;
+
+/**
+ * Transfer buffers of {@code server.buffer-size} bytes, reused across requests so
+ * steady-state uploads allocate nothing per read. Buffers are handed out as
+ * {@link Lease}s and must be closed, normally with try-with-resources.
+ *
+ * <p>At most {@code maxPooled} idle buffers are kept; under a burst the pool allocates
+ * more and lets the extras be collected when they come back. With leak detection on,
+ * every lease records where it was taken and a lease collected without being closed
+ * is reported with that stack trace. That costs a stack walk per lease, so it is a
+ * debugging aid rather than a production setting.
+ */
+public class BufferPool {
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final boolean detectLeaks;
+    private final Logger logger;
+    private final ConcurrentLinkedQueue<byte[]> free = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+    private final AtomicInteger leased = new AtomicInteger();
+    private final LongAdder allocated = new LongAdder();
+    private final LongAdder leaked = new LongAdder();
+
+    public BufferPool(int bufferSize, int maxPooled, boolean detectLeaks, Logger logger) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        this.bufferSize = bufferSize;
+        this.maxPooled = Math.max(0, maxPooled);
+        this.detectLeaks = detectLeaks;
+        this.logger = logger;
+
+        BlobMetrics.BUFFER_POOL.register(pooled::get, "idle");
+        BlobMetrics.BUFFER_POOL.register(leased::get, "leased");
+        BlobMetrics.BUFFER_POOL_ALLOCATED.register(allocated::sum);
+        BlobMetrics.BUFFER_POOL_LEAKED.register(leaked::sum);
+    }
+
+    public Lease acquire() {
+        byte[] buffer = free.poll();
+        if (buffer != null) {
+            pooled.decrementAndGet();
+        } else {
+            buffer = new byte[bufferSize];
+            allocated.increment();
+        }
+        leased.incrementAndGet();
+        return new Lease(buffer);
+    }
+
+    private void release(byte[] buffer) {
+        leased.decrementAndGet();
+        if (pooled.incrementAndGet() <= maxPooled) {
+            free.offer(buffer);
+        } else {
+            pooled.decrementAndGet(); // Pool is full, let this one go
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public int getIdle() {
+        return pooled.get();
+    }
+
+    public int getLeased() {
+        return leased.get();
+    }
+
+    public long getLeaked() {
+        return leaked.sum();
+    }
+
+    /**
+     * A borrowed buffer. {@link #buffer()} must not be used after {@link #close()}.
+     */
+    public final class Lease implements AutoCloseable {
+        private byte[] buffer;
+        private final LeakTracker tracker;
+        private final Cleaner.Cleanable cleanable;
+
+        private Lease(byte[] buffer) {
+            this.buffer = buffer;
+            if (detectLeaks) {
+                this.tracker = new LeakTracker(leased, leaked, logger, new Throwable("Buffer acquired here"));
+                this.cleanable = CLEANER.register(this, tracker);
+            } else {
+                this.tracker = null;
+                this.cleanable = null;
+            }
+        }
+
+        public byte[] buffer() {
+            byte[] current = buffer;
+            if (current == null) {
+                throw new IllegalStateException("Buffer used after it was returned to the pool");
+            }
+            return current;
+        }
+
+        @Override
+        public void close() {
+            byte[] current = buffer;
+            if (current == null) {
+                return;
+            }
+            buffer = null;
+            if (tracker != null) {
+                tracker.closed = true;
+                cleanable.clean();
+            }
+            release(current);
+        }
+    }
+
+    /**
+     * Cleaner action for a lease. Holds no reference to the lease itself, or the
+     * lease would never become unreachable.
+     */
+    private static final class LeakTracker implements Runnable {
+        private final AtomicInteger leased;
+        private final LongAdder leaked;
+        private final Logger logger;
+        private final Throwable origin;
+        private volatile boolean closed;
+
+        LeakTracker(AtomicInteger leased, LongAdder leaked, Logger logger, Throwable origin) {
+            this.leased = leased;
+            this.leaked = leaked;
+            this.logger = logger;
+            this.origin = origin;
+        }
+
+        @Override
+        public void run() {
+            if (closed) {
+                return;
+            }
+            leased.decrementAndGet();
+            leaked.increment();
+            StringBuilder trace = new StringBuilder("Buffer was garbage collected without being returned to the pool");
+            for (StackTraceElement element : origin.getStackTrace()) {
+                trace.append("\n\tat ").append(element);
+            }
+            logger.warning(trace.toString());
+        }
+    }
+}
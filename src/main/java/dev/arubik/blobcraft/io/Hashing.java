@@ -0,0 +1,33 @@
+package dev.arubik.blobcraft.io;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 helpers for content hashes, chunk checksums and ETags. Hashes are lowercase hex.
+ */
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    /**
+     * A fresh SHA-256 digest, for hashing data as it streams past.
+     */
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e); // Required of every JRE
+        }
+    }
+
+    public static String sha256Hex(byte[] data) {
+        return hex(sha256().digest(data));
+    }
+
+    public static String hex(byte[] digest) {
+        return HexFormat.of().formatHex(digest);
+    }
+}
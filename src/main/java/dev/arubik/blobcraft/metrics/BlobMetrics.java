@@ -0,0 +1,108 @@
+package dev.arubik.blobcraft.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Process-wide metrics, exported by the HTTP server at {@code /metrics}.
+ * Hot paths hold on to a series (see the unlabelled fields below) so recording
+ * never touches a map; labelled series are looked up once per request.
+ */
+public final class BlobMetrics {
+    private static final List<MetricFamily<?>> FAMILIES = new ArrayList<>();
+
+    private static final double NANOS = 1e-9;
+    private static final double[] REQUEST_SECONDS = {
+        0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 300};
+    private static final double[] OPERATION_SECONDS = {
+        0.0001, 0.0005, 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5, 10, 30, 120};
+
+    // HTTP
+    public static final MetricFamily.Counters HTTP_REQUESTS = register(new MetricFamily.Counters(
+        "blobcraft_http_requests", "HTTP requests by route and status code.", "route", "code"));
+    public static final MetricFamily.Histograms HTTP_DURATION = register(new MetricFamily.Histograms(
+        "blobcraft_http_request_duration_seconds", "Time from accepting a request until its handler returned.",
+        NANOS, REQUEST_SECONDS, "route"));
+    public static final MetricFamily.Counters HTTP_RECEIVED = register(new MetricFamily.Counters(
+        "blobcraft_http_received_bytes", "Request body bytes read.", "route"));
+    public static final MetricFamily.Counters HTTP_SENT = register(new MetricFamily.Counters(
+        "blobcraft_http_sent_bytes", "Response body bytes written.", "route"));
+    public static final MetricFamily.Callbacks POOL_ACTIVE = register(new MetricFamily.Callbacks(
+        "blobcraft_pool_active_threads", "Requests currently running on a route pool.", "gauge", "pool"));
+    public static final MetricFamily.Callbacks POOL_QUEUED = register(new MetricFamily.Callbacks(
+        "blobcraft_pool_queued_requests", "Requests waiting for a route pool thread.", "gauge", "pool"));
+    public static final MetricFamily.Callbacks POOL_CAPACITY = register(new MetricFamily.Callbacks(
+        "blobcraft_pool_threads", "Threads of a route pool (-1 for virtual threads).", "gauge", "pool"));
+    public static final MetricFamily.Callbacks POOL_REJECTED = register(new MetricFamily.Callbacks(
+        "blobcraft_pool_rejected_requests", "Requests answered 503 because a route pool was saturated.",
+        "counter", "pool"));
+    public static final MetricFamily.Callbacks ACCESS_LOG_DROPPED = register(new MetricFamily.Callbacks(
+        "blobcraft_access_log_dropped_entries", "Access log entries dropped because the writer fell behind.",
+        "counter"));
+    public static final MetricFamily.Callbacks BUFFER_POOL = register(new MetricFamily.Callbacks(
+        "blobcraft_buffer_pool_buffers", "Transfer buffers idle in the pool or lent to a request.", "gauge", "state"));
+    public static final MetricFamily.Callbacks BUFFER_POOL_ALLOCATED = register(new MetricFamily.Callbacks(
+        "blobcraft_buffer_pool_allocated_buffers", "Transfer buffers allocated because the pool was empty.",
+        "counter"));
+    public static final MetricFamily.Callbacks BUFFER_POOL_LEAKED = register(new MetricFamily.Callbacks(
+        "blobcraft_buffer_pool_leaked_buffers", "Transfer buffers never returned to the pool (leak detection only).",
+        "counter"));
+
+    // Storage
+    private static final MetricFamily.Counters CACHE = register(new MetricFamily.Counters(
+        "blobcraft_cache_lookups", "Blob reads served from the heap cache (hit) or from disk (miss).", "result"));
+    public static final Counter CACHE_HITS = CACHE.labels("hit");
+    public static final Counter CACHE_MISSES = CACHE.labels("miss");
+
+    private static final MetricFamily.Histograms CODEC_DURATION = register(new MetricFamily.Histograms(
+        "blobcraft_compression_duration_seconds", "Time spent compressing or decompressing blobs.",
+        NANOS, OPERATION_SECONDS, "operation"));
+    public static final Histogram COMPRESS_DURATION = CODEC_DURATION.labels("compress");
+    public static final Histogram DECOMPRESS_DURATION = CODEC_DURATION.labels("decompress");
+
+    private static final MetricFamily.Counters CODEC_BYTES = register(new MetricFamily.Counters(
+        "blobcraft_compression_bytes", "Bytes into and out of compression; out/in is the ratio.", "direction"));
+    public static final Counter COMPRESS_IN = CODEC_BYTES.labels("in");
+    public static final Counter COMPRESS_OUT = CODEC_BYTES.labels("out");
+
+    public static final Histogram INDEX_SAVE_DURATION = register(new MetricFamily.Histograms(
+        "blobcraft_index_save_duration_seconds", "Time to write the whole file index to disk.",
+        NANOS, OPERATION_SECONDS)).labels();
+    public static final MetricFamily.Callbacks STORAGE = register(new MetricFamily.Callbacks(
+        "blobcraft_storage", "Stored files and bytes on disk and in the heap cache.", "gauge", "kind"));
+
+    // Chunked uploads
+    public static final Histogram CHUNK_WRITE_DURATION = register(new MetricFamily.Histograms(
+        "blobcraft_upload_chunk_write_duration_seconds", "Time to write and checksum one received chunk.",
+        NANOS, OPERATION_SECONDS)).labels();
+    public static final Histogram FINALIZE_DURATION = register(new MetricFamily.Histograms(
+        "blobcraft_upload_finalize_duration_seconds", "Time to assemble and store a completed chunked upload.",
+        NANOS, OPERATION_SECONDS)).labels();
+    public static final MetricFamily.Counters CHUNKED_UPLOADS = register(new MetricFamily.Counters(
+        "blobcraft_chunked_uploads", "Chunked uploads by how they ended.", "outcome"));
+    public static final MetricFamily.Callbacks UPLOADS = register(new MetricFamily.Callbacks(
+        "blobcraft_chunked_uploads_active", "Chunked uploads in progress and their total bytes.", "gauge", "kind"));
+
+    private BlobMetrics() {
+    }
+
+    private static <T extends MetricFamily<?>> T register(T family) {
+        FAMILIES.add(family);
+        return family;
+    }
+
+    /**
+     * All metrics in OpenMetrics text format, or in the Prometheus 0.0.4 text
+     * format for scrapers that do not ask for OpenMetrics.
+     */
+    public static String scrape(boolean openMetrics) {
+        StringBuilder out = new StringBuilder(8192);
+        for (MetricFamily<?> family : FAMILIES) {
+            family.write(out, openMetrics);
+        }
+        if (openMetrics) {
+            out.append("# EOF\n");
+        }
+        return out.toString();
+    }
+}
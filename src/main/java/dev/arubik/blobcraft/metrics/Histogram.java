@@ -0,0 +1,66 @@
+package dev.arubik.blobcraft.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution over fixed bucket bounds. Values are recorded in a base unit
+ * (nanoseconds, bytes) and scaled when exported, so observing is a bucket search
+ * and two {@link LongAdder} additions.
+ */
+public final class Histogram {
+    private final long[] bounds;
+    private final LongAdder[] buckets;
+    private final LongAdder sum = new LongAdder();
+
+    Histogram(long[] bounds) {
+        this.bounds = bounds;
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void observe(long value) {
+        int low = 0;
+        int high = bounds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (value <= bounds[mid]) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        buckets[low].increment();
+        sum.add(value);
+    }
+
+    /**
+     * Records the time since {@code startNanos}, a {@link System#nanoTime()} reading.
+     */
+    public void observeSince(long startNanos) {
+        observe(System.nanoTime() - startNanos);
+    }
+
+    long[] getBounds() {
+        return bounds;
+    }
+
+    /**
+     * Cumulative counts per bound, the last entry being the total (+Inf) which is
+     * also exported as the count, so the two always agree.
+     */
+    long[] cumulativeCounts() {
+        long[] cumulative = new long[buckets.length];
+        long running = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            running += buckets[i].sum();
+            cumulative[i] = running;
+        }
+        return cumulative;
+    }
+
+    long getSum() {
+        return sum.sum();
+    }
+}
@@ -0,0 +1,204 @@
+package dev.arubik.blobcraft.metrics;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A named metric and its labelled series. Series are created on first use,
+ * so label values must come from a small fixed set (route, pool, outcome).
+ */
+public abstract class MetricFamily<T> {
+    private final String name;
+    private final String help;
+    private final String[] labelNames;
+    protected final Map<List<String>, T> series = new ConcurrentHashMap<>();
+
+    MetricFamily(String name, String help, String... labelNames) {
+        this.name = name;
+        this.help = help;
+        this.labelNames = labelNames;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    abstract String getType();
+
+    abstract void writeSeries(StringBuilder out, List<String> labelValues, T value);
+
+    protected List<String> key(String[] labelValues) {
+        if (labelValues.length != labelNames.length) {
+            throw new IllegalArgumentException(name + " takes labels " + Arrays.toString(labelNames));
+        }
+        return List.of(labelValues);
+    }
+
+    protected T get(String[] labelValues, Supplier<T> factory) {
+        return series.computeIfAbsent(key(labelValues), k -> factory.get());
+    }
+
+    /**
+     * Appends this family in OpenMetrics text, or in the older Prometheus 0.0.4
+     * text format which names counters with their {@code _total} suffix.
+     */
+    void write(StringBuilder out, boolean openMetrics) {
+        if (series.isEmpty()) {
+            return;
+        }
+        String family = !openMetrics && "counter".equals(getType()) ? name + "_total" : name;
+        out.append("# TYPE ").append(family).append(' ').append(getType()).append('\n');
+        out.append("# HELP ").append(family).append(' ').append(help).append('\n');
+        series.forEach((labelValues, value) -> writeSeries(out, labelValues, value));
+    }
+
+    protected void sample(StringBuilder out, String suffix, List<String> labelValues,
+                          String extraLabel, String extraValue, String value) {
+        out.append(name).append(suffix);
+        if (!labelValues.isEmpty() || extraLabel != null) {
+            out.append('{');
+            for (int i = 0; i < labelValues.size(); i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                label(out, labelNames[i], labelValues.get(i));
+            }
+            if (extraLabel != null) {
+                if (!labelValues.isEmpty()) {
+                    out.append(',');
+                }
+                label(out, extraLabel, extraValue);
+            }
+            out.append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static void label(StringBuilder out, String name, String value) {
+        out.append(name).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '"' -> out.append("\\\"");
+                case '\n' -> out.append("\\n");
+                default -> out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+
+    /** Counters incremented on the hot path. */
+    public static final class Counters extends MetricFamily<Counter> {
+        Counters(String name, String help, String... labelNames) {
+            super(name, help, labelNames);
+        }
+
+        public Counter labels(String... labelValues) {
+            return get(labelValues, Counter::new);
+        }
+
+        @Override
+        String getType() {
+            return "counter";
+        }
+
+        @Override
+        void writeSeries(StringBuilder out, List<String> labelValues, Counter counter) {
+            sample(out, "_total", labelValues, null, null, Long.toString(counter.get()));
+        }
+    }
+
+    /** Histograms sharing one set of bucket bounds. */
+    public static final class Histograms extends MetricFamily<Histogram> {
+        private final long[] bounds;
+        private final double scale;
+        private final String[] boundLabels;
+
+        /**
+         * @param scale  multiplier from the recorded unit to the exported one,
+         *               1e-9 for nanoseconds exported as seconds
+         * @param bounds bucket upper bounds in the exported unit
+         */
+        Histograms(String name, String help, double scale, double[] bounds, String... labelNames) {
+            super(name, help, labelNames);
+            this.scale = scale;
+            this.bounds = new long[bounds.length];
+            this.boundLabels = new String[bounds.length];
+            for (int i = 0; i < bounds.length; i++) {
+                this.bounds[i] = Math.round(bounds[i] / scale);
+                String label = format(bounds[i]);
+                this.boundLabels[i] = label.contains(".") ? label : label + ".0";
+            }
+        }
+
+        public Histogram labels(String... labelValues) {
+            return get(labelValues, () -> new Histogram(bounds));
+        }
+
+        @Override
+        String getType() {
+            return "histogram";
+        }
+
+        @Override
+        void writeSeries(StringBuilder out, List<String> labelValues, Histogram histogram) {
+            long[] cumulative = histogram.cumulativeCounts();
+            for (int i = 0; i < boundLabels.length; i++) {
+                sample(out, "_bucket", labelValues, "le", boundLabels[i], Long.toString(cumulative[i]));
+            }
+            long count = cumulative[cumulative.length - 1];
+            sample(out, "_bucket", labelValues, "le", "+Inf", Long.toString(count));
+            sample(out, "_count", labelValues, null, null, Long.toString(count));
+            // Exact decimal, so nanosecond sums do not print as 0.09510359600000001
+            BigDecimal sum = BigDecimal.valueOf(histogram.getSum()).multiply(BigDecimal.valueOf(scale));
+            sample(out, "_sum", labelValues, null, null, sum.stripTrailingZeros().toPlainString());
+        }
+    }
+
+    /**
+     * Values read when scraped, for state that is already tracked elsewhere
+     * (pool depth, stored bytes). Registering a series again replaces it.
+     */
+    public static final class Callbacks extends MetricFamily<DoubleSupplier> {
+        private final String type;
+
+        Callbacks(String name, String help, String type, String... labelNames) {
+            super(name, help, labelNames);
+            this.type = type;
+        }
+
+        public void register(DoubleSupplier value, String... labelValues) {
+            series.put(key(labelValues), value);
+        }
+
+        @Override
+        String getType() {
+            return type;
+        }
+
+        @Override
+        void writeSeries(StringBuilder out, List<String> labelValues, DoubleSupplier value) {
+            sample(out, "counter".equals(type) ? "_total" : "", labelValues, null, null,
+                format(value.getAsDouble()));
+        }
+    }
+}
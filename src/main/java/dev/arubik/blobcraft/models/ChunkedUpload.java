@@ -1,10 +1,14 @@
 package dev.arubik.blobcraft.models;
 
+import java.security.MessageDigest;
 import java.time.Instant;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
+import dev.arubik.blobcraft.io.Hashing;
+
 public class ChunkedUpload {
     private final String uploadId;
     private final String filename;
@@ -18,17 +22,35 @@ public class ChunkedUpload {
     private final String uploaderAgent;
     private final Instant createdAt;
     private final Instant expiresAt;
+    private final String expectedSha256; // Client-declared content hash, null if not sent
     
     // Progress tracking
     private final Map<Integer, ChunkInfo> chunks;
     private final AtomicLong uploadedBytes;
     private volatile boolean completed;
     private volatile String finalFileId;
+    private final AtomicBoolean finalizing = new AtomicBoolean(false);
+    
+    // Whole-file SHA-256 over the chunks received in order so far; guarded by this
+    private MessageDigest contentDigest;
+    private int digestedChunks;
+    
+    public ChunkedUpload(String uploadId, String filename, long totalSize, 
+                        int chunkSize, boolean isPublic, Long ttlSeconds,
+                        Map<String, String> metadata, String uploaderIp, 
+                        String uploaderAgent, String expectedSha256) {
+        this(uploadId, filename, totalSize, chunkSize, isPublic, ttlSeconds, metadata, uploaderIp,
+            uploaderAgent, expectedSha256, Instant.now(), Instant.now().plusSeconds(3600)); // 1 hour to complete upload
+    }
     
+    /**
+     * Restores a session from its journal after a restart, keeping its original expiry.
+     */
     public ChunkedUpload(String uploadId, String filename, long totalSize, 
                         int chunkSize, boolean isPublic, Long ttlSeconds,
                         Map<String, String> metadata, String uploaderIp, 
-                        String uploaderAgent) {
+                        String uploaderAgent, String expectedSha256,
+                        Instant createdAt, Instant expiresAt) {
         this.uploadId = uploadId;
         this.filename = filename;
         this.totalSize = totalSize;
@@ -39,8 +61,10 @@ public class ChunkedUpload {
         this.metadata = metadata != null ? new ConcurrentHashMap<>(metadata) : new ConcurrentHashMap<>();
         this.uploaderIp = uploaderIp;
         this.uploaderAgent = uploaderAgent;
-        this.createdAt = Instant.now();
-        this.expiresAt = Instant.now().plusSeconds(3600); // 1 hour to complete upload
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+        this.expectedSha256 = expectedSha256;
+        this.contentDigest = Hashing.sha256();
         
         this.chunks = new ConcurrentHashMap<>();
         this.uploadedBytes = new AtomicLong(0);
@@ -78,6 +102,17 @@ public class ChunkedUpload {
         return chunks.size() == totalChunks && !completed;
     }
     
+    /**
+     * Claim the right to finalize; only the first caller gets true.
+     */
+    public boolean tryBeginFinalize() {
+        return finalizing.compareAndSet(false, true);
+    }
+    
+    public void abortFinalize() {
+        finalizing.set(false);
+    }
+    
     public void markCompleted(String finalFileId) {
         this.completed = true;
         this.finalFileId = finalFileId;
@@ -95,10 +130,54 @@ public class ChunkedUpload {
         return chunks.containsKey(chunkNumber);
     }
     
+    /**
+     * A copy of the whole-file digest to continue with this chunk's bytes, or null
+     * if earlier chunks are still missing (the chunk is then hashed at finalization).
+     */
+    public synchronized MessageDigest forkContentDigest(int chunkNumber) {
+        if (chunkNumber != digestedChunks) {
+            return null;
+        }
+        try {
+            return (MessageDigest) contentDigest.clone();
+        } catch (CloneNotSupportedException e) {
+            return null; // Every JDK SHA-256 can be cloned; hash at finalization otherwise
+        }
+    }
+    
+    /**
+     * Adopts a forked digest once its chunk has been stored. Ignored if another
+     * request for the same chunk got there first.
+     */
+    public synchronized void advanceContentDigest(int chunkNumber, MessageDigest digest) {
+        if (digest != null && chunkNumber == digestedChunks) {
+            contentDigest = digest;
+            digestedChunks++;
+        }
+    }
+    
+    /**
+     * Chunks already covered by {@link #getContentDigest()}, always a prefix 0..n-1.
+     */
+    public synchronized int getDigestedChunks() {
+        return digestedChunks;
+    }
+    
+    public synchronized MessageDigest getContentDigest() {
+        return contentDigest;
+    }
+    
     public int getMissingChunksCount() {
         return totalChunks - chunks.size();
     }
     
+    /**
+     * Exact byte length of a chunk; only the last one may be shorter than the chunk size.
+     */
+    public long getChunkLength(int chunkNumber) {
+        return Math.min(chunkSize, totalSize - (long) chunkNumber * chunkSize);
+    }
+    
     // Getters
     public String getUploadId() { return uploadId; }
     public String getFilename() { return filename; }
@@ -116,4 +195,5 @@ public class ChunkedUpload {
     public long getUploadedBytes() { return uploadedBytes.get(); }
     public boolean isCompleted() { return completed; }
     public String getFinalFileId() { return finalFileId; }
+    public String getExpectedSha256() { return expectedSha256; }
 }
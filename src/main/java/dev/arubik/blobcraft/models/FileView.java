@@ -0,0 +1,75 @@
+package dev.arubik.blobcraft.models;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Read-only metadata of a stored file, without its bytes.
+ * Implemented directly by the storage index, so listing and metadata requests
+ * neither copy entries nor load blobs.
+ */
+public interface FileView {
+
+    String getId();
+    String getFilename();
+    long getSize();
+    long getOriginalSize();
+    boolean isPublic();
+    boolean isCompressed();
+    String getMimeType();
+    Instant getUploadedAt();
+    Instant getExpiresAt();
+    String getUploaderIp();
+    String getUploaderAgent();
+
+    /**
+     * Custom metadata; unmodifiable and shared, never copied.
+     */
+    Map<String, String> getMetadata();
+
+    /**
+     * Strong validator for the file's content. Blobs are immutable per ID,
+     * so files stored before content hashing use the ID itself.
+     */
+    String getEtag();
+
+    /**
+     * Hex SHA-256 of the original content, computed while it was received.
+     * Null for files stored before content hashing.
+     */
+    String getSha256();
+
+    default String getExtension() {
+        String filename = getFilename();
+        if (filename == null || filename.isEmpty()) {
+            return "";
+        }
+        int dotIndex = filename.lastIndexOf('.');
+        if (dotIndex > 0 && dotIndex < filename.length() - 1) {
+            return filename.substring(dotIndex + 1).toLowerCase();
+        }
+        return "";
+    }
+
+    default boolean isExpired() {
+        Instant expiresAt = getExpiresAt();
+        return expiresAt != null && Instant.now().isAfter(expiresAt);
+    }
+
+    // Common metadata getters
+    default String getTags() {
+        return getMetadata().getOrDefault("tags", "");
+    }
+
+    default String getDescription() {
+        return getMetadata().getOrDefault("description", "");
+    }
+
+    default String getCategory() {
+        return getMetadata().getOrDefault("category", "general");
+    }
+
+    default String getUploader() {
+        return getMetadata().getOrDefault("uploader", "anonymous");
+    }
+}
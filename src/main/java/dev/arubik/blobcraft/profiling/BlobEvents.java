@@ -0,0 +1,145 @@
+package dev.arubik.blobcraft.profiling;
+
+import java.util.List;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder events for the upload and download paths. They cost next to
+ * nothing unless a recording is running ({@code /blobcraft profile start}, or
+ * {@code -XX:StartFlightRecording} with these events enabled), so they stay on in production.
+ *
+ * <p>Usage follows the JFR idiom: {@code begin()} before the work, {@code end()} after,
+ * and fill in the fields only when {@code shouldCommit()} says the event will be kept.
+ */
+public final class BlobEvents {
+
+    private BlobEvents() {
+    }
+
+    @Name("blobcraft.UploadReceive")
+    @Label("Upload Receive")
+    @Category({"BlobCraft", "HTTP"})
+    @Description("Reading an upload or chunk request body from the client")
+    public static final class UploadReceive extends Event {
+        @Label("Upload ID")
+        @Description("Chunked upload the body belongs to, empty for single-request uploads")
+        public String uploadId;
+
+        @Label("Chunk Number")
+        public int chunkNumber;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+    }
+
+    @Name("blobcraft.Compression")
+    @Label("Compression")
+    @Category({"BlobCraft", "Storage"})
+    public static final class Compression extends Event {
+        @Label("Operation")
+        @Description("compress or decompress")
+        public String operation;
+
+        @Label("Input Bytes")
+        @DataAmount
+        public long inputBytes;
+
+        @Label("Output Bytes")
+        @DataAmount
+        public long outputBytes;
+    }
+
+    @Name("blobcraft.DiskWrite")
+    @Label("Disk Write")
+    @Category({"BlobCraft", "Storage"})
+    @Description("Writing a blob, a segment append or an upload chunk to disk")
+    public static final class DiskWrite extends Event {
+        @Label("Target")
+        @Description("file, segment or chunk")
+        public String target;
+
+        @Label("ID")
+        @Description("File ID, or upload ID for chunks")
+        public String id;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+    }
+
+    @Name("blobcraft.IndexCommit")
+    @Label("Index Commit")
+    @Category({"BlobCraft", "Storage"})
+    @Description("Syncing segments and rewriting the file index")
+    public static final class IndexCommit extends Event {
+        @Label("Files")
+        public int files;
+    }
+
+    @Name("blobcraft.CacheLookup")
+    @Label("Cache Lookup")
+    @Category({"BlobCraft", "Storage"})
+    @Description("Reading blob data, from the heap cache on a hit and from disk on a miss")
+    @StackTrace(false)
+    public static final class CacheLookup extends Event {
+        @Label("File ID")
+        public String fileId;
+
+        @Label("Hit")
+        public boolean hit;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+    }
+
+    @Name("blobcraft.DownloadSend")
+    @Label("Download Send")
+    @Category({"BlobCraft", "HTTP"})
+    @Description("Writing a blob to the client")
+    public static final class DownloadSend extends Event {
+        @Label("File ID")
+        public String fileId;
+
+        @Label("Public")
+        public boolean publicLink;
+
+        @Label("Memory Mapped")
+        public boolean mapped;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+    }
+
+    @Name("blobcraft.ChunkFinalize")
+    @Label("Chunk Finalize")
+    @Category({"BlobCraft", "Uploads"})
+    @Description("Combining the chunks of a completed upload and storing the result")
+    public static final class ChunkFinalize extends Event {
+        @Label("Upload ID")
+        public String uploadId;
+
+        @Label("Chunks")
+        public int chunks;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+
+        @Label("Success")
+        public boolean success;
+    }
+
+    static final List<Class<? extends Event>> ALL = List.of(
+        UploadReceive.class, Compression.class, DiskWrite.class, IndexCommit.class,
+        CacheLookup.class, DownloadSend.class, ChunkFinalize.class);
+}
@@ -0,0 +1,123 @@
+package dev.arubik.blobcraft.profiling;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+
+/**
+ * On-demand flight recordings of the running server, driven by
+ * {@code /blobcraft profile start|stop}. A recording uses one of the JDK's
+ * settings (CPU samples, allocations, locks, I/O) plus all {@link BlobEvents},
+ * and is dumped to a {@code .jfr} file for JDK Mission Control or {@code jfr print}.
+ */
+public class Profiler {
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path directory;
+    private final String settings;
+    private final Duration maxAge;
+    private final long maxSize;
+    private final Logger logger;
+
+    private Recording recording;
+
+    /**
+     * @param settings JDK settings name ({@code default} or {@code profile}) or path to a .jfc file
+     * @param maxAge   oldest data kept while recording, so a forgotten recording stays bounded
+     * @param maxSize  bytes of data kept while recording
+     */
+    public Profiler(Path directory, String settings, Duration maxAge, long maxSize, Logger logger) {
+        this.directory = directory;
+        this.settings = settings;
+        this.maxAge = maxAge;
+        this.maxSize = maxSize;
+        this.logger = logger;
+    }
+
+    public synchronized boolean isRecording() {
+        return recording != null;
+    }
+
+    /**
+     * @throws IllegalStateException if a recording is already running
+     */
+    public synchronized void start() throws IOException, ParseException {
+        if (recording != null) {
+            throw new IllegalStateException("A recording is already running");
+        }
+        Configuration configuration = settings.endsWith(".jfc")
+            ? Configuration.create(Path.of(settings))
+            : Configuration.getConfiguration(settings);
+
+        Recording newRecording = new Recording(configuration);
+        newRecording.setName("BlobCraft");
+        newRecording.setToDisk(true);
+        newRecording.setMaxAge(maxAge);
+        newRecording.setMaxSize(maxSize);
+        for (Class<? extends Event> event : BlobEvents.ALL) {
+            newRecording.enable(event);
+        }
+        newRecording.start();
+        recording = newRecording;
+        logger.info("Flight recording started (settings: " + settings + ")");
+    }
+
+    /**
+     * Stops the recording and writes it to a new file in the recordings directory.
+     * Dumping can take a while for long recordings, so it happens on its own thread.
+     *
+     * @return future with the written file
+     * @throws IllegalStateException if no recording is running
+     */
+    public synchronized CompletableFuture<Path> stop() {
+        if (recording == null) {
+            throw new IllegalStateException("No recording is running");
+        }
+        Recording stopped = recording;
+        recording = null;
+        stopped.stop();
+
+        Path file = directory.resolve("blobcraft-" + LocalDateTime.now().format(FILE_TIME) + ".jfr");
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Files.createDirectories(directory);
+                stopped.dump(file);
+                logger.info("Flight recording written to " + file);
+                return file;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                stopped.close();
+            }
+        }, runnable -> {
+            Thread thread = new Thread(runnable, "BlobCraft-ProfileDump");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    /**
+     * Writes out a recording still running at shutdown rather than losing it.
+     */
+    public void shutdown() {
+        if (!isRecording()) {
+            return;
+        }
+        try {
+            stop().join();
+        } catch (Exception e) {
+            logger.warning("Failed to write flight recording: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package dev.arubik.blobcraft.server;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import com.google.gson.stream.JsonWriter;
+
+import dev.arubik.blobcraft.metrics.BlobMetrics;
+
+/**
+ * HTTP access log written as JSON lines to its own rotating file.
+ * Request threads only filter, sample and enqueue; formatting and disk I/O happen
+ * on one background thread. When the writer falls behind the buffer fills and
+ * further entries are dropped (and counted) rather than slowing requests down.
+ */
+public class AccessLog {
+
+    public enum Level {
+        INFO, WARN, ERROR;
+
+        public static Level parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return INFO;
+            }
+        }
+
+        static Level of(int status) {
+            return status >= 500 || status < 0 ? ERROR : status >= 400 ? WARN : INFO;
+        }
+    }
+
+    /** One request, captured on the request thread. */
+    private static final class Entry {
+        final long timeMillis;
+        final int status;
+        final String method;
+        final String route;
+        final String path;
+        final long durationNanos;
+        final long bytesIn;
+        final long bytesOut;
+        final String clientIp;
+        final String userAgent;
+
+        Entry(long timeMillis, int status, String method, String route, String path, long durationNanos,
+              long bytesIn, long bytesOut, String clientIp, String userAgent) {
+            this.timeMillis = timeMillis;
+            this.status = status;
+            this.method = method;
+            this.route = route;
+            this.path = path;
+            this.durationNanos = durationNanos;
+            this.bytesIn = bytesIn;
+            this.bytesOut = bytesOut;
+            this.clientIp = clientIp;
+            this.userAgent = userAgent;
+        }
+    }
+
+    private static final int BATCH = 256;
+
+    private final Path file;
+    private final Level minLevel;
+    private final double sampleRate;
+    private final long maxSize;
+    private final int maxFiles;
+    private final Logger logger;
+    private final BlockingQueue<Entry> queue;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    private Writer writer;
+    private long size;
+
+    /**
+     * @param sampleRate fraction of INFO (2xx/3xx) requests kept; warnings and errors are never sampled
+     * @param maxSize    rotate when the file reaches this many bytes (0 = never)
+     * @param maxFiles   rotated files kept next to the current one
+     */
+    public AccessLog(Path file, Level minLevel, double sampleRate, int bufferSize, long maxSize,
+                     int maxFiles, Logger logger) throws IOException {
+        this.file = file;
+        this.minLevel = minLevel;
+        this.sampleRate = Math.max(0, Math.min(1, sampleRate));
+        this.maxSize = maxSize;
+        this.maxFiles = Math.max(0, maxFiles);
+        this.logger = logger;
+        this.queue = new ArrayBlockingQueue<>(Math.max(16, bufferSize));
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        open();
+
+        BlobMetrics.ACCESS_LOG_DROPPED.register(dropped::sum);
+        this.writerThread = new Thread(this::drain, "BlobCraft-access-log");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Whether a request with this status would be logged. Checked before
+     * gathering the entry's fields so skipped requests cost nothing more.
+     */
+    public boolean accepts(int status) {
+        Level level = Level.of(status);
+        if (level.compareTo(minLevel) < 0) {
+            return false;
+        }
+        return level != Level.INFO || sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    public void log(String method, String route, String path, int status, long durationNanos,
+                    long bytesIn, long bytesOut, String clientIp, String userAgent) {
+        if (!running) {
+            return;
+        }
+        Entry entry = new Entry(System.currentTimeMillis(), status, method, route, path, durationNanos,
+            bytesIn, bytesOut, clientIp, userAgent);
+        if (!queue.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    private void drain() {
+        List<Entry> batch = new ArrayList<>(BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH - 1);
+                for (Entry entry : batch) {
+                    write(entry);
+                }
+                writer.flush();
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (IOException e) {
+                logger.warning("Failed to write access log: " + e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            logger.warning("Failed to close access log: " + e.getMessage());
+        }
+    }
+
+    private void write(Entry entry) throws IOException {
+        if (maxSize > 0 && size >= maxSize) {
+            rotate();
+        }
+        StringWriter line = new StringWriter(256);
+        JsonWriter json = new JsonWriter(line);
+        json.setSerializeNulls(false);
+        json.beginObject();
+        json.name("time").value(Instant.ofEpochMilli(entry.timeMillis).toString());
+        json.name("level").value(Level.of(entry.status).name());
+        json.name("method").value(entry.method);
+        json.name("route").value(entry.route);
+        json.name("path").value(entry.path);
+        json.name("status").value(entry.status);
+        json.name("durationMs").value(entry.durationNanos / 1_000_000.0);
+        json.name("bytesIn").value(entry.bytesIn);
+        json.name("bytesOut").value(entry.bytesOut);
+        json.name("ip").value(entry.clientIp);
+        json.name("userAgent").value(entry.userAgent);
+        json.endObject();
+        line.write('\n');
+
+        String text = line.toString();
+        writer.write(text);
+        size += text.length(); // Close enough for rotation; paths and agents are nearly always ASCII
+    }
+
+    private void open() throws IOException {
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        size = Files.size(file);
+    }
+
+    /** access.log becomes access.log.1, access.log.1 becomes access.log.2, and so on. */
+    private void rotate() throws IOException {
+        writer.close();
+        try {
+            if (maxFiles == 0) {
+                Files.deleteIfExists(file);
+            } else {
+                Files.deleteIfExists(rotated(maxFiles));
+                for (int i = maxFiles - 1; i >= 1; i--) {
+                    Path from = rotated(i);
+                    if (Files.exists(from)) {
+                        Files.move(from, rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+                Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            open(); // Keep logging to the current file even if a rename failed
+        }
+    }
+
+    private Path rotated(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    /**
+     * Stops accepting entries, writes what is buffered and closes the file.
+     */
+    public void shutdown() {
+        running = false;
+        try {
+            writerThread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
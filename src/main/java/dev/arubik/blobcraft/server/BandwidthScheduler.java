@@ -0,0 +1,191 @@
+package dev.arubik.blobcraft.server;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Egress shaping for downloads.
+ * A global token bucket caps the total rate so transfers leave room for game traffic on
+ * the same uplink; competing downloads share it by weighted fair queueing (each slice is
+ * tagged with a virtual finish time and the smallest tag is served first), so one priority
+ * class or one greedy client cannot take the whole budget. Each download can also be
+ * paced to a per-connection cap.
+ */
+public class BandwidthScheduler {
+
+    private static final int SLICE_SIZE = 16 * 1024;
+
+    private final long globalRate;
+    private final long perConnectionRate;
+    private final int publicWeight;
+    private final int privateWeight;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Slice> waiting = new PriorityQueue<>();
+    private final double capacity;
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+    private double virtualTime;
+    private long sequence;
+
+    private final AtomicInteger activeStreams = new AtomicInteger();
+    private final LongAdder bytesSent = new LongAdder();
+
+    public BandwidthScheduler(long globalRate, long perConnectionRate, int publicWeight, int privateWeight) {
+        this.globalRate = globalRate;
+        this.perConnectionRate = perConnectionRate;
+        this.publicWeight = Math.max(1, publicWeight);
+        this.privateWeight = Math.max(1, privateWeight);
+        // 100ms of burst, but always enough for a whole slice
+        this.capacity = Math.max(SLICE_SIZE, globalRate / 10.0);
+        this.tokens = capacity;
+    }
+
+    /**
+     * Wrap a response body so writes are paced by this scheduler.
+     */
+    public OutputStream wrap(OutputStream out, boolean isPublic) {
+        return new ShapedOutputStream(out, isPublic ? publicWeight : privateWeight);
+    }
+
+    public JsonObject toJson() {
+        JsonObject json = new JsonObject();
+        json.addProperty("globalLimit", globalRate);
+        json.addProperty("perConnectionLimit", perConnectionRate);
+        json.addProperty("activeStreams", activeStreams.get());
+        json.addProperty("bytesSent", bytesSent.sum());
+        lock.lock();
+        try {
+            json.addProperty("waiting", waiting.size());
+        } finally {
+            lock.unlock();
+        }
+        return json;
+    }
+
+    /**
+     * Block until the global budget grants {@code bytes} to this slice's turn.
+     */
+    private void acquireGlobal(ShapedOutputStream stream, int bytes) throws InterruptedException {
+        lock.lock();
+        try {
+            // Finish tag: a stream's slices queue behind its own previous slice, scaled by weight
+            double start = Math.max(virtualTime, stream.lastFinish);
+            Slice slice = new Slice(start + (double) bytes / stream.weight, sequence++);
+            stream.lastFinish = slice.finish;
+            waiting.add(slice);
+            try {
+                while (true) {
+                    refill();
+                    if (waiting.peek() == slice && tokens >= bytes) {
+                        break;
+                    }
+                    if (waiting.peek() == slice) {
+                        long deficitNanos = (long) ((bytes - tokens) * TimeUnit.SECONDS.toNanos(1) / globalRate);
+                        changed.awaitNanos(Math.max(deficitNanos, TimeUnit.MILLISECONDS.toNanos(1)));
+                    } else {
+                        changed.await();
+                    }
+                }
+                tokens -= bytes;
+                virtualTime = slice.finish;
+            } finally {
+                waiting.remove(slice);
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * globalRate / (double) TimeUnit.SECONDS.toNanos(1));
+        lastRefill = now;
+    }
+
+    private static final class Slice implements Comparable<Slice> {
+        final double finish;
+        final long order;
+
+        Slice(double finish, long order) {
+            this.finish = finish;
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(Slice other) {
+            int byFinish = Double.compare(finish, other.finish);
+            return byFinish != 0 ? byFinish : Long.compare(order, other.order);
+        }
+    }
+
+    private class ShapedOutputStream extends FilterOutputStream {
+        private final int weight;
+        private double lastFinish; // Guarded by the scheduler lock
+        private long nextSendNanos = System.nanoTime();
+        private boolean closed;
+
+        ShapedOutputStream(OutputStream out, int weight) {
+            super(out);
+            this.weight = weight;
+            activeStreams.incrementAndGet();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int slice = Math.min(len, SLICE_SIZE);
+                pace(slice);
+                out.write(b, off, slice);
+                bytesSent.add(slice);
+                off += slice;
+                len -= slice;
+            }
+        }
+
+        private void pace(int bytes) throws IOException {
+            try {
+                if (perConnectionRate > 0) {
+                    long waitNanos = nextSendNanos - System.nanoTime();
+                    if (waitNanos > 0) {
+                        TimeUnit.NANOSECONDS.sleep(waitNanos);
+                    }
+                    nextSendNanos = Math.max(nextSendNanos, System.nanoTime())
+                        + bytes * TimeUnit.SECONDS.toNanos(1) / perConnectionRate;
+                }
+                if (globalRate > 0) {
+                    acquireGlobal(this, bytes);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for bandwidth");
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                activeStreams.decrementAndGet();
+            }
+            super.close();
+        }
+    }
+}
@@ -1,33 +1,67 @@
 package dev.arubik.blobcraft.server;
 
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.ArrayList;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-
-import org.bukkit.plugin.java.JavaPlugin;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Logger;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 
-import dev.arubik.blobcraft.DashboardHtml;
+import dev.arubik.blobcraft.DashboardAssets;
+import dev.arubik.blobcraft.io.BufferPool;
+import dev.arubik.blobcraft.io.Hashing;
+import dev.arubik.blobcraft.metrics.BlobMetrics;
+import dev.arubik.blobcraft.metrics.Counter;
+import dev.arubik.blobcraft.metrics.Histogram;
 import dev.arubik.blobcraft.models.ChunkedUpload;
+import dev.arubik.blobcraft.models.FileView;
 import dev.arubik.blobcraft.models.StoredFile;
+import dev.arubik.blobcraft.profiling.BlobEvents;
 import dev.arubik.blobcraft.services.ChunkedUploadService;
+import dev.arubik.blobcraft.services.IntegrityException;
+import dev.arubik.blobcraft.services.UploadLimitException;
+import dev.arubik.blobcraft.storage.BatchDeleteResult;
 import dev.arubik.blobcraft.storage.FileStorage;
+import dev.arubik.blobcraft.storage.QuotaExceededException;
+import dev.arubik.blobcraft.storage.QuotaManager;
 
 public class HttpServerWrapper {
     private HttpServer server;
@@ -36,9 +70,9 @@ public class HttpServerWrapper {
     private final String accessKey;
     private final int maxThreads;
     private final boolean enableCors;
-    private final boolean logRequests;
+    private final AccessLog accessLog; // Null when request logging is off
     private final FileStorage fileStorage;
-    private final JavaPlugin plugin;
+    private final Logger logger;
     private final Gson gson = new Gson();
     private final boolean enableDashboard;
     private final String dashboardPath;
@@ -46,103 +80,437 @@ public class HttpServerWrapper {
     private final ChunkedUploadService chunkedUploadService;
     private final int readTimeout;
     private final int writeTimeout;
-    private final int idleTimeout;
     private final long maxRequestSize;
     private final int bufferSize;
+    private final BufferPool bufferPool;
     private final boolean rateLimitEnabled;
     private final int rateLimitRequests;
     private final int rateLimitWindow;
     private final boolean progressEnabled;
     private final long progressUpdateInterval;
+    private final String engine;
+    private final int transferQueue;
+    private final String transferRejection;
+    private final int metadataThreads;
+    private final int metadataQueue;
+    private final String metadataRejection;
+    private final int adminThreads;
+    private final int adminQueue;
+    private final String adminRejection;
+    private RoutePool transferPool;
+    private RoutePool metadataPool;
+    private RoutePool adminPool;
+    private ExecutorService dispatchExecutor;
+    private String engineDescription;
+    
+    // Null when the corresponding limit is disabled
+    private final RateLimiter ipRequestLimiter;
+    private final RateLimiter uploaderRequestLimiter;
+    private final RateLimiter ipByteLimiter;
+    private final RateLimiter ipUploadLimiter;
+    private final BandwidthScheduler bandwidthScheduler;
+    private final long minTransferRate;
+    private final long publicCacheMaxAge;
+    private final boolean publicCacheImmutable;
+    private final String privateCacheControl;
+    private final boolean enableMetrics;
+    private final String metricsPath;
+    private final boolean metricsAuth;
+    private final TrustedProxies trustedProxies;
+    private TransferWatchdog transferWatchdog;
+    private DashboardAssets dashboardAssets;
+    private volatile boolean running;
+
+    /** JDK server keep-alive idle limit in seconds, read once per JVM when the first server starts */
+    public static final String IDLE_INTERVAL_PROPERTY = "sun.net.httpserver.idleInterval";
+
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
 
     public HttpServerWrapper(int port, String bindAddress, String accessKey, int maxThreads,
-                           boolean enableCors, boolean logRequests, FileStorage fileStorage, 
-                           JavaPlugin plugin, boolean enableDashboard, String dashboardPath, 
+                           boolean enableCors, AccessLog accessLog, FileStorage fileStorage, 
+                           Logger logger, boolean enableDashboard, String dashboardPath, 
                            boolean dashboardAuth, ChunkedUploadService chunkedUploadService,
-                           int readTimeout, int writeTimeout, int idleTimeout, 
-                           long maxRequestSize, int bufferSize, boolean rateLimitEnabled,
+                           int readTimeout, int writeTimeout, 
+                           long maxRequestSize, BufferPool bufferPool, boolean rateLimitEnabled,
                            int rateLimitRequests, int rateLimitWindow, boolean progressEnabled,
-                           long progressUpdateInterval) {
+                           long progressUpdateInterval, String engine, int transferQueue,
+                           String transferRejection, int metadataThreads, int metadataQueue,
+                           String metadataRejection, int adminThreads, int adminQueue,
+                           String adminRejection, long rateLimitBytesPerSecond,
+                           int rateLimitUploaderRequests, int maxUploadsPerIp, long bandwidthGlobalLimit,
+                           long bandwidthPerConnectionLimit, int bandwidthPublicWeight,
+                           int bandwidthPrivateWeight, long minTransferRate, long publicCacheMaxAge,
+                           boolean publicCacheImmutable, String privateCacheControl,
+                           boolean enableMetrics, String metricsPath, boolean metricsAuth,
+                           TrustedProxies trustedProxies) {
         this.port = port;
         this.bindAddress = bindAddress;
         this.accessKey = accessKey;
         this.maxThreads = maxThreads;
         this.enableCors = enableCors;
-        this.logRequests = logRequests;
+        this.accessLog = accessLog;
         this.fileStorage = fileStorage;
-        this.plugin = plugin;
+        this.logger = logger;
         this.enableDashboard = enableDashboard;
         this.dashboardPath = dashboardPath;
         this.dashboardAuth = dashboardAuth;
         this.chunkedUploadService = chunkedUploadService;
         this.readTimeout = readTimeout;
         this.writeTimeout = writeTimeout;
-        this.idleTimeout = idleTimeout;
         this.maxRequestSize = maxRequestSize;
-        this.bufferSize = bufferSize;
+        this.bufferPool = bufferPool;
+        this.bufferSize = bufferPool.getBufferSize();
         this.rateLimitEnabled = rateLimitEnabled;
         this.rateLimitRequests = rateLimitRequests;
         this.rateLimitWindow = rateLimitWindow;
         this.progressEnabled = progressEnabled;
         this.progressUpdateInterval = progressUpdateInterval;
+        this.engine = engine;
+        this.transferQueue = transferQueue;
+        this.transferRejection = transferRejection;
+        this.metadataThreads = metadataThreads;
+        this.metadataQueue = metadataQueue;
+        this.metadataRejection = metadataRejection;
+        this.adminThreads = adminThreads;
+        this.adminQueue = adminQueue;
+        this.adminRejection = adminRejection;
+        
+        this.ipRequestLimiter = rateLimitEnabled && rateLimitRequests > 0 
+            ? RateLimiter.perWindow(rateLimitRequests, rateLimitWindow) : null;
+        this.uploaderRequestLimiter = rateLimitEnabled && rateLimitUploaderRequests > 0 
+            ? RateLimiter.perWindow(rateLimitUploaderRequests, rateLimitWindow) : null;
+        this.ipByteLimiter = rateLimitEnabled && rateLimitBytesPerSecond > 0 
+            ? RateLimiter.bytesPerSecond(rateLimitBytesPerSecond) : null;
+        this.ipUploadLimiter = maxUploadsPerIp > 0 ? RateLimiter.perWindow(maxUploadsPerIp, 3600) : null;
+        this.bandwidthScheduler = bandwidthGlobalLimit > 0 || bandwidthPerConnectionLimit > 0
+            ? new BandwidthScheduler(bandwidthGlobalLimit, bandwidthPerConnectionLimit, 
+                bandwidthPublicWeight, bandwidthPrivateWeight)
+            : null;
+        this.minTransferRate = minTransferRate;
+        this.publicCacheMaxAge = publicCacheMaxAge;
+        this.publicCacheImmutable = publicCacheImmutable;
+        this.privateCacheControl = privateCacheControl;
+        this.enableMetrics = enableMetrics;
+        this.metricsPath = metricsPath;
+        this.metricsAuth = metricsAuth;
+        this.trustedProxies = trustedProxies;
     }
 
     public void start() {
         try {
+            transferWatchdog = new TransferWatchdog(readTimeout, writeTimeout, minTransferRate, logger);
+
             InetSocketAddress address = new InetSocketAddress(bindAddress, port);
             server = HttpServer.create(address, 0);
-            server.setExecutor(Executors.newFixedThreadPool(maxThreads));
+            // Handlers run on per-route-class pools; the server executor only parses request
+            // headers and hands the exchange off, so it never waits behind a transfer
+            transferPool = createTransferPool();
+            metadataPool = RoutePool.fixed("metadata", metadataThreads, metadataQueue, 
+                RoutePool.Rejection.parse(metadataRejection));
+            adminPool = RoutePool.fixed("admin", adminThreads, adminQueue, 
+                RoutePool.Rejection.parse(adminRejection));
+            dispatchExecutor = Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "BlobCraft-dispatch");
+                thread.setDaemon(true);
+                return thread;
+            });
+            server.setExecutor(dispatchExecutor);
 
             // Standard endpoints
-            server.createContext("/upload", new UploadHandler());
-            server.createContext("/blob/", new PrivateDownloadHandler());
-            server.createContext("/public/", new PublicDownloadHandler());
-            server.createContext("/list", new ListHandler());
-            server.createContext("/delete/", new DeleteHandler());
-            server.createContext("/metadata/", new MetadataHandler());
-            server.createContext("/health", new HealthHandler());
+            route("/upload", transferPool, new UploadHandler());
+            route("/blob/", transferPool, new PrivateDownloadHandler());
+            route("/public/", transferPool, new PublicDownloadHandler());
+            route("/list", metadataPool, new ListHandler());
+            route("/delete/", metadataPool, new DeleteHandler());
+            route("/batch/delete", metadataPool, new BatchDeleteHandler());
+            route("/metadata/", metadataPool, new MetadataHandler());
+            route("/health", adminPool, new HealthHandler());
             
             // Chunked upload endpoints
             if (chunkedUploadService != null) {
-                server.createContext("/upload/init", new InitUploadHandler());
-                server.createContext("/upload/chunk", new ChunkUploadHandler());
-                server.createContext("/upload/progress/", new ProgressHandler());
-                server.createContext("/upload/cancel/", new CancelUploadHandler());
-                plugin.getLogger().info("Chunked upload endpoints registered");
+                route("/upload/init", metadataPool, new InitUploadHandler());
+                route("/upload/chunk", transferPool, new ChunkUploadHandler());
+                route("/upload/progress/", metadataPool, new ProgressHandler());
+                route("/upload/cancel/", metadataPool, new CancelUploadHandler());
+                logger.info("Chunked upload endpoints registered");
             }
             
             // Dashboard endpoints
             if (enableDashboard) {
-                server.createContext(dashboardPath, new DashboardHandler());
-                server.createContext("/api/stats", new StatsHandler());
-                plugin.getLogger().info("Dashboard enabled at: " + dashboardPath);
+                dashboardAssets = new DashboardAssets(dashboardPath);
+                route(dashboardPath, adminPool, new DashboardHandler());
+                route("/api/stats", adminPool, new StatsHandler());
+                logger.info("Dashboard enabled at: " + dashboardPath);
+            }
+            
+            if (enableMetrics) {
+                for (RoutePool pool : List.of(transferPool, metadataPool, adminPool)) {
+                    BlobMetrics.POOL_ACTIVE.register(pool::getActive, pool.getName());
+                    BlobMetrics.POOL_QUEUED.register(pool::getQueueDepth, pool.getName());
+                    BlobMetrics.POOL_CAPACITY.register(pool::getThreads, pool.getName());
+                    BlobMetrics.POOL_REJECTED.register(pool::getRejected, pool.getName());
+                }
+                route(metricsPath, adminPool, new MetricsHandler());
+                logger.info("Metrics enabled at: " + metricsPath);
             }
 
             server.start();
-            plugin.getLogger().info("HTTP server started on " + bindAddress + ":" + port);
-            plugin.getLogger().info("Server configuration:");
-            plugin.getLogger().info("- Read timeout: " + readTimeout + "ms");
-            plugin.getLogger().info("- Write timeout: " + writeTimeout + "ms");
-            plugin.getLogger().info("- Max request size: " + (maxRequestSize / 1024 / 1024) + "MB");
-            plugin.getLogger().info("- Buffer size: " + bufferSize + " bytes");
+            running = true;
+            logger.info("HTTP server started on " + bindAddress + ":" + port);
+            logger.info("Server configuration:");
+            logger.info("- Engine: " + engineDescription);
+            logger.info("- Pools: metadata " + metadataThreads + " threads, admin " + 
+                adminThreads + " threads");
+            logger.info("- Read timeout: " + readTimeout + "ms");
+            logger.info("- Write timeout: " + writeTimeout + "ms");
+            logger.info("- Idle timeout: " + System.getProperty(IDLE_INTERVAL_PROPERTY, "30") + "s");
+            logger.info("- Min transfer rate: " + (minTransferRate > 0 ? minTransferRate + " B/s" : "disabled"));
+            logger.info("- Max request size: " + (maxRequestSize / 1024 / 1024) + "MB");
+            logger.info("- Buffer size: " + bufferSize + " bytes");
 
         } catch (IOException e) {
-            plugin.getLogger().severe("Error starting HTTP server: " + e.getMessage());
+            logger.severe("Error starting HTTP server: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
+    public boolean isRunning() {
+        return running;
+    }
+
     public void stop() {
+        running = false;
         if (server != null) {
             server.stop(0);
-            plugin.getLogger().info("HTTP server stopped");
+            logger.info("HTTP server stopped");
+        }
+        if (transferWatchdog != null) {
+            transferWatchdog.shutdown();
+        }
+        if (transferPool != null) {
+            dispatchExecutor.shutdown();
+            transferPool.shutdown();
+            metadataPool.shutdown();
+            adminPool.shutdown();
+        }
+    }
+
+    /**
+     * Transfer pool for the configured engine. With virtual threads every transfer gets
+     * its own thread, so slow clients never hold one of a fixed number of slots.
+     */
+    private RoutePool createTransferPool() {
+        if ("virtual".equalsIgnoreCase(engine)) {
+            RoutePool virtual = RoutePool.virtual("transfer");
+            if (virtual != null) {
+                engineDescription = "virtual threads";
+                return virtual;
+            }
+            logger.warning("Virtual threads require Java 21+, falling back to " + 
+                maxThreads + " platform threads");
+        } else if (!"platform".equalsIgnoreCase(engine)) {
+            logger.warning("Unknown server engine '" + engine + "', using platform threads");
+        }
+        engineDescription = maxThreads + " platform threads";
+        return RoutePool.fixed("transfer", maxThreads, transferQueue, RoutePool.Rejection.parse(transferRejection));
+    }
+
+    private void route(String path, RoutePool pool, HttpHandler handler) {
+        // Health checks and the dashboard are never rate limited
+        server.createContext(path, new RoutedHandler(path, pool, handler, pool != adminPool));
+    }
+
+    private JsonObject poolsJson() {
+        JsonObject pools = new JsonObject();
+        pools.add(transferPool.getName(), transferPool.toJson());
+        pools.add(metadataPool.getName(), metadataPool.toJson());
+        pools.add(adminPool.getName(), adminPool.toJson());
+        return pools;
+    }
+
+    /**
+     * Hands the exchange from the server executor to the pool of its route class.
+     */
+    private class RoutedHandler implements HttpHandler {
+        private final String route;
+        private final RoutePool pool;
+        private final HttpHandler handler;
+        private final boolean rateLimited;
+        // Resolved once so a request only looks up its status code series
+        private final Histogram duration;
+        private final Counter received;
+        private final Counter sent;
+
+        RoutedHandler(String route, RoutePool pool, HttpHandler handler, boolean rateLimited) {
+            this.route = route;
+            this.pool = pool;
+            this.handler = handler;
+            this.rateLimited = rateLimited;
+            this.duration = BlobMetrics.HTTP_DURATION.labels(route);
+            this.received = BlobMetrics.HTTP_RECEIVED.labels(route);
+            this.sent = BlobMetrics.HTTP_SENT.labels(route);
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) {
+            long start = System.nanoTime();
+            CountingInputStream in = new CountingInputStream(exchange.getRequestBody());
+            CountingOutputStream out = new CountingOutputStream(exchange.getResponseBody());
+            exchange.setStreams(in, out);
+
+            // Checked before queueing so a flooding client never occupies a pool slot
+            if (rateLimited && !admitRequest(exchange)) {
+                record(exchange, start, in, out);
+                return;
+            }
+            pool.submit(() -> {
+                try {
+                    handler.handle(exchange);
+                } catch (IOException e) {
+                    exchange.close(); // Client went away
+                } catch (RuntimeException e) {
+                    logger.warning("Unhandled error on " + exchange.getRequestURI() + ": " + e);
+                    exchange.close();
+                } finally {
+                    record(exchange, start, in, out);
+                }
+            }, () -> {
+                rejectBusy(exchange, pool);
+                record(exchange, start, in, out);
+            });
+        }
+
+        private void record(HttpExchange exchange, long start, CountingInputStream in, CountingOutputStream out) {
+            long elapsed = System.nanoTime() - start;
+            duration.observe(elapsed);
+            received.add(in.count);
+            sent.add(out.count);
+            int code = exchange.getResponseCode();
+            BlobMetrics.HTTP_REQUESTS.labels(route, code < 0 ? "none" : String.valueOf(code)).increment();
+            if (accessLog != null && accessLog.accepts(code)) {
+                accessLog.log(exchange.getRequestMethod(), route, exchange.getRequestURI().getRawPath(), code,
+                    elapsed, in.count, out.count, getClientIp(exchange),
+                    exchange.getRequestHeaders().getFirst("User-Agent"));
+            }
+        }
+    }
+
+    /** Request body wrapper counting bytes for the metrics; read by one handler thread. */
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    /** Response body wrapper counting bytes for the metrics; written by one handler thread. */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    /**
+     * Per-IP and per-uploader request limits. Answers 429 and returns false when exceeded.
+     */
+    private boolean admitRequest(HttpExchange exchange) {
+        long wait = 0;
+        if (ipRequestLimiter != null) {
+            wait = ipRequestLimiter.tryAcquire(getClientIp(exchange), 1);
+        }
+        String uploader = exchange.getRequestHeaders().getFirst("X-Uploader");
+        if (wait == 0 && uploaderRequestLimiter != null && uploader != null) {
+            wait = uploaderRequestLimiter.tryAcquire(uploader, 1);
+        }
+        return wait == 0 || rejectRateLimited(exchange, wait, "Too many requests");
+    }
+
+    /**
+     * Per-IP transfer budget in bytes per second.
+     */
+    private boolean admitBytes(HttpExchange exchange, long bytes) {
+        if (ipByteLimiter == null || bytes <= 0) {
+            return true;
+        }
+        long wait = ipByteLimiter.tryAcquire(getClientIp(exchange), bytes);
+        return wait == 0 || rejectRateLimited(exchange, wait, "Transfer rate limit exceeded");
+    }
+
+    /**
+     * security.max-uploads-per-ip, counted per hour for both upload endpoints.
+     */
+    private boolean admitUpload(HttpExchange exchange) {
+        if (ipUploadLimiter == null) {
+            return true;
+        }
+        long wait = ipUploadLimiter.tryAcquire(getClientIp(exchange), 1);
+        return wait == 0 || rejectRateLimited(exchange, wait, "Upload limit per hour exceeded");
+    }
+
+    private boolean rejectRateLimited(HttpExchange exchange, long waitNanos, String message) {
+        try {
+            setCorsHeaders(exchange);
+            exchange.getResponseHeaders().set("Retry-After", String.valueOf(RateLimiter.retryAfterSeconds(waitNanos)));
+            sendResponse(exchange, 429, "{\"error\":\"" + message + "\"}");
+        } catch (IOException e) {
+            exchange.close();
+        }
+        return false;
+    }
+
+    private void rejectBusy(HttpExchange exchange, RoutePool pool) {
+        try {
+            setCorsHeaders(exchange);
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            sendResponse(exchange, 503, "{\"error\":\"Server busy (" + pool.getName() + " pool is full)\"}");
+        } catch (IOException e) {
+            exchange.close();
         }
     }
 
     private class UploadHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            logRequest(exchange);
             setCorsHeaders(exchange);
 
             if ("OPTIONS".equals(exchange.getRequestMethod())) {
@@ -160,8 +528,14 @@ public class HttpServerWrapper {
                 return;
             }
 
-            try {
-                InputStream input = exchange.getRequestBody();
+            if (!admitUpload(exchange)) {
+                return;
+            }
+
+            QuotaManager.Reservation reservation = null;
+            // Closing the body also stops the watchdog tracking it on the early error returns
+            try (InputStream input = transferWatchdog.guardInput(exchange, exchange.getRequestBody(), 
+                    getClientIp(exchange))) {
                 Headers headers = exchange.getRequestHeaders();
                 String filename = headers.getFirst("X-Filename");
                 if (filename == null || filename.isEmpty()) {
@@ -178,16 +552,40 @@ public class HttpServerWrapper {
                         sendResponse(exchange, 413, "{\"error\":\"Request too large. Use chunked upload for large files.\"}");
                         return;
                     }
+                    if (!admitBytes(exchange, contentLength)) {
+                        return;
+                    }
+                    
+                    // Reserve quota before reading the body so over-quota uploads fail immediately
+                    try {
+                        reservation = fileStorage.reserveStorage(contentLength, getClientIp(exchange), 
+                            headers.getFirst("X-Uploader"));
+                    } catch (QuotaExceededException e) {
+                        sendResponse(exchange, 507, "{\"error\":\"" + e.getMessage() + "\"}");
+                        return;
+                    }
                 }
 
-                // Read data with buffer
-                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-                byte[] data = new byte[bufferSize];
-                int bytesRead;
-                while ((bytesRead = input.read(data)) != -1) {
-                    buffer.write(data, 0, bytesRead);
+                String contentSha256 = parseSha256(headers.getFirst("X-Content-SHA256"), "X-Content-SHA256");
+
+                BlobEvents.UploadReceive receiveEvent = new BlobEvents.UploadReceive();
+                receiveEvent.begin();
+                byte[] fileData = readBody(input, contentLengthStr != null ? Long.parseLong(contentLengthStr) : -1);
+                if (fileData == null) {
+                    sendResponse(exchange, 400, "{\"error\":\"Request body shorter than Content-Length\"}");
+                    return;
+                }
+                commitReceive(receiveEvent, null, -1, fileData.length);
+
+                // The verified hash is passed on so storage does not hash the body again
+                if (contentSha256 != null) {
+                    String received = Hashing.sha256Hex(fileData);
+                    if (!received.equals(contentSha256)) {
+                        sendResponse(exchange, 400, "{\"error\":\"Content SHA-256 mismatch: expected " + 
+                            contentSha256 + ", received " + received + "\"}");
+                        return;
+                    }
                 }
-                byte[] fileData = buffer.toByteArray();
 
                 String publicHeader = headers.getFirst("X-Public");
                 boolean isPublic = "true".equalsIgnoreCase(publicHeader);
@@ -230,12 +628,14 @@ public class HttpServerWrapper {
                 String userAgent = headers.getFirst("User-Agent");
 
                 StoredFile storedFile = fileStorage.storeFile(filename, fileData, isPublic, ttlSeconds, 
-                    clientIp, userAgent, metadata);
+                    clientIp, userAgent, metadata, reservation, contentSha256);
 
                 if (storedFile == null) {
                     sendResponse(exchange, 507, "{\"error\":\"Storage limit exceeded\"}");
                     return;
                 }
+                // Only acknowledge a file that is in the index on disk; concurrent uploads share the write
+                fileStorage.flushIndex().join();
 
                 JsonObject response = new JsonObject();
                 response.addProperty("id", storedFile.getId());
@@ -246,6 +646,10 @@ public class HttpServerWrapper {
                 response.addProperty("public", storedFile.isPublic());
                 response.addProperty("compressed", storedFile.isCompressed());
                 response.addProperty("mimeType", storedFile.getMimeType());
+                FileView storedView = fileStorage.getFileView(storedFile.getId());
+                if (storedView != null && storedView.getSha256() != null) {
+                    response.addProperty("sha256", storedView.getSha256());
+                }
                 if (storedFile.getExpiresAt() != null) {
                     response.addProperty("expiresAt", storedFile.getExpiresAt().toString());
                 }
@@ -254,10 +658,16 @@ public class HttpServerWrapper {
                 
                 sendResponse(exchange, 200, gson.toJson(response));
 
+            } catch (IllegalArgumentException e) {
+                sendResponse(exchange, 400, "{\"error\":\"" + e.getMessage() + "\"}");
             } catch (Exception e) {
-                plugin.getLogger().warning("File upload failed: " + e.getMessage());
+                logger.warning("File upload failed: " + e.getMessage());
                 e.printStackTrace();
                 sendResponse(exchange, 500, "{\"error\":\"File upload failed: " + e.getMessage() + "\"}");
+            } finally {
+                if (reservation != null) {
+                    reservation.release(); // No-op once the file was stored
+                }
             }
         }
     }
@@ -277,7 +687,6 @@ public class HttpServerWrapper {
     }
 
     private void handleDownload(HttpExchange exchange, boolean isPublic) throws IOException {
-        logRequest(exchange);
         setCorsHeaders(exchange);
 
         if ("OPTIONS".equals(exchange.getRequestMethod())) {
@@ -294,8 +703,8 @@ public class HttpServerWrapper {
         String fileId = path.substring((isPublic ? "/public/" : "/blob/").length());
 
         try {
-            StoredFile storedFile = fileStorage.getFile(fileId);
-            if (storedFile == null) {
+            FileView fileView = fileStorage.getFileView(fileId);
+            if (fileView == null) {
                 sendResponse(exchange, 404, "{\"error\":\"File not found\"}");
                 return;
             }
@@ -305,35 +714,194 @@ public class HttpServerWrapper {
                 return;
             }
 
-            if (isPublic && !storedFile.isPublic()) {
+            if (isPublic && !fileView.isPublic()) {
                 sendResponse(exchange, 403, "{\"error\":\"File is not public\"}");
                 return;
             }
 
+            // Validators go on every success response, including 304
+            setCacheHeaders(exchange, fileView, isPublic);
+            if (isNotModified(exchange, fileView)) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+
+            if (!admitBytes(exchange, fileView.getOriginalSize())) {
+                return;
+            }
+
+            // Medium-sized blobs are written straight from a shared mapping
+            ByteBuffer mapped = fileStorage.getMappedData(fileId);
+            if (mapped != null) {
+                setDownloadHeaders(exchange, fileView);
+                long length = mapped.remaining();
+                exchange.sendResponseHeaders(200, length);
+                BlobEvents.DownloadSend sendEvent = new BlobEvents.DownloadSend();
+                sendEvent.begin();
+                try (OutputStream os = downloadStream(exchange, isPublic)) {
+                    WritableByteChannel channel = Channels.newChannel(os);
+                    while (mapped.hasRemaining()) {
+                        channel.write(mapped);
+                    }
+                }
+                commitSend(sendEvent, fileId, isPublic, true, length);
+                return;
+            }
+
             byte[] fileData = fileStorage.getFileData(fileId);
             if (fileData == null) {
                 sendResponse(exchange, 404, "{\"error\":\"File data not found\"}");
                 return;
             }
 
-            exchange.getResponseHeaders().set("Content-Type", storedFile.getMimeType());
-            exchange.getResponseHeaders().set("Content-Disposition", "attachment; filename=\"" + storedFile.getFilename() + "\"");
+            setDownloadHeaders(exchange, fileView);
             exchange.sendResponseHeaders(200, fileData.length);
 
-            try (OutputStream os = exchange.getResponseBody()) {
+            BlobEvents.DownloadSend sendEvent = new BlobEvents.DownloadSend();
+            sendEvent.begin();
+            try (OutputStream os = downloadStream(exchange, isPublic)) {
                 os.write(fileData);
             }
+            commitSend(sendEvent, fileId, isPublic, false, fileData.length);
 
         } catch (Exception e) {
-            plugin.getLogger().warning("File download failed: " + e.getMessage());
+            logger.warning("File download failed: " + e.getMessage());
             sendResponse(exchange, 500, "{\"error\":\"File download failed\"}");
         }
     }
 
+    /**
+     * Reads a whole request body. With a known length the body goes straight into an
+     * array of that size; otherwise it is gathered through a pooled buffer.
+     *
+     * @return the body, or null if it ended before {@code contentLength} bytes
+     */
+    private byte[] readBody(InputStream input, long contentLength) throws IOException {
+        if (contentLength >= 0) {
+            byte[] body = new byte[(int) contentLength]; // Callers reject lengths above max-request-size
+            return input.readNBytes(body, 0, body.length) == body.length ? body : null;
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (BufferPool.Lease lease = bufferPool.acquire()) {
+            byte[] buffer = lease.buffer();
+            int bytesRead;
+            while ((bytesRead = input.read(buffer)) != -1) {
+                body.write(buffer, 0, bytesRead);
+                if (body.size() > maxRequestSize) {
+                    throw new IOException("Request body exceeds " + maxRequestSize + " bytes");
+                }
+            }
+        }
+        return body.toByteArray();
+    }
+
+    /**
+     * Lower-cased hex SHA-256 from a request header, or null if the header is absent.
+     *
+     * @throws IllegalArgumentException if the header is not 64 hex digits
+     */
+    private static String parseSha256(String value, String header) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String hex = value.trim().toLowerCase(Locale.ROOT);
+        if (hex.length() != 64 || !hex.chars().allMatch(c -> (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+            throw new IllegalArgumentException("Invalid " + header + ": expected 64 hex digits");
+        }
+        return hex;
+    }
+
+
+    private static void commitReceive(BlobEvents.UploadReceive event, String uploadId, int chunkNumber, long bytes) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.uploadId = uploadId;
+            event.chunkNumber = chunkNumber;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    private static void commitSend(BlobEvents.DownloadSend event, String fileId, boolean isPublic, boolean mapped,
+                                   long bytes) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.fileId = fileId;
+            event.publicLink = isPublic;
+            event.mapped = mapped;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    private OutputStream downloadStream(HttpExchange exchange, boolean isPublic) {
+        OutputStream body = transferWatchdog.guardOutput(exchange, exchange.getResponseBody(), getClientIp(exchange));
+        return bandwidthScheduler != null ? bandwidthScheduler.wrap(body, isPublic) : body;
+    }
+
+    private void setDownloadHeaders(HttpExchange exchange, FileView fileView) {
+        exchange.getResponseHeaders().set("Content-Type", fileView.getMimeType());
+        if (fileView.getSha256() != null) {
+            exchange.getResponseHeaders().set("X-Content-SHA256", fileView.getSha256());
+        }
+        exchange.getResponseHeaders().set("Content-Disposition", "attachment; filename=\"" + fileView.getFilename() + "\"");
+    }
+
+    private void setCacheHeaders(HttpExchange exchange, FileView fileView, boolean isPublic) {
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("ETag", "\"" + fileView.getEtag() + "\"");
+        headers.set("Last-Modified", HTTP_DATE.format(fileView.getUploadedAt()));
+
+        if (!isPublic) {
+            headers.set("Cache-Control", privateCacheControl);
+            return;
+        }
+        // Content never changes under a public ID, but an expiring file must not outlive its TTL in caches
+        long maxAge = publicCacheMaxAge;
+        boolean immutable = publicCacheImmutable;
+        if (fileView.getExpiresAt() != null) {
+            long remaining = Duration.between(Instant.now(), fileView.getExpiresAt()).getSeconds();
+            maxAge = Math.max(0, Math.min(maxAge, remaining));
+            immutable = false;
+        }
+        headers.set("Cache-Control", "public, max-age=" + maxAge + (immutable ? ", immutable" : ""));
+    }
+
+    /**
+     * Whether the client's cached copy is current. If-None-Match takes precedence over
+     * If-Modified-Since, which is only consulted when no entity tags were sent.
+     */
+    private boolean isNotModified(HttpExchange exchange, FileView fileView) {
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2); // GET uses the weak comparison
+                }
+                if ("*".equals(tag) || tag.equals("\"" + fileView.getEtag() + "\"")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+        if (ifModifiedSince != null) {
+            try {
+                Instant since = ZonedDateTime.parse(ifModifiedSince.trim(), HTTP_DATE).toInstant();
+                // HTTP dates have whole-second precision
+                return !fileView.getUploadedAt().truncatedTo(ChronoUnit.SECONDS).isAfter(since);
+            } catch (DateTimeParseException e) {
+                return false; // Invalid dates are ignored
+            }
+        }
+        return false;
+    }
+
     private class DeleteHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            logRequest(exchange);
             setCorsHeaders(exchange);
 
             if ("OPTIONS".equals(exchange.getRequestMethod())) {
@@ -365,16 +933,90 @@ public class HttpServerWrapper {
                     sendResponse(exchange, 404, "{\"error\":\"File not found\"}");
                 }
             } catch (Exception e) {
-                plugin.getLogger().warning("Failed to delete file: " + e.getMessage());
+                logger.warning("Failed to delete file: " + e.getMessage());
                 sendResponse(exchange, 500, "{\"error\":\"Failed to delete file\"}");
             }
         }
     }
 
+    private class BatchDeleteHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            setCorsHeaders(exchange);
+
+            if ("OPTIONS".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
+                return;
+            }
+
+            if (!isAuthorized(exchange)) {
+                sendResponse(exchange, 403, "{\"error\":\"Forbidden\"}");
+                return;
+            }
+
+            try {
+                // Body: {"ids": ["abc", "def"], "wait": true}
+                String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                JsonObject request = gson.fromJson(body, JsonObject.class);
+                if (request == null || !request.has("ids") || !request.get("ids").isJsonArray()) {
+                    sendResponse(exchange, 400, "{\"error\":\"Body must contain an 'ids' array\"}");
+                    return;
+                }
+
+                List<String> ids = new ArrayList<>();
+                for (JsonElement element : request.getAsJsonArray("ids")) {
+                    ids.add(element.getAsString());
+                }
+                boolean wait = request.has("wait") && request.get("wait").getAsBoolean();
+
+                BatchDeleteResult result = fileStorage.deleteFiles(ids);
+
+                boolean durable = false;
+                if (wait) {
+                    try {
+                        result.getCommit().get(30, TimeUnit.SECONDS);
+                        durable = true;
+                    } catch (TimeoutException e) {
+                        logger.warning("Timed out waiting for batch delete to be committed");
+                    } catch (ExecutionException e) {
+                        logger.warning("Batch delete commit failed: " + e.getCause().getMessage());
+                        sendResponse(exchange, 500, "{\"error\":\"Failed to persist deletions\"}");
+                        return;
+                    }
+                }
+
+                JsonObject response = new JsonObject();
+                response.addProperty("success", true);
+                JsonArray deletedArray = new JsonArray();
+                result.getDeleted().forEach(deletedArray::add);
+                response.add("deleted", deletedArray);
+                JsonArray notFoundArray = new JsonArray();
+                result.getNotFound().forEach(notFoundArray::add);
+                response.add("notFound", notFoundArray);
+                response.addProperty("durable", durable);
+
+                sendResponse(exchange, 200, gson.toJson(response));
+
+            } catch (JsonParseException | IllegalStateException | UnsupportedOperationException e) {
+                sendResponse(exchange, 400, "{\"error\":\"Invalid request body\"}");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                sendResponse(exchange, 500, "{\"error\":\"Interrupted\"}");
+            } catch (Exception e) {
+                logger.warning("Failed to delete files: " + e.getMessage());
+                sendResponse(exchange, 500, "{\"error\":\"Failed to delete files\"}");
+            }
+        }
+    }
+
     private class MetadataHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            logRequest(exchange);
             setCorsHeaders(exchange);
 
             if ("OPTIONS".equals(exchange.getRequestMethod())) {
@@ -391,46 +1033,49 @@ public class HttpServerWrapper {
             String fileId = path.substring("/metadata/".length());
 
             try {
-                StoredFile storedFile = fileStorage.getFile(fileId);
-                if (storedFile == null) {
+                // Served from the index; the blob itself is never read
+                FileView fileView = fileStorage.getFileView(fileId);
+                if (fileView == null) {
                     sendResponse(exchange, 404, "{\"error\":\"File not found\"}");
                     return;
                 }
 
-                if (!storedFile.isPublic() && !isAuthorized(exchange)) {
+                if (!fileView.isPublic() && !isAuthorized(exchange)) {
                     sendResponse(exchange, 403, "{\"error\":\"Forbidden\"}");
                     return;
                 }
 
-                JsonObject response = new JsonObject();
-                response.addProperty("id", storedFile.getId());
-                response.addProperty("filename", storedFile.getFilename());
-                response.addProperty("size", storedFile.getSize());
-                response.addProperty("originalSize", storedFile.getOriginalSize());
-                response.addProperty("uploadedAt", storedFile.getUploadedAt().toString());
-                response.addProperty("public", storedFile.isPublic());
-                response.addProperty("compressed", storedFile.isCompressed());
-                response.addProperty("mimeType", storedFile.getMimeType());
-                response.addProperty("uploaderIp", storedFile.getUploaderIp());
-                response.addProperty("uploaderAgent", storedFile.getUploaderAgent());
-                if (storedFile.getExpiresAt() != null) {
-                    response.addProperty("expiresAt", storedFile.getExpiresAt().toString());
-                }
-
-                // Add metadata
-                JsonObject metadataJson = new JsonObject();
-                if (storedFile.getMetadata() != null) {
-                    for (Map.Entry<String, String> entry : storedFile.getMetadata().entrySet()) {
-                        metadataJson.addProperty(entry.getKey(), entry.getValue());
+                sendJsonStream(exchange, 200, writer -> {
+                    writer.beginObject();
+                    writer.name("id").value(fileView.getId());
+                    writer.name("filename").value(fileView.getFilename());
+                    writer.name("size").value(fileView.getSize());
+                    writer.name("originalSize").value(fileView.getOriginalSize());
+                    writer.name("uploadedAt").value(fileView.getUploadedAt().toString());
+                    writer.name("public").value(fileView.isPublic());
+                    writer.name("compressed").value(fileView.isCompressed());
+                    writer.name("mimeType").value(fileView.getMimeType());
+                    if (fileView.getSha256() != null) {
+                        writer.name("sha256").value(fileView.getSha256());
+                    }
+                    writer.name("uploaderIp").value(fileView.getUploaderIp());
+                    writer.name("uploaderAgent").value(fileView.getUploaderAgent());
+                    if (fileView.getExpiresAt() != null) {
+                        writer.name("expiresAt").value(fileView.getExpiresAt().toString());
                     }
-                }
-                response.add("metadata", metadataJson);
 
-                sendResponse(exchange, 200, gson.toJson(response));
+                    // Add metadata
+                    writer.name("metadata").beginObject();
+                    for (Map.Entry<String, String> entry : fileView.getMetadata().entrySet()) {
+                        writer.name(entry.getKey()).value(entry.getValue());
+                    }
+                    writer.endObject();
+                    writer.endObject();
+                });
 
             } catch (Exception e) {
-                plugin.getLogger().warning("Failed to get file metadata: " + e.getMessage());
-                sendResponse(exchange, 500, "{\"error\":\"Failed to get file metadata\"}");
+                logger.warning("Failed to get file metadata: " + e.getMessage());
+                sendError(exchange, 500, "{\"error\":\"Failed to get file metadata\"}");
             }
         }
     }
@@ -438,7 +1083,6 @@ public class HttpServerWrapper {
     private class ListHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            logRequest(exchange);
             setCorsHeaders(exchange);
 
             if ("OPTIONS".equals(exchange.getRequestMethod())) {
@@ -484,7 +1128,7 @@ public class HttpServerWrapper {
                     // Use default values if parsing fails
                 }
 
-                List<StoredFile> files ;
+                List<FileView> files ;
                 int totalFiles = 0;
                 if(inputFilter.equals("")) {
                     files = fileStorage.listFiles(page, pageSize, extensionFilter);
@@ -496,41 +1140,45 @@ public class HttpServerWrapper {
 
 
 
-                JsonObject response = new JsonObject();
-                response.addProperty("page", page);
-                response.addProperty("pageSize", pageSize);
-                response.addProperty("total", totalFiles);
-
-                JsonArray filesArray = new JsonArray();
-                for (StoredFile file : files) {
-                    JsonObject fileJson = new JsonObject();
-                    fileJson.addProperty("id", file.getId());
-                    fileJson.addProperty("filename", file.getFilename());
-                    fileJson.addProperty("size", file.getSize());
-                    fileJson.addProperty("originalSize", file.getOriginalSize());
-                    fileJson.addProperty("uploadedAt", file.getUploadedAt().toString());
-                    fileJson.addProperty("extension", file.getExtension());
-                    fileJson.addProperty("public", file.isPublic());
-                    fileJson.addProperty("compressed", file.isCompressed());
-                    fileJson.addProperty("mimeType", file.getMimeType());
-                    fileJson.addProperty("uploader", file.getUploader());
-                    fileJson.addProperty("tags", file.getTags());
-                    fileJson.addProperty("category", file.getCategory());
-                    fileJson.addProperty("uploaderIp", file.getUploaderIp());
-                    if (file.getExpiresAt() != null) {
-                        fileJson.addProperty("expiresAt", file.getExpiresAt().toString());
+                int currentPage = page;
+                int currentPageSize = pageSize;
+                int total = totalFiles;
+                sendJsonStream(exchange, 200, writer -> {
+                    writer.beginObject();
+                    writer.name("page").value(currentPage);
+                    writer.name("pageSize").value(currentPageSize);
+                    writer.name("total").value(total);
+
+                    writer.name("files").beginArray();
+                    for (FileView file : files) {
+                        writer.beginObject();
+                        writer.name("id").value(file.getId());
+                        writer.name("filename").value(file.getFilename());
+                        writer.name("size").value(file.getSize());
+                        writer.name("originalSize").value(file.getOriginalSize());
+                        writer.name("uploadedAt").value(file.getUploadedAt().toString());
+                        writer.name("extension").value(file.getExtension());
+                        writer.name("public").value(file.isPublic());
+                        writer.name("compressed").value(file.isCompressed());
+                        writer.name("mimeType").value(file.getMimeType());
+                        writer.name("uploader").value(file.getUploader());
+                        writer.name("tags").value(file.getTags());
+                        writer.name("category").value(file.getCategory());
+                        writer.name("uploaderIp").value(file.getUploaderIp());
+                        if (file.getExpiresAt() != null) {
+                            writer.name("expiresAt").value(file.getExpiresAt().toString());
+                        }
+                        writer.name("url").value(file.isPublic() ? 
+                            "/public/" + file.getId() : "/blob/" + file.getId());
+                        writer.endObject();
                     }
-                    fileJson.addProperty("url", file.isPublic() ? 
-                        "/public/" + file.getId() : "/blob/" + file.getId());
-                    filesArray.add(fileJson);
-                }
-                response.add("files", filesArray);
-
-                sendResponse(exchange, 200, gson.toJson(response));
+                    writer.endArray();
+                    writer.endObject();
+                });
 
             } catch (Exception e) {
-                plugin.getLogger().warning("Failed to list files: " + e.getMessage());
-                sendResponse(exchange, 500, "{\"error\":\"Failed to list files\"}");
+                logger.warning("Failed to list files: " + e.getMessage());
+                sendError(exchange, 500, "{\"error\":\"Failed to list files\"}");
             }
         }
     }
@@ -538,7 +1186,6 @@ public class HttpServerWrapper {
     private class InitUploadHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            logRequest(exchange);
             setCorsHeaders(exchange);
 
             if ("OPTIONS".equals(exchange.getRequestMethod())) {
@@ -607,10 +1254,36 @@ public class HttpServerWrapper {
                 String clientIp = getClientIp(exchange);
                 String userAgent = headers.getFirst("User-Agent");
 
+                if (!admitUpload(exchange)) {
+                    return;
+                }
+
+                String contentSha256 = parseSha256(headers.getFirst("X-Content-SHA256"), "X-Content-SHA256");
+
+                // Content the server already holds becomes a new file without any chunk transfer
+                if (contentSha256 != null) {
+                    FileView duplicate = fileStorage.storeDuplicate(contentSha256, totalSize, filename, isPublic, 
+                        ttlSeconds, clientIp, userAgent, metadata);
+                    if (duplicate != null) {
+                        fileStorage.flushIndex().join();
+                        JsonObject response = new JsonObject();
+                        response.addProperty("completed", true);
+                        response.addProperty("deduplicated", true);
+                        response.addProperty("fileId", duplicate.getId());
+                        response.addProperty("totalChunks", 0);
+                        response.addProperty("sha256", duplicate.getSha256());
+                        response.addProperty("url", duplicate.isPublic() ? 
+                            "/public/" + duplicate.getId() : "/blob/" + duplicate.getId());
+                        sendResponse(exchange, 200, gson.toJson(response));
+                        return;
+                    }
+                }
+
                 ChunkedUpload upload = chunkedUploadService.initializeUpload(
-                    filename, totalSize, isPublic, ttlSeconds, metadata, clientIp, userAgent);
+                    filename, totalSize, isPublic, ttlSeconds, metadata, clientIp, userAgent, contentSha256);
 
                 JsonObject response = new JsonObject();
+                response.addProperty("completed", false);
                 response.addProperty("uploadId", upload.getUploadId());
                 response.addProperty("chunkSize", upload.getChunkSize());
                 response.addProperty("totalChunks", upload.getTotalChunks());
@@ -618,11 +1291,16 @@ public class HttpServerWrapper {
 
                 sendResponse(exchange, 200, gson.toJson(response));
 
+            } catch (QuotaExceededException e) {
+                logger.warning("Rejected upload initialization: " + e.getMessage());
+                sendResponse(exchange, 507, "{\"error\":\"" + e.getMessage() + "\"}");
+            } catch (UploadLimitException e) {
+                sendResponse(exchange, 429, "{\"error\":\"" + e.getMessage() + "\"}");
             } catch (IllegalArgumentException e) {
-                plugin.getLogger().warning("Invalid upload initialization: " + e.getMessage());
+                logger.warning("Invalid upload initialization: " + e.getMessage());
                 sendResponse(exchange, 400, "{\"error\":\"" + e.getMessage() + "\"}");
             } catch (Exception e) {
-                plugin.getLogger().warning("Failed to initialize upload: " + e.getMessage());
+                logger.warning("Failed to initialize upload: " + e.getMessage());
                 e.printStackTrace();
                 sendResponse(exchange, 500, "{\"error\":\"Failed to initialize upload: " + e.getMessage() + "\"}");
             }
@@ -632,7 +1310,6 @@ public class HttpServerWrapper {
     private class ChunkUploadHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            logRequest(exchange);
             setCorsHeaders(exchange);
 
             if (!"POST".equals(exchange.getRequestMethod())) {
@@ -668,18 +1345,33 @@ public class HttpServerWrapper {
                     return;
                 }
 
-                // Read chunk data with buffer
-                InputStream input = exchange.getRequestBody();
-                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-                byte[] data = new byte[bufferSize];
-                int bytesRead;
-                while ((bytesRead = input.read(data)) != -1) {
-                    buffer.write(data, 0, bytesRead);
+                String contentLengthStr = headers.getFirst("Content-Length");
+                if (contentLengthStr != null && !admitBytes(exchange, Long.parseLong(contentLengthStr))) {
+                    return;
                 }
 
-                byte[] chunkData = buffer.toByteArray();
+                String chunkSha256 = parseSha256(headers.getFirst("X-Chunk-SHA256"), "X-Chunk-SHA256");
 
-                boolean success = chunkedUploadService.uploadChunk(uploadId, chunkNumber, chunkData);
+                // A hash with an empty body asks the server to fill the chunk from content it already stores
+                boolean deduplicated = chunkSha256 != null && "0".equals(contentLengthStr);
+                boolean success;
+                if (deduplicated) {
+                    success = chunkedUploadService.reuseChunk(uploadId, chunkNumber, chunkSha256);
+                    if (!success) {
+                        sendResponse(exchange, 404, "{\"error\":\"Chunk content not stored, send the chunk data\"}");
+                        return;
+                    }
+                } else {
+                    // Streamed to the chunk file as it arrives; closed even when the service stops reading early
+                    try (InputStream input = transferWatchdog.guardInput(exchange, exchange.getRequestBody(), 
+                            getClientIp(exchange))) {
+                        BlobEvents.UploadReceive receiveEvent = new BlobEvents.UploadReceive();
+                        receiveEvent.begin();
+                        CountingInputStream counted = new CountingInputStream(input);
+                        success = chunkedUploadService.uploadChunk(uploadId, chunkNumber, counted, chunkSha256);
+                        commitReceive(receiveEvent, uploadId, chunkNumber, counted.count);
+                    }
+                }
 
                 if (success) {
                     ChunkedUpload upload = chunkedUploadService.getUpload(uploadId);
@@ -688,6 +1380,7 @@ public class HttpServerWrapper {
                     response.addProperty("chunkNumber", chunkNumber);
                     response.addProperty("progress", upload != null ? upload.getProgress() : 0.0);
                     response.addProperty("completed", upload != null && upload.isCompleted());
+                    response.addProperty("deduplicated", deduplicated);
                     if (upload != null && upload.isCompleted()) {
                         response.addProperty("fileId", upload.getFinalFileId());
                     }
@@ -697,8 +1390,11 @@ public class HttpServerWrapper {
                     sendResponse(exchange, 500, "{\"error\":\"Failed to upload chunk\"}");
                 }
 
+            } catch (IntegrityException | IllegalArgumentException e) {
+                logger.warning("Rejected chunk: " + e.getMessage());
+                sendResponse(exchange, 400, "{\"error\":\"" + e.getMessage() + "\"}");
             } catch (Exception e) {
-                plugin.getLogger().warning("Failed to upload chunk: " + e.getMessage());
+                logger.warning("Failed to upload chunk: " + e.getMessage());
                 e.printStackTrace();
                 sendResponse(exchange, 500, "{\"error\":\"Failed to upload chunk: " + e.getMessage() + "\"}");
             }
@@ -708,7 +1404,6 @@ public class HttpServerWrapper {
     private class ProgressHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            logRequest(exchange);
             setCorsHeaders(exchange);
 
             if (!"GET".equals(exchange.getRequestMethod())) {
@@ -760,7 +1455,6 @@ public class HttpServerWrapper {
     private class CancelUploadHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            logRequest(exchange);
             setCorsHeaders(exchange);
 
             if (!"DELETE".equals(exchange.getRequestMethod())) {
@@ -794,7 +1488,6 @@ public class HttpServerWrapper {
     private class HealthHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            logRequest(exchange);
             setCorsHeaders(exchange);
 
             if (!"GET".equals(exchange.getRequestMethod())) {
@@ -813,15 +1506,44 @@ public class HttpServerWrapper {
                 response.addProperty("activeUploads", chunkedUploadService.getActiveUploadsCount());
                 response.addProperty("uploadingBytes", chunkedUploadService.getTotalUploadingBytes());
             }
+            response.add("pools", poolsJson());
 
             sendResponse(exchange, 200, gson.toJson(response));
         }
     }
 
+    /**
+     * OpenMetrics text for scrapers that ask for it, the Prometheus text format otherwise.
+     */
+    private class MetricsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
+                return;
+            }
+
+            if (metricsAuth && !isAuthorized(exchange)) {
+                sendResponse(exchange, 403, "{\"error\":\"Forbidden\"}");
+                return;
+            }
+
+            String accept = exchange.getRequestHeaders().getFirst("Accept");
+            boolean openMetrics = accept != null && accept.contains("application/openmetrics-text");
+            byte[] body = BlobMetrics.scrape(openMetrics).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", openMetrics
+                ? "application/openmetrics-text; version=1.0.0; charset=utf-8"
+                : "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        }
+    }
+
     private class StatsHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            logRequest(exchange);
             setCorsHeaders(exchange);
 
             if (!"GET".equals(exchange.getRequestMethod())) {
@@ -833,6 +1555,11 @@ public class HttpServerWrapper {
             stats.addProperty("totalFiles", fileStorage.getFileCount());
             stats.addProperty("usedMemory", fileStorage.getUsedMemory());
             stats.addProperty("usedStorage", fileStorage.getUsedStorage());
+            stats.addProperty("reservedStorage", fileStorage.getReservedStorage());
+            stats.addProperty("segments", fileStorage.getSegmentCount());
+            stats.addProperty("segmentDeadBytes", fileStorage.getSegmentDeadBytes());
+            stats.addProperty("mappedBlobs", fileStorage.getMappedBlobCount());
+            stats.addProperty("mappedBytes", fileStorage.getMappedBytes());
             stats.addProperty("maxMemory", fileStorage.getMaxRam());
             stats.addProperty("maxStorage", fileStorage.getMaxStorage());
             stats.addProperty("memoryUsagePercent", 
@@ -844,6 +1571,10 @@ public class HttpServerWrapper {
                 stats.addProperty("activeUploads", chunkedUploadService.getActiveUploadsCount());
                 stats.addProperty("uploadingBytes", chunkedUploadService.getTotalUploadingBytes());
             }
+            stats.add("pools", poolsJson());
+            if (bandwidthScheduler != null) {
+                stats.add("bandwidth", bandwidthScheduler.toJson());
+            }
             
             sendResponse(exchange, 200, gson.toJson(stats));
         }
@@ -852,7 +1583,6 @@ public class HttpServerWrapper {
     private class DashboardHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            logRequest(exchange);
             setCorsHeaders(exchange);
 
             if (!"GET".equals(exchange.getRequestMethod())) {
@@ -867,14 +1597,16 @@ public class HttpServerWrapper {
                 return;
             }
 
-            // Use the existing DashboardHtml class
-            String html = DashboardHtml.getDashboardHtml();
-
-            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
-            exchange.sendResponseHeaders(200, html.getBytes(StandardCharsets.UTF_8).length);
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(html.getBytes(StandardCharsets.UTF_8));
+            StaticAsset asset = dashboardAssets.get(exchange.getRequestURI().getPath().substring(dashboardPath.length()));
+            if (asset == null) {
+                sendResponse(exchange, 404, "{\"error\":\"Not found\"}");
+                return;
             }
+
+            // Stylesheet and script URLs carry their content hash; the page is revalidated by ETag
+            String scope = dashboardAuth ? "private" : "public";
+            asset.send(exchange, dashboardAssets.isVersioned(asset) 
+                ? scope + ", max-age=31536000, immutable" : scope + ", no-cache");
         }
     }
 
@@ -888,6 +1620,37 @@ public class HttpServerWrapper {
         }
     }
 
+    /**
+     * Write a JSON body as it is produced, with chunked encoding, instead of building the
+     * whole tree and string first. Null values are omitted like Gson does for trees.
+     */
+    private void sendJsonStream(HttpExchange exchange, int statusCode, JsonBody body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(statusCode, 0);
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), bufferSize))) {
+            writer.setSerializeNulls(false);
+            body.write(writer);
+        }
+    }
+
+    @FunctionalInterface
+    private interface JsonBody {
+        void write(JsonWriter writer) throws IOException;
+    }
+
+    /**
+     * Error response for handlers that may already be streaming; once the status line is
+     * out the only way to signal failure is to cut the connection.
+     */
+    private void sendError(HttpExchange exchange, int statusCode, String response) throws IOException {
+        if (exchange.getResponseCode() == -1) {
+            sendResponse(exchange, statusCode, response);
+        } else {
+            exchange.close();
+        }
+    }
+
     private boolean isAuthorized(HttpExchange exchange) {
         String authHeader = exchange.getRequestHeaders().getFirst("Authorization");
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
@@ -909,29 +1672,13 @@ public class HttpServerWrapper {
             Headers headers = exchange.getResponseHeaders();
             headers.set("Access-Control-Allow-Origin", "*");
             headers.set("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
-            headers.set("Access-Control-Allow-Headers", "Content-Type, Authorization, X-Filename, X-Public, X-TTL, X-Tags, X-Category, X-Uploader, X-Description, X-Upload-Id, X-Chunk-Number, X-Total-Size");
+            headers.set("Access-Control-Allow-Headers", "Content-Type, Authorization, X-Filename, X-Public, X-TTL, X-Tags, X-Category, X-Uploader, X-Description, X-Upload-Id, X-Chunk-Number, X-Total-Size, X-Content-SHA256, X-Chunk-SHA256, If-None-Match, If-Modified-Since");
+            headers.set("Access-Control-Expose-Headers", "ETag, Last-Modified, X-Content-SHA256");
             headers.set("Access-Control-Allow-Credentials", "true");
         }
     }
 
-    private void logRequest(HttpExchange exchange) {
-        if (logRequests) {
-            plugin.getLogger().info(exchange.getRequestMethod() + " " + exchange.getRequestURI() + 
-                " from " + getClientIp(exchange));
-        }
-    }
-
     private String getClientIp(HttpExchange exchange) {
-        String xForwardedFor = exchange.getRequestHeaders().getFirst("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
-        }
-        
-        String xRealIp = exchange.getRequestHeaders().getFirst("X-Real-IP");
-        if (xRealIp != null && !xRealIp.isEmpty()) {
-            return xRealIp;
-        }
-        
-        return exchange.getRemoteAddress().getAddress().getHostAddress();
+        return trustedProxies.clientIp(exchange);
     }
 }
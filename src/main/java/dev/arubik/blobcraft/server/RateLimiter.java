@@ -0,0 +1,100 @@
+package dev.arubik.blobcraft.server;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets keyed by client (IP address or uploader name).
+ * Each bucket is a single AtomicLong holding the time at which it will be full again
+ * (the GCRA form of a token bucket), so admitting a request is one CAS and no lock.
+ * Buckets that have refilled completely carry no state and are evicted lazily.
+ */
+public class RateLimiter {
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final double nanosPerToken;
+    private final long burstNanos;
+    private final boolean allowDebt;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    // nanoTime may be negative; measure from construction so an empty bucket (0) is always "full"
+    private final long origin = System.nanoTime();
+    private final AtomicLong nextSweep = new AtomicLong(SWEEP_INTERVAL_NANOS);
+
+    private RateLimiter(double nanosPerToken, long capacity, boolean allowDebt) {
+        this.nanosPerToken = nanosPerToken;
+        this.burstNanos = (long) (nanosPerToken * Math.max(1, capacity));
+        this.allowDebt = allowDebt;
+    }
+
+    /**
+     * At most {@code permits} per {@code windowSeconds}, with bursts of up to {@code permits}.
+     */
+    public static RateLimiter perWindow(long permits, long windowSeconds) {
+        return new RateLimiter((double) TimeUnit.SECONDS.toNanos(Math.max(1, windowSeconds)) / Math.max(1, permits),
+            permits, false);
+    }
+
+    /**
+     * Byte budget of {@code bytesPerSecond}. A transfer is admitted while the client is not
+     * in debt and then charged in full, so large files are never refused outright but
+     * following requests wait until the average rate is back under the limit.
+     */
+    public static RateLimiter bytesPerSecond(long bytesPerSecond) {
+        return new RateLimiter((double) TimeUnit.SECONDS.toNanos(1) / Math.max(1, bytesPerSecond),
+            bytesPerSecond, true);
+    }
+
+    /**
+     * Take {@code cost} tokens from the key's bucket.
+     *
+     * @return 0 if admitted, otherwise how many nanoseconds until it would be
+     */
+    public long tryAcquire(String key, long cost) {
+        long now = System.nanoTime() - origin;
+        sweepIfDue(now);
+
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong());
+        }
+
+        long costNanos = (long) (cost * nanosPerToken);
+        while (true) {
+            long fullAt = bucket.get();
+            long start = Math.max(fullAt, now);
+            long newFullAt = start + costNanos;
+
+            long over = (allowDebt ? start : newFullAt) - now - burstNanos;
+            if (over > 0) {
+                return over;
+            }
+            if (bucket.compareAndSet(fullAt, newFullAt)) {
+                return 0;
+            }
+        }
+    }
+
+    public int getTrackedKeys() {
+        return buckets.size();
+    }
+
+    private void sweepIfDue(long now) {
+        long due = nextSweep.get();
+        if (now < due || !nextSweep.compareAndSet(due, now + SWEEP_INTERVAL_NANOS)) {
+            return;
+        }
+        // A request racing with its bucket's removal is admitted against the detached
+        // bucket; that only errs on the lenient side
+        buckets.entrySet().removeIf(entry -> entry.getValue().get() <= now);
+    }
+
+    /**
+     * Whole seconds for a Retry-After header.
+     */
+    public static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,169 @@
+package dev.arubik.blobcraft.server;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Executor for one class of routes (transfer, metadata, admin).
+ * Each class has its own threads and bounded queue, so a flood of slow transfers
+ * cannot delay health checks. Work that does not fit is rejected instead of queued forever.
+ */
+public class RoutePool {
+
+    /**
+     * What happens when all threads are busy and the queue is full.
+     */
+    public enum Rejection {
+        /** Answer the new request with 503. */
+        REJECT,
+        /** Answer the oldest queued request with 503 and queue the new one. */
+        DROP_OLDEST;
+
+        public static Rejection parse(String value) {
+            return "drop-oldest".equalsIgnoreCase(value) ? DROP_OLDEST : REJECT;
+        }
+    }
+
+    private final String name;
+    private final ExecutorService executor;
+    private final ThreadPoolExecutor pool; // Null for virtual threads, which never queue
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final Rejection rejection;
+
+    private RoutePool(String name, ExecutorService executor) {
+        this.name = name;
+        this.executor = executor;
+        this.pool = null;
+        this.rejection = Rejection.REJECT;
+    }
+
+    private RoutePool(String name, int threads, int queueSize, Rejection rejection) {
+        this.name = name;
+        this.rejection = rejection;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread thread = new Thread(r, "BlobCraft-" + name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.pool = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads),
+            60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(1, queueSize)), factory, this::saturated);
+        this.executor = pool;
+    }
+
+    public static RoutePool fixed(String name, int threads, int queueSize, Rejection rejection) {
+        return new RoutePool(name, threads, queueSize, rejection);
+    }
+
+    /**
+     * One virtual thread per task; returns null if the runtime has no virtual threads.
+     */
+    public static RoutePool virtual(String name) {
+        try {
+            // Looked up reflectively so the plugin still builds and loads on Java 17
+            ExecutorService executor = (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            return new RoutePool(name, executor);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Run the task on this pool. If it is refused, {@code onReject} is called on the
+     * caller's thread; a task dropped from the queue later gets its own callback.
+     */
+    public void submit(Runnable work, Runnable onReject) {
+        try {
+            executor.execute(new Task(work, onReject));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            onReject.run();
+        }
+    }
+
+    private void saturated(Runnable task, ThreadPoolExecutor executor) {
+        if (rejection == Rejection.DROP_OLDEST && !executor.isShutdown()) {
+            Runnable oldest = executor.getQueue().poll();
+            if (oldest instanceof Task) {
+                rejected.increment();
+                ((Task) oldest).reject();
+            }
+            executor.execute(task);
+        } else {
+            throw new RejectedExecutionException(name + " pool is saturated");
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getActive() {
+        return active.get();
+    }
+
+    public int getQueueDepth() {
+        return pool != null ? pool.getQueue().size() : 0;
+    }
+
+    /**
+     * Maximum threads, or -1 for virtual threads.
+     */
+    public int getThreads() {
+        return pool != null ? pool.getMaximumPoolSize() : -1;
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public JsonObject toJson() {
+        JsonObject json = new JsonObject();
+        json.addProperty("active", getActive());
+        json.addProperty("queued", getQueueDepth());
+        json.addProperty("threads", getThreads());
+        json.addProperty("queueCapacity", pool != null ? pool.getQueue().size() + pool.getQueue().remainingCapacity() : -1);
+        json.addProperty("rejected", getRejected());
+        return json;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private class Task implements Runnable {
+        private final Runnable work;
+        private final Runnable onReject;
+
+        Task(Runnable work, Runnable onReject) {
+            this.work = work;
+            this.onReject = onReject;
+        }
+
+        @Override
+        public void run() {
+            active.incrementAndGet();
+            try {
+                work.run();
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+
+        void reject() {
+            onReject.run();
+        }
+    }
+}
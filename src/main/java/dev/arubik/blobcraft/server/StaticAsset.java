@@ -0,0 +1,164 @@
+package dev.arubik.blobcraft.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+import dev.arubik.blobcraft.io.Hashing;
+
+/**
+ * A static response body encoded once up front.
+ * Identity, gzip and deflate variants are kept in memory and picked per request from
+ * Accept-Encoding; each variant has its own strong ETag so caches never mix them up.
+ */
+public class StaticAsset {
+
+    private final String contentType;
+    private final String version;
+    private final byte[] identity;
+    private final byte[] gzip;    // Null when compressing does not make it smaller
+    private final byte[] deflate;
+
+    public StaticAsset(String contentType, byte[] content) throws IOException {
+        this.contentType = contentType;
+        this.version = hash(content);
+        this.identity = content;
+        this.gzip = smallerOrNull(gzip(content), content);
+        this.deflate = smallerOrNull(deflate(content), content);
+    }
+
+    /**
+     * Short content hash, also used to version asset URLs.
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Send the variant the client accepts, or 304 if it already has it.
+     */
+    public void send(HttpExchange exchange, String cacheControl) throws IOException {
+        String encoding = negotiate(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+        byte[] body = "gzip".equals(encoding) ? gzip : "deflate".equals(encoding) ? deflate : identity;
+        String etag = "\"" + version + (encoding != null ? "-" + encoding : "") + "\"";
+
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", contentType);
+        headers.set("Cache-Control", cacheControl);
+        headers.set("ETag", etag);
+        headers.set("Vary", "Accept-Encoding");
+
+        if (matches(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+
+        if (encoding != null) {
+            headers.set("Content-Encoding", encoding);
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    /**
+     * Preferred available coding, or null for identity.
+     */
+    private String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        // -1 = not listed; "*" only covers codings the client did not name, so "gzip;q=0, *" still refuses gzip
+        double gzipQ = -1;
+        double deflateQ = -1;
+        double anyQ = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase();
+            double q = 1;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQ = q;
+            } else if (coding.equals("deflate")) {
+                deflateQ = q;
+            } else if (coding.equals("*")) {
+                anyQ = q;
+            }
+        }
+        if (gzipQ < 0) {
+            gzipQ = Math.max(anyQ, 0);
+        }
+        if (deflateQ < 0) {
+            deflateQ = Math.max(anyQ, 0);
+        }
+        if (gzip != null && gzipQ > 0 && gzipQ >= deflateQ) {
+            return "gzip";
+        }
+        if (deflate != null && deflateQ > 0) {
+            return "deflate";
+        }
+        return null;
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if ("*".equals(tag) || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzos = new GZIPOutputStream(out) {
+            { def.setLevel(Deflater.BEST_COMPRESSION); }
+        }) {
+            gzos.write(content);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] content) throws IOException {
+        // HTTP "deflate" is the zlib format, which is what Deflater writes by default
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream dos = new DeflaterOutputStream(out, deflater)) {
+            dos.write(content);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] smallerOrNull(byte[] encoded, byte[] content) {
+        return encoded.length < content.length ? encoded : null;
+    }
+
+    private static String hash(byte[] content) {
+        return Hashing.sha256Hex(content).substring(0, 16);
+    }
+}
@@ -0,0 +1,255 @@
+package dev.arubik.blobcraft.server;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Reclaims connections from slow or stuck clients.
+ * Request and response bodies are wrapped so the time spent blocked in socket I/O is
+ * measured. A single read or write that blocks longer than its timeout gets the exchange
+ * closed by the watchdog thread, which unblocks the worker; a transfer whose rate over
+ * the time spent in I/O drops below the minimum fails on its next read or write.
+ * Time spent waiting for the bandwidth scheduler does not count against the client.
+ */
+public class TransferWatchdog {
+
+    // Amount of I/O time the minimum rate is averaged over
+    private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    // Writes are split so only the final slice can block after the response length is
+    // fully accounted for (closing the exchange can no longer abort the connection then);
+    // it also stops the JDK stream from allocating a buffer as large as the whole write
+    private static final int WRITE_SLICE = 64 * 1024;
+
+    private final long readTimeoutNanos;
+    private final long writeTimeoutNanos;
+    private final long minBytesPerSecond;
+    private final Logger logger;
+    private final Set<Guard> guards = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService executor;
+
+    public TransferWatchdog(long readTimeoutMs, long writeTimeoutMs, long minBytesPerSecond, Logger logger) {
+        this.readTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(readTimeoutMs);
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMs);
+        this.minBytesPerSecond = minBytesPerSecond;
+        this.logger = logger;
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "BlobCraft-TransferWatchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleWithFixedDelay(this::closeStalled, 1, 1, TimeUnit.SECONDS);
+    }
+
+    public InputStream guardInput(HttpExchange exchange, InputStream in, String client) {
+        return new GuardedInputStream(in, new Guard(exchange, client, readTimeoutNanos));
+    }
+
+    public OutputStream guardOutput(HttpExchange exchange, OutputStream out, String client) {
+        return new GuardedOutputStream(out, new Guard(exchange, client, writeTimeoutNanos));
+    }
+
+    public int getWatchedTransfers() {
+        return guards.size();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void closeStalled() {
+        long now = System.nanoTime();
+        for (Guard guard : guards) {
+            long started = guard.opStartedAt;
+            if (started != 0 && guard.timeoutNanos > 0 && now - started > guard.timeoutNanos) {
+                guard.abort("no progress for " + TimeUnit.NANOSECONDS.toSeconds(now - started) + "s");
+            }
+        }
+    }
+
+    private final class Guard {
+        final HttpExchange exchange;
+        final String client;
+        final long timeoutNanos;
+
+        // Start of the blocking call in progress, 0 when none; read by the watchdog thread
+        volatile long opStartedAt;
+        volatile String abortReason;
+
+        // Only touched by the thread doing the transfer
+        long windowIoNanos;
+        long windowBytes;
+        boolean registered;
+
+        Guard(HttpExchange exchange, String client, long timeoutNanos) {
+            this.exchange = exchange;
+            this.client = client;
+            this.timeoutNanos = timeoutNanos;
+        }
+
+        void begin() throws IOException {
+            checkAborted();
+            if (!registered) {
+                // Watched from the first blocking call, so streams never used are never tracked
+                registered = true;
+                guards.add(this);
+            }
+            opStartedAt = System.nanoTime();
+        }
+
+        void end(long bytes) throws IOException {
+            long elapsed = System.nanoTime() - opStartedAt;
+            opStartedAt = 0;
+            checkAborted();
+            if (bytes <= 0 || minBytesPerSecond <= 0) {
+                return;
+            }
+
+            windowIoNanos += elapsed;
+            windowBytes += bytes;
+            if (windowIoNanos >= RATE_WINDOW_NANOS) {
+                long rate = windowBytes * TimeUnit.SECONDS.toNanos(1) / windowIoNanos;
+                windowIoNanos = 0;
+                windowBytes = 0;
+                if (rate < minBytesPerSecond) {
+                    abort("transfer rate " + rate + " B/s below minimum " + minBytesPerSecond + " B/s");
+                    checkAborted();
+                }
+            }
+        }
+
+        void abort(String reason) {
+            if (abortReason == null) {
+                abortReason = reason;
+                logger.warning("Closing slow connection from " + client + " (" + exchange.getRequestURI() +
+                    "): " + reason);
+                guards.remove(this);
+                exchange.close();
+            }
+        }
+
+        void checkAborted() throws IOException {
+            if (abortReason != null) {
+                throw new SocketTimeoutException("Connection closed: " + abortReason);
+            }
+        }
+
+        void release() {
+            guards.remove(this);
+        }
+    }
+
+    private static final class GuardedInputStream extends FilterInputStream {
+        private final Guard guard;
+
+        GuardedInputStream(InputStream in, Guard guard) {
+            super(in);
+            this.guard = guard;
+        }
+
+        @Override
+        public int read() throws IOException {
+            guard.begin();
+            int b;
+            try {
+                b = in.read();
+            } catch (IOException e) {
+                guard.checkAborted(); // Report the timeout rather than the closed channel
+                throw e;
+            }
+            guard.end(b < 0 ? 0 : 1);
+            if (b < 0) {
+                guard.release();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            guard.begin();
+            int n;
+            try {
+                n = in.read(b, off, len);
+            } catch (IOException e) {
+                guard.checkAborted();
+                throw e;
+            }
+            guard.end(n);
+            if (n < 0) {
+                guard.release(); // Handlers do not always close request bodies
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            guard.release();
+            super.close();
+        }
+    }
+
+    private static final class GuardedOutputStream extends FilterOutputStream {
+        private final Guard guard;
+
+        GuardedOutputStream(OutputStream out, Guard guard) {
+            super(out);
+            this.guard = guard;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int slice = Math.min(len, WRITE_SLICE);
+                guard.begin();
+                try {
+                    out.write(b, off, slice);
+                } catch (IOException e) {
+                    guard.checkAborted();
+                    throw e;
+                }
+                guard.end(slice);
+                off += slice;
+                len -= slice;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            guard.begin();
+            try {
+                out.flush();
+            } catch (IOException e) {
+                guard.checkAborted();
+                throw e;
+            }
+            guard.end(0);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                guard.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package dev.arubik.blobcraft.server;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Resolves the client address of a request. {@code X-Forwarded-For} and {@code X-Real-IP}
+ * are set by whoever sends the request, so they are only believed when the connection
+ * comes from a configured reverse proxy; otherwise the socket peer is the client.
+ * Every per-IP limit and quota is keyed on this address.
+ */
+public class TrustedProxies {
+
+    /** An address block; a single address is a block with the full prefix length. */
+    private static final class Block {
+        final byte[] network;
+        final int prefixLength;
+
+        Block(byte[] network, int prefixLength) {
+            this.network = network;
+            this.prefixLength = prefixLength;
+        }
+
+        boolean contains(byte[] address) {
+            if (address.length != network.length) {
+                return false;
+            }
+            int fullBytes = prefixLength / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (address[i] != network[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefixLength % 8;
+            if (remainingBits == 0) {
+                return true;
+            }
+            int mask = 0xff << (8 - remainingBits);
+            return (address[fullBytes] & mask) == (network[fullBytes] & mask);
+        }
+    }
+
+    private final List<Block> blocks;
+
+    private TrustedProxies(List<Block> blocks) {
+        this.blocks = blocks;
+    }
+
+    /**
+     * @param spec comma-separated addresses or CIDR blocks, e.g. {@code 127.0.0.1, 10.0.0.0/8};
+     *             empty trusts no one
+     */
+    public static TrustedProxies parse(String spec, Logger logger) {
+        List<Block> blocks = new ArrayList<>();
+        if (spec != null) {
+            for (String entry : spec.split(",")) {
+                entry = entry.trim();
+                if (entry.isEmpty()) {
+                    continue;
+                }
+                try {
+                    int slash = entry.indexOf('/');
+                    InetAddress base = parseLiteral(slash == -1 ? entry : entry.substring(0, slash));
+                    if (base == null) {
+                        throw new IllegalArgumentException("not an IP address");
+                    }
+                    byte[] network = base.getAddress();
+                    int prefixLength = slash == -1 ? network.length * 8 : Integer.parseInt(entry.substring(slash + 1));
+                    if (prefixLength < 0 || prefixLength > network.length * 8) {
+                        throw new IllegalArgumentException("prefix length out of range");
+                    }
+                    blocks.add(new Block(network, prefixLength));
+                } catch (IllegalArgumentException e) {
+                    logger.warning("Ignoring invalid trusted proxy '" + entry + "': " + e.getMessage());
+                }
+            }
+        }
+        return new TrustedProxies(List.copyOf(blocks));
+    }
+
+    public boolean isTrusted(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        for (Block block : blocks) {
+            if (block.contains(bytes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String clientIp(HttpExchange exchange) {
+        InetSocketAddress remote = exchange.getRemoteAddress();
+        InetAddress peer = remote.getAddress();
+        if (peer == null) {
+            return remote.getHostString();
+        }
+        if (blocks.isEmpty() || !isTrusted(peer)) {
+            return peer.getHostAddress();
+        }
+
+        // Walk back through the proxy chain to the first hop that is not one of ours
+        String forwardedFor = exchange.getRequestHeaders().getFirst("X-Forwarded-For");
+        if (forwardedFor != null && !forwardedFor.isBlank()) {
+            String[] hops = forwardedFor.split(",");
+            for (int i = hops.length - 1; i >= 0; i--) {
+                String hop = hops[i].trim();
+                if (i == 0 || !isTrustedLiteral(hop)) {
+                    return hop.isEmpty() ? peer.getHostAddress() : hop;
+                }
+            }
+        }
+
+        String realIp = exchange.getRequestHeaders().getFirst("X-Real-IP");
+        if (realIp != null && !realIp.isBlank()) {
+            return realIp.trim();
+        }
+        return peer.getHostAddress();
+    }
+
+    private boolean isTrustedLiteral(String hop) {
+        // Only IP literals can be proxies; anything else is treated as a client-supplied value
+        InetAddress address = parseLiteral(hop);
+        return address != null && isTrusted(address);
+    }
+
+    /** Parses an IPv4 or IPv6 literal without ever falling back to a DNS lookup. */
+    static InetAddress parseLiteral(String value) {
+        if (value.startsWith("[") && value.endsWith("]")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        if (value.indexOf(':') == -1) {
+            String[] octets = value.split("\\.", -1);
+            if (octets.length != 4) {
+                return null;
+            }
+            for (String octet : octets) {
+                if (octet.isEmpty() || octet.length() > 3 || !octet.chars().allMatch(c -> c >= '0' && c <= '9')
+                        || Integer.parseInt(octet) > 255) {
+                    return null;
+                }
+            }
+        }
+        try {
+            // A colon or a dotted quad makes getByName parse rather than resolve
+            return InetAddress.getByName(value);
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+}
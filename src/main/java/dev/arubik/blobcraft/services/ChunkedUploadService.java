@@ -1,11 +1,23 @@
 package dev.arubik.blobcraft.services;
 
+import dev.arubik.blobcraft.io.BufferPool;
+import dev.arubik.blobcraft.io.Hashing;
+import dev.arubik.blobcraft.metrics.BlobMetrics;
 import dev.arubik.blobcraft.models.ChunkedUpload;
 import dev.arubik.blobcraft.models.StoredFile;
+import dev.arubik.blobcraft.profiling.BlobEvents;
 import dev.arubik.blobcraft.storage.FileStorage;
-import org.bukkit.plugin.java.JavaPlugin;
+import dev.arubik.blobcraft.storage.QuotaExceededException;
+import dev.arubik.blobcraft.storage.QuotaManager;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.security.MessageDigest;
 import java.time.Instant;
@@ -14,45 +26,73 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
 
 public class ChunkedUploadService {
     
+    // Per-upload journal in the upload's temp directory: session written once, one line per stored chunk
+    private static final String SESSION_FILE = "session.json";
+    private static final String CHUNK_JOURNAL = "chunks.journal";
+    
     private final Map<String, ChunkedUpload> activeUploads;
+    private final Map<String, QuotaManager.Reservation> reservations = new ConcurrentHashMap<>();
     private final Path tempUploadDir;
     private final FileStorage fileStorage;
-    private final JavaPlugin plugin;
+    private final Logger logger;
     private final ScheduledExecutorService cleanupExecutor;
     private final int chunkSize;
     private final long maxFileSize;
     private final boolean enableStreamingCompression;
+    private final int maxConcurrentPerIp;
+    private final BufferPool bufferPool;
+    private final Gson gson = new Gson();
+    
+    // Serializes the per-IP session count check with registering the new session
+    private final Object sessionLock = new Object();
     
-    public ChunkedUploadService(FileStorage fileStorage, JavaPlugin plugin, 
+    public ChunkedUploadService(FileStorage fileStorage, Path dataFolder, Logger logger, 
                                String tempUploadPath, int chunkSize, long maxFileSize,
-                               boolean enableStreamingCompression) {
+                               boolean enableStreamingCompression, int maxConcurrentPerIp,
+                               BufferPool bufferPool) {
         this.activeUploads = new ConcurrentHashMap<>();
         this.fileStorage = fileStorage;
-        this.plugin = plugin;
+        this.logger = logger;
         this.chunkSize = chunkSize;
         this.maxFileSize = maxFileSize;
         this.enableStreamingCompression = enableStreamingCompression;
+        this.maxConcurrentPerIp = maxConcurrentPerIp;
+        this.bufferPool = bufferPool;
         
         // Create temp directory
-        this.tempUploadDir = Paths.get(plugin.getDataFolder().getAbsolutePath(), tempUploadPath);
+        this.tempUploadDir = dataFolder.toAbsolutePath().resolve(tempUploadPath);
         try {
             Files.createDirectories(tempUploadDir);
-            plugin.getLogger().info("Chunked upload temp directory: " + tempUploadDir.toString());
+            logger.info("Chunked upload temp directory: " + tempUploadDir.toString());
         } catch (IOException e) {
-            plugin.getLogger().severe("Failed to create temp upload directory: " + e.getMessage());
+            logger.severe("Failed to create temp upload directory: " + e.getMessage());
         }
         
         // Start cleanup task
-        this.cleanupExecutor = Executors.newSingleThreadScheduledExecutor();
+        this.cleanupExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "BlobCraft-UploadCleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
         this.cleanupExecutor.scheduleAtFixedRate(this::cleanupExpiredUploads, 5, 30, TimeUnit.MINUTES);
         
-        plugin.getLogger().info("ChunkedUploadService initialized:");
-        plugin.getLogger().info("- Chunk size: " + (chunkSize / 1024 / 1024) + "MB");
-        plugin.getLogger().info("- Max file size: " + (maxFileSize / 1024 / 1024) + "MB");
-        plugin.getLogger().info("- Temp directory: " + tempUploadDir.toString());
+        restoreUploads();
+        
+        // Finished sessions stay registered until they expire, so only count unfinished ones
+        BlobMetrics.UPLOADS.register(() -> activeUploads.values().stream()
+            .filter(upload -> !upload.isCompleted()).count(), "uploads");
+        BlobMetrics.UPLOADS.register(() -> activeUploads.values().stream()
+            .filter(upload -> !upload.isCompleted()).mapToLong(ChunkedUpload::getUploadedBytes).sum(), 
+            "received_bytes");
+        
+        logger.info("ChunkedUploadService initialized:");
+        logger.info("- Chunk size: " + (chunkSize / 1024 / 1024) + "MB");
+        logger.info("- Max file size: " + (maxFileSize / 1024 / 1024) + "MB");
+        logger.info("- Temp directory: " + tempUploadDir.toString());
     }
     
     /**
@@ -60,7 +100,7 @@ public class ChunkedUploadService {
      */
     public ChunkedUpload initializeUpload(String filename, long totalSize, boolean isPublic,
                                         Long ttlSeconds, Map<String, String> metadata,
-                                        String uploaderIp, String uploaderAgent) {
+                                        String uploaderIp, String uploaderAgent, String expectedSha256) {
         
         if (totalSize > maxFileSize) {
             throw new IllegalArgumentException("File size exceeds maximum allowed size: " + 
@@ -72,24 +112,35 @@ public class ChunkedUploadService {
         }
         
         String uploadId = generateUploadId();
-        
         ChunkedUpload upload = new ChunkedUpload(uploadId, filename, totalSize, chunkSize,
-                isPublic, ttlSeconds, metadata, uploaderIp, uploaderAgent);
+                isPublic, ttlSeconds, metadata, uploaderIp, uploaderAgent, expectedSha256);
         
-        activeUploads.put(uploadId, upload);
+        synchronized (sessionLock) {
+            if (maxConcurrentPerIp > 0 && countInProgress(uploaderIp) >= maxConcurrentPerIp) {
+                throw new UploadLimitException("Too many uploads in progress for " + uploaderIp + 
+                    " (max " + maxConcurrentPerIp + ")");
+            }
+            
+            // Debit the full size now so parallel uploads are rejected before any chunk is sent
+            String uploader = metadata != null ? metadata.get("uploader") : null;
+            reservations.put(uploadId, fileStorage.reserveStorage(totalSize, uploaderIp, uploader));
+            activeUploads.put(uploadId, upload);
+        }
         
         // Create temp directory for this upload
         try {
             Path uploadPath = tempUploadDir.resolve(uploadId);
             Files.createDirectories(uploadPath);
-            plugin.getLogger().info("Created upload directory: " + uploadPath.toString());
+            writeSession(upload, uploadPath);
+            logger.fine("Created upload directory: " + uploadPath.toString());
         } catch (IOException e) {
-            plugin.getLogger().warning("Failed to create upload directory for " + uploadId + ": " + e.getMessage());
+            logger.warning("Failed to create upload directory for " + uploadId + ": " + e.getMessage());
             activeUploads.remove(uploadId);
+            releaseReservation(uploadId);
             throw new RuntimeException("Failed to create upload directory", e);
         }
         
-        plugin.getLogger().info("Initialized chunked upload: " + uploadId + " for file: " + filename + 
+        logger.fine("Initialized chunked upload: " + uploadId + " for file: " + filename + 
             " (" + (totalSize / 1024 / 1024) + "MB, " + upload.getTotalChunks() + " chunks)");
         return upload;
     }
@@ -97,141 +148,325 @@ public class ChunkedUploadService {
     /**
      * Upload a chunk of data
      */
-    public synchronized boolean uploadChunk(String uploadId, int chunkNumber, byte[] chunkData) {
+    public boolean uploadChunk(String uploadId, int chunkNumber, byte[] chunkData) {
+        return uploadChunk(uploadId, chunkNumber, new ByteArrayInputStream(chunkData != null ? chunkData : new byte[0]), 
+            null);
+    }
+    
+    /**
+     * Upload a chunk straight from the request body. The body is copied to the chunk's
+     * temp file through a pooled buffer, so a chunk is never held in memory whole.
+     * A body that fails leaves the chunk unrecorded and its partial file removed.
+     * The chunk is hashed as it is read, and so is the whole file while chunks arrive in order.
+     *
+     * @param expectedSha256 hex SHA-256 the client declared for this chunk, or null
+     * @throws IntegrityException if the chunk, or the assembled file, does not match its declared hash
+     * @throws IllegalArgumentException if the body is not exactly the chunk's length
+     */
+    public boolean uploadChunk(String uploadId, int chunkNumber, InputStream input, String expectedSha256) {
         ChunkedUpload upload = activeUploads.get(uploadId);
         if (upload == null) {
-            plugin.getLogger().warning("Upload not found: " + uploadId);
+            logger.warning("Upload not found: " + uploadId);
             return false;
         }
         
         if (upload.isExpired()) {
-            plugin.getLogger().warning("Upload expired: " + uploadId);
-            activeUploads.remove(uploadId);
+            logger.warning("Upload expired: " + uploadId);
+            if (activeUploads.remove(uploadId) != null) {
+                BlobMetrics.CHUNKED_UPLOADS.labels("expired").increment();
+            }
+            releaseReservation(uploadId);
             cleanupUploadFiles(uploadId);
             return false;
         }
         
         if (chunkNumber < 0 || chunkNumber >= upload.getTotalChunks()) {
-            plugin.getLogger().warning("Invalid chunk number " + chunkNumber + " for upload " + uploadId + 
+            logger.warning("Invalid chunk number " + chunkNumber + " for upload " + uploadId + 
                 " (expected 0-" + (upload.getTotalChunks() - 1) + ")");
             return false;
         }
         
         if (upload.hasChunk(chunkNumber)) {
-            plugin.getLogger().info("Chunk already uploaded: " + chunkNumber + " for upload: " + uploadId);
+            logger.fine("Chunk already uploaded: " + chunkNumber + " for upload: " + uploadId);
             return true; // Already have this chunk
         }
         
-        if (chunkData == null || chunkData.length == 0) {
-            plugin.getLogger().warning("Empty chunk data for chunk " + chunkNumber + " in upload " + uploadId);
-            return false;
-        }
-        
+        MessageDigest digest = Hashing.sha256();
+        long expectedLength = upload.getChunkLength(chunkNumber);
+        Path uploadPath = tempUploadDir.resolve(uploadId);
+        Path chunkPath = chunkPath(uploadPath, chunkNumber);
+        boolean stored = false;
         try {
+            long start = System.nanoTime();
             // Save chunk to temp file
-            Path uploadPath = tempUploadDir.resolve(uploadId);
-            Path chunkPath = uploadPath.resolve("chunk_" + String.format("%06d", chunkNumber));
+            MessageDigest fileDigest = upload.forkContentDigest(chunkNumber);
+            BlobEvents.DiskWrite writeEvent = new BlobEvents.DiskWrite();
+            writeEvent.begin();
+            long chunkLength = 0;
+            try (BufferPool.Lease lease = bufferPool.acquire();
+                 FileChannel channel = FileChannel.open(chunkPath, StandardOpenOption.CREATE, 
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                OutputStream out = Channels.newOutputStream(channel);
+                byte[] buffer = lease.buffer();
+                int bytesRead;
+                while ((bytesRead = input.read(buffer)) != -1) {
+                    chunkLength += bytesRead;
+                    if (chunkLength > expectedLength) {
+                        // Stop reading; the rest of the body is not worth storing
+                        throw new IllegalArgumentException("Chunk " + chunkNumber + " exceeds its length of " + 
+                            expectedLength + " bytes");
+                    }
+                    out.write(buffer, 0, bytesRead);
+                    digest.update(buffer, 0, bytesRead);
+                    if (fileDigest != null) {
+                        fileDigest.update(buffer, 0, bytesRead);
+                    }
+                }
+                // On disk before the journal vouches for it; restore trusts journaled chunks as they are
+                channel.force(false);
+            }
+            writeEvent.end();
+            if (writeEvent.shouldCommit()) {
+                writeEvent.target = "chunk";
+                writeEvent.id = uploadId;
+                writeEvent.bytes = chunkLength;
+                writeEvent.commit();
+            }
             
-            Files.write(chunkPath, chunkData, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (chunkLength != expectedLength) {
+                throw new IllegalArgumentException("Chunk " + chunkNumber + " has " + chunkLength + 
+                    " bytes, expected " + expectedLength);
+            }
             
-            // Calculate checksum
-            String checksum = calculateChecksum(chunkData);
+            String checksum = Hashing.hex(digest.digest());
+            if (expectedSha256 != null && !expectedSha256.equalsIgnoreCase(checksum)) {
+                throw new IntegrityException("Chunk " + chunkNumber + " SHA-256 mismatch: expected " + 
+                    expectedSha256 + ", received " + checksum);
+            }
             
             // Add chunk to upload
-            upload.addChunk(chunkNumber, chunkData.length, checksum);
+            upload.addChunk(chunkNumber, chunkLength, checksum);
+            stored = true;
+            upload.advanceContentDigest(chunkNumber, fileDigest);
+            journalChunk(upload, uploadPath, chunkNumber, chunkLength, checksum);
+            BlobMetrics.CHUNK_WRITE_DURATION.observeSince(start);
             
-            plugin.getLogger().info("Uploaded chunk " + chunkNumber + "/" + upload.getTotalChunks() + 
+            logger.fine("Uploaded chunk " + chunkNumber + "/" + upload.getTotalChunks() + 
                 " for " + uploadId + " (" + String.format("%.1f", upload.getProgress()) + "%, " + 
-                chunkData.length + " bytes)");
+                chunkLength + " bytes)");
             
-            // Check if upload is complete
-            if (upload.isComplete()) {
-                plugin.getLogger().info("Upload complete, finalizing: " + uploadId);
-                return finalizeUpload(uploadId);
+            // Check if upload is complete; only one request runs the finalization
+            if (upload.isComplete() && upload.tryBeginFinalize()) {
+                return completeUpload(upload);
             }
             
             return true;
             
         } catch (IOException e) {
-            plugin.getLogger().severe("Failed to save chunk " + chunkNumber + " for upload " + uploadId + ": " + e.getMessage());
+            logger.severe("Failed to save chunk " + chunkNumber + " for upload " + uploadId + ": " + e.getMessage());
             return false;
+        } finally {
+            // Drop a partial or rejected chunk file, unless a parallel request stored this chunk meanwhile
+            if (!stored && !upload.hasChunk(chunkNumber)) {
+                try {
+                    Files.deleteIfExists(chunkPath);
+                } catch (IOException e) {
+                    logger.fine("Failed to delete partial chunk " + chunkPath + ": " + e.getMessage());
+                }
+            }
         }
     }
     
+    /**
+     * Finalize an upload whose chunks are all in, for the caller that won {@link ChunkedUpload#tryBeginFinalize()}.
+     *
+     * @throws IntegrityException if the assembled file does not match its declared hash; the session is discarded
+     */
+    private boolean completeUpload(ChunkedUpload upload) {
+        String uploadId = upload.getUploadId();
+        logger.fine("Upload complete, finalizing: " + uploadId);
+        long finalizeStart = System.nanoTime();
+        BlobEvents.ChunkFinalize finalizeEvent = new BlobEvents.ChunkFinalize();
+        finalizeEvent.begin();
+        boolean finalized;
+        try {
+            finalized = finalizeUpload(uploadId);
+        } catch (IntegrityException e) {
+            // Every chunk is in but the file is wrong, so the session cannot recover
+            BlobMetrics.CHUNKED_UPLOADS.labels("failed").increment();
+            activeUploads.remove(uploadId);
+            releaseReservation(uploadId);
+            cleanupUploadFiles(uploadId);
+            throw e;
+        }
+        BlobMetrics.FINALIZE_DURATION.observeSince(finalizeStart);
+        finalizeEvent.end();
+        if (finalizeEvent.shouldCommit()) {
+            finalizeEvent.uploadId = uploadId;
+            finalizeEvent.chunks = upload.getTotalChunks();
+            finalizeEvent.bytes = upload.getTotalSize();
+            finalizeEvent.success = finalized;
+            finalizeEvent.commit();
+        }
+        BlobMetrics.CHUNKED_UPLOADS.labels(finalized ? "completed" : "failed").increment();
+        if (!finalized) {
+            upload.abortFinalize();
+        }
+        return finalized;
+    }
+    
+    /**
+     * Fill a chunk from content the server already stores instead of receiving it.
+     * Clients send only the chunk's hash first and fall back to sending the bytes when
+     * this returns false, which is also the answer for content this upload may not reuse.
+     *
+     * @throws IntegrityException if this was the last chunk and the assembled file does not match its declared hash
+     */
+    public boolean reuseChunk(String uploadId, int chunkNumber, String sha256) {
+        ChunkedUpload upload = getUpload(uploadId);
+        if (upload == null || chunkNumber < 0 || chunkNumber >= upload.getTotalChunks()) {
+            return false;
+        }
+        if (upload.hasChunk(chunkNumber)) {
+            return true;
+        }
+        
+        int length = (int) upload.getChunkLength(chunkNumber);
+        byte[] data;
+        try {
+            data = fileStorage.readChunk(sha256, length, upload.isPublic(), upload.getUploaderIp(), 
+                upload.getMetadata().get("uploader"));
+        } catch (IOException e) {
+            logger.warning("Failed to read stored chunk " + sha256 + ": " + e.getMessage());
+            return false;
+        }
+        if (data == null) {
+            return false;
+        }
+        
+        // Already verified against the hash by readChunk
+        logger.fine("Reusing stored content for chunk " + chunkNumber + " of upload " + uploadId);
+        return uploadChunk(uploadId, chunkNumber, new ByteArrayInputStream(data), null);
+    }
+    
     /**
      * Finalize upload by combining all chunks
      */
     private boolean finalizeUpload(String uploadId) {
         ChunkedUpload upload = activeUploads.get(uploadId);
         if (upload == null) {
-            plugin.getLogger().warning("Upload not found during finalization: " + uploadId);
+            logger.warning("Upload not found during finalization: " + uploadId);
             return false;
         }
         
-        plugin.getLogger().info("Finalizing upload: " + uploadId + " (" + upload.getFilename() + ")");
+        logger.fine("Finalizing upload: " + uploadId + " (" + upload.getFilename() + ")");
         
         try {
             Path uploadPath = tempUploadDir.resolve(uploadId);
             
             if (!Files.exists(uploadPath)) {
-                plugin.getLogger().severe("Upload directory missing: " + uploadPath);
+                logger.severe("Upload directory missing: " + uploadPath);
                 return false;
             }
             
-            // Combine all chunks using streaming to handle large files
-            ByteArrayOutputStream combinedStream = new ByteArrayOutputStream();
-            long totalBytesRead = 0;
-            
+            // Verify file size from the chunk files before allocating anything
+            long combinedSize = 0;
             for (int i = 0; i < upload.getTotalChunks(); i++) {
-                Path chunkPath = uploadPath.resolve("chunk_" + String.format("%06d", i));
+                Path chunkPath = chunkPath(uploadPath, i);
                 
                 if (!Files.exists(chunkPath)) {
-                    plugin.getLogger().severe("Missing chunk " + i + " for upload " + uploadId + 
+                    logger.severe("Missing chunk " + i + " for upload " + uploadId + 
                         " at path: " + chunkPath);
                     return false;
                 }
+                combinedSize += Files.size(chunkPath);
+            }
+            
+            if (combinedSize != upload.getTotalSize()) {
+                logger.severe("File size mismatch for upload " + uploadId + 
+                    ". Expected: " + upload.getTotalSize() + ", Got: " + combinedSize);
+                return false;
+            }
+            
+            if (combinedSize > Integer.MAX_VALUE - 8) {
+                logger.severe("Upload " + uploadId + " is too large to store in memory: " + combinedSize + " bytes");
+                return false;
+            }
+            
+            // Read every chunk straight into its place in the final array, hashing the
+            // chunks that arrived out of order and were left out of the running digest
+            MessageDigest contentDigest = upload.getContentDigest();
+            int digestedChunks = upload.getDigestedChunks();
+            byte[] finalData = new byte[(int) combinedSize];
+            int offset = 0;
+            for (int i = 0; i < upload.getTotalChunks(); i++) {
+                Path chunkPath = chunkPath(uploadPath, i);
                 
-                try {
-                    byte[] chunkData = Files.readAllBytes(chunkPath);
-                    combinedStream.write(chunkData);
-                    totalBytesRead += chunkData.length;
+                try (InputStream in = Files.newInputStream(chunkPath)) {
+                    int length = (int) Files.size(chunkPath);
+                    if (in.readNBytes(finalData, offset, length) != length) {
+                        logger.severe("Chunk " + i + " for upload " + uploadId + " changed while combining");
+                        return false;
+                    }
+                    if (i >= digestedChunks) {
+                        contentDigest.update(finalData, offset, length);
+                    }
+                    offset += length;
                     
                     if (i % 10 == 0 || i == upload.getTotalChunks() - 1) {
-                        plugin.getLogger().info("Combined chunk " + i + "/" + upload.getTotalChunks() + 
-                            " (" + (totalBytesRead / 1024 / 1024) + "MB)");
+                        logger.fine("Combined chunk " + i + "/" + upload.getTotalChunks() + 
+                            " (" + (offset / 1024 / 1024) + "MB)");
                     }
                 } catch (IOException e) {
-                    plugin.getLogger().severe("Failed to read chunk " + i + " for upload " + uploadId + ": " + e.getMessage());
+                    logger.severe("Failed to read chunk " + i + " for upload " + uploadId + ": " + e.getMessage());
                     return false;
                 }
             }
             
-            byte[] finalData = combinedStream.toByteArray();
+            logger.fine("Successfully combined " + upload.getTotalChunks() + " chunks into " + 
+                (finalData.length / 1024 / 1024) + "MB file for upload " + uploadId);
             
-            // Verify file size
-            if (finalData.length != upload.getTotalSize()) {
-                plugin.getLogger().severe("File size mismatch for upload " + uploadId + 
-                    ". Expected: " + upload.getTotalSize() + ", Got: " + finalData.length);
-                return false;
+            String sha256 = Hashing.hex(contentDigest.digest());
+            if (upload.getExpectedSha256() != null && !upload.getExpectedSha256().equalsIgnoreCase(sha256)) {
+                throw new IntegrityException("File SHA-256 mismatch: expected " + upload.getExpectedSha256() + 
+                    ", assembled " + sha256);
             }
             
-            plugin.getLogger().info("Successfully combined " + upload.getTotalChunks() + " chunks into " + 
-                (finalData.length / 1024 / 1024) + "MB file for upload " + uploadId);
+            // Give up the session before storing, so a crash before the cleanup cannot make the
+            // restart store the file again; a crash before the store loses an unacknowledged upload
+            Files.deleteIfExists(uploadPath.resolve(SESSION_FILE));
             
             // Store the final file
-            StoredFile storedFile = fileStorage.storeFile(
-                upload.getFilename(),
-                finalData,
-                upload.isPublic(),
-                upload.getTtlSeconds(),
-                upload.getUploaderIp(),
-                upload.getUploaderAgent(),
-                upload.getMetadata()
-            );
+            StoredFile storedFile;
+            try {
+                storedFile = fileStorage.storeFile(
+                    upload.getFilename(),
+                    finalData,
+                    upload.isPublic(),
+                    upload.getTtlSeconds(),
+                    upload.getUploaderIp(),
+                    upload.getUploaderAgent(),
+                    upload.getMetadata(),
+                    reservations.get(uploadId),
+                    sha256
+                );
+            } catch (RuntimeException e) {
+                writeSession(upload, uploadPath); // Still resumable after a restart
+                throw e;
+            }
             
             if (storedFile != null) {
+                reservations.remove(uploadId); // Committed by storeFile
+                Map<Integer, ChunkedUpload.ChunkInfo> chunks = upload.getChunks();
+                List<String> chunkHashes = new ArrayList<>(upload.getTotalChunks());
+                for (int i = 0; i < upload.getTotalChunks(); i++) {
+                    chunkHashes.add(chunks.get(i).getChecksum());
+                }
+                fileStorage.recordChunks(storedFile.getId(), upload.getChunkSize(), chunkHashes);
+                // The last chunk's response reports completion, so the file must be in the index on disk
+                fileStorage.flushIndex().join();
                 upload.markCompleted(storedFile.getId());
-                plugin.getLogger().info("Successfully finalized upload " + uploadId + 
+                logger.info("Successfully finalized upload " + uploadId + 
                     " as file " + storedFile.getId() + " (" + storedFile.getFilename() + ")");
                 
                 // Cleanup temp files
@@ -239,13 +474,16 @@ public class ChunkedUploadService {
                 
                 return true;
             } else {
-                plugin.getLogger().severe("Failed to store final file for upload " + uploadId + 
+                logger.severe("Failed to store final file for upload " + uploadId + 
                     " - storage limit may be exceeded");
+                writeSession(upload, uploadPath);
                 return false;
             }
             
+        } catch (IntegrityException e) {
+            throw e;
         } catch (Exception e) {
-            plugin.getLogger().severe("Failed to finalize upload " + uploadId + ": " + e.getMessage());
+            logger.severe("Failed to finalize upload " + uploadId + ": " + e.getMessage());
             e.printStackTrace();
             return false;
         }
@@ -257,7 +495,10 @@ public class ChunkedUploadService {
     public ChunkedUpload getUpload(String uploadId) {
         ChunkedUpload upload = activeUploads.get(uploadId);
         if (upload != null && upload.isExpired()) {
-            activeUploads.remove(uploadId);
+            if (activeUploads.remove(uploadId) != null) {
+                BlobMetrics.CHUNKED_UPLOADS.labels("expired").increment();
+            }
+            releaseReservation(uploadId);
             cleanupUploadFiles(uploadId);
             return null;
         }
@@ -270,8 +511,10 @@ public class ChunkedUploadService {
     public boolean cancelUpload(String uploadId) {
         ChunkedUpload upload = activeUploads.remove(uploadId);
         if (upload != null) {
+            BlobMetrics.CHUNKED_UPLOADS.labels("cancelled").increment();
+            releaseReservation(uploadId);
             cleanupUploadFiles(uploadId);
-            plugin.getLogger().info("Cancelled upload: " + uploadId + " (" + upload.getFilename() + ")");
+            logger.info("Cancelled upload: " + uploadId + " (" + upload.getFilename() + ")");
             return true;
         }
         return false;
@@ -311,14 +554,33 @@ public class ChunkedUploadService {
         
         for (String uploadId : expiredUploads) {
             ChunkedUpload upload = activeUploads.remove(uploadId);
+            releaseReservation(uploadId);
             cleanupUploadFiles(uploadId);
             if (upload != null) {
-                plugin.getLogger().info("Cleaned up expired upload: " + uploadId + " (" + upload.getFilename() + ")");
+                BlobMetrics.CHUNKED_UPLOADS.labels("expired").increment();
+                logger.info("Cleaned up expired upload: " + uploadId + " (" + upload.getFilename() + ")");
             }
         }
         
         if (!expiredUploads.isEmpty()) {
-            plugin.getLogger().info("Cleaned up " + expiredUploads.size() + " expired uploads");
+            logger.info("Cleaned up " + expiredUploads.size() + " expired uploads");
+        }
+    }
+    
+    private int countInProgress(String uploaderIp) {
+        int count = 0;
+        for (ChunkedUpload upload : activeUploads.values()) {
+            if (!upload.isCompleted() && !upload.isExpired() && upload.getUploaderIp().equals(uploaderIp)) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    private void releaseReservation(String uploadId) {
+        QuotaManager.Reservation reservation = reservations.remove(uploadId);
+        if (reservation != null) {
+            reservation.release();
         }
     }
     
@@ -333,41 +595,216 @@ public class ChunkedUploadService {
                         try {
                             Files.delete(path);
                         } catch (IOException e) {
-                            plugin.getLogger().warning("Failed to delete: " + path + " - " + e.getMessage());
+                            logger.warning("Failed to delete: " + path + " - " + e.getMessage());
                         }
                     });
-                plugin.getLogger().info("Cleaned up temp files for upload: " + uploadId);
+                logger.fine("Cleaned up temp files for upload: " + uploadId);
             }
         } catch (IOException e) {
-            plugin.getLogger().warning("Failed to cleanup upload files for " + uploadId + ": " + e.getMessage());
+            logger.warning("Failed to cleanup upload files for " + uploadId + ": " + e.getMessage());
         }
     }
     
-    private String generateUploadId() {
-        return UUID.randomUUID().toString().replace("-", "");
+    private static Path chunkPath(Path uploadPath, int chunkNumber) {
+        return uploadPath.resolve("chunk_" + String.format("%06d", chunkNumber));
     }
     
-    private String calculateChecksum(byte[] data) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] hash = md.digest(data);
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
+    private void writeSession(ChunkedUpload upload, Path uploadPath) throws IOException {
+        JsonObject json = new JsonObject();
+        json.addProperty("uploadId", upload.getUploadId());
+        json.addProperty("filename", upload.getFilename());
+        json.addProperty("totalSize", upload.getTotalSize());
+        json.addProperty("chunkSize", upload.getChunkSize());
+        json.addProperty("isPublic", upload.isPublic());
+        json.addProperty("ttlSeconds", upload.getTtlSeconds());
+        JsonObject metaJson = new JsonObject();
+        for (Map.Entry<String, String> entry : upload.getMetadata().entrySet()) {
+            metaJson.addProperty(entry.getKey(), entry.getValue());
+        }
+        json.add("metadata", metaJson);
+        json.addProperty("uploaderIp", upload.getUploaderIp());
+        json.addProperty("uploaderAgent", upload.getUploaderAgent());
+        json.addProperty("expectedSha256", upload.getExpectedSha256());
+        json.addProperty("createdAt", upload.getCreatedAt().toString());
+        json.addProperty("expiresAt", upload.getExpiresAt().toString());
+        
+        // Written once, atomically, so a restart never sees half a session
+        Path tempFile = uploadPath.resolve(SESSION_FILE + ".tmp");
+        Files.writeString(tempFile, gson.toJson(json));
+        Files.move(tempFile, uploadPath.resolve(SESSION_FILE), StandardCopyOption.REPLACE_EXISTING, 
+            StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private ChunkedUpload readSession(Path uploadPath) throws IOException {
+        JsonObject json = gson.fromJson(Files.readString(uploadPath.resolve(SESSION_FILE)), JsonObject.class);
+        Map<String, String> metadata = new HashMap<>();
+        for (Map.Entry<String, JsonElement> entry : json.getAsJsonObject("metadata").entrySet()) {
+            metadata.put(entry.getKey(), entry.getValue().getAsString());
+        }
+        return new ChunkedUpload(
+            json.get("uploadId").getAsString(),
+            json.get("filename").getAsString(),
+            json.get("totalSize").getAsLong(),
+            json.get("chunkSize").getAsInt(),
+            json.get("isPublic").getAsBoolean(),
+            json.has("ttlSeconds") && !json.get("ttlSeconds").isJsonNull() ? json.get("ttlSeconds").getAsLong() : null,
+            metadata,
+            json.get("uploaderIp").getAsString(),
+            optionalString(json, "uploaderAgent"),
+            optionalString(json, "expectedSha256"),
+            Instant.parse(json.get("createdAt").getAsString()),
+            Instant.parse(json.get("expiresAt").getAsString()));
+    }
+    
+    private static String optionalString(JsonObject json, String key) {
+        return json.has(key) && !json.get(key).isJsonNull() ? json.get(key).getAsString() : null;
+    }
+    
+    /**
+     * Record a stored chunk, already synced to disk, as "number size sha256". The line itself
+     * is not synced: a chunk whose line is lost in a crash is re-hashed from its file on restore.
+     */
+    private void journalChunk(ChunkedUpload upload, Path uploadPath, int chunkNumber, long size, String checksum) {
+        String line = chunkNumber + " " + size + " " + checksum + "\n";
+        synchronized (upload) {
+            try {
+                Files.writeString(uploadPath.resolve(CHUNK_JOURNAL), line, StandardCharsets.US_ASCII,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                logger.warning("Failed to journal chunk " + chunkNumber + " of upload " + 
+                    upload.getUploadId() + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Rebuild the sessions left in the temp directory by a previous run, so clients can
+     * resume them. Each gets its quota reserved again; sessions that expired meanwhile,
+     * no longer fit the quota, have no readable session file or were being finalized are
+     * discarded.
+     */
+    private void restoreUploads() {
+        List<Path> uploadPaths = new ArrayList<>();
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(tempUploadDir, Files::isDirectory)) {
+            directories.forEach(uploadPaths::add);
+        } catch (IOException e) {
+            logger.warning("Failed to scan temp upload directory: " + e.getMessage());
+            return;
+        }
+        
+        int restored = 0;
+        for (Path uploadPath : uploadPaths) {
+            String uploadId = uploadPath.getFileName().toString();
+            if (!Files.exists(uploadPath.resolve(SESSION_FILE))) {
+                // Stored as a file, or being stored, when the previous run stopped
+                logger.fine("Removing leftovers of finalized upload " + uploadId);
+                cleanupUploadFiles(uploadId);
+                continue;
+            }
+            ChunkedUpload upload;
+            try {
+                upload = readSession(uploadPath);
+            } catch (IOException | RuntimeException e) {
+                logger.warning("Discarding upload " + uploadId + " without a readable session: " + e.getMessage());
+                cleanupUploadFiles(uploadId);
+                continue;
+            }
+            if (upload.isExpired() || !upload.getUploadId().equals(uploadId)) {
+                cleanupUploadFiles(uploadId);
+                continue;
+            }
+            
+            try {
+                String uploader = upload.getMetadata().get("uploader");
+                reservations.put(uploadId, fileStorage.reserveStorage(upload.getTotalSize(), 
+                    upload.getUploaderIp(), uploader));
+            } catch (QuotaExceededException e) {
+                logger.warning("Discarding upload " + uploadId + " after restart: " + e.getMessage());
+                cleanupUploadFiles(uploadId);
+                continue;
+            }
+            
+            try {
+                restoreChunks(upload, uploadPath);
+            } catch (IOException e) {
+                logger.warning("Failed to read chunks of upload " + uploadId + ": " + e.getMessage());
+            }
+            activeUploads.put(uploadId, upload);
+            restored++;
+            
+            // Every chunk arrived but the previous run stopped before storing the file
+            if (upload.isComplete() && upload.tryBeginFinalize()) {
+                cleanupExecutor.execute(() -> {
+                    try {
+                        completeUpload(upload);
+                    } catch (IntegrityException e) {
+                        logger.warning("Discarded restored upload " + uploadId + ": " + e.getMessage());
+                    }
+                });
+            }
+        }
+        
+        if (restored > 0) {
+            logger.info("Restored " + restored + " chunked uploads from " + tempUploadDir);
+        }
+    }
+    
+    private void restoreChunks(ChunkedUpload upload, Path uploadPath) throws IOException {
+        Map<Integer, String[]> journal = new HashMap<>();
+        Path journalPath = uploadPath.resolve(CHUNK_JOURNAL);
+        if (Files.exists(journalPath)) {
+            for (String line : Files.readAllLines(journalPath, StandardCharsets.US_ASCII)) {
+                String[] fields = line.split(" ");
+                if (fields.length == 3) {
+                    try {
+                        journal.put(Integer.parseInt(fields[0]), fields); // A torn last line fails to parse or match
+                    } catch (NumberFormatException e) {
+                        // Skip it
+                    }
                 }
-                hexString.append(hex);
             }
-            return hexString.toString();
-        } catch (Exception e) {
-            plugin.getLogger().warning("Failed to calculate checksum: " + e.getMessage());
-            return "unknown";
         }
+        
+        for (int i = 0; i < upload.getTotalChunks(); i++) {
+            Path chunkPath = chunkPath(uploadPath, i);
+            if (!Files.exists(chunkPath)) {
+                continue;
+            }
+            long size = Files.size(chunkPath);
+            long expected = upload.getChunkLength(i);
+            String[] entry = journal.get(i);
+            
+            String checksum;
+            if (entry != null && entry[1].equals(Long.toString(size)) && entry[2].length() == 64) {
+                checksum = entry[2];
+            } else if (size == expected) {
+                checksum = hashFile(chunkPath); // Fully written but not journaled before the restart
+            } else {
+                Files.deleteIfExists(chunkPath); // Cut off mid-write; the client sends it again
+                continue;
+            }
+            upload.addChunk(i, size, checksum);
+        }
+    }
+    
+    private String hashFile(Path path) throws IOException {
+        MessageDigest digest = Hashing.sha256();
+        try (BufferPool.Lease lease = bufferPool.acquire(); InputStream in = Files.newInputStream(path)) {
+            byte[] buffer = lease.buffer();
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, bytesRead);
+            }
+        }
+        return Hashing.hex(digest.digest());
+    }
+    
+    private String generateUploadId() {
+        return UUID.randomUUID().toString().replace("-", "");
     }
     
     public void shutdown() {
-        plugin.getLogger().info("Shutting down ChunkedUploadService...");
+        logger.info("Shutting down ChunkedUploadService...");
         
         if (cleanupExecutor != null) {
             cleanupExecutor.shutdown();
@@ -380,14 +817,17 @@ public class ChunkedUploadService {
             }
         }
         
-        // Cleanup all active uploads
-        plugin.getLogger().info("Cleaning up " + activeUploads.size() + " active uploads...");
+        // Unfinished uploads keep their chunks and journal and are restored on the next start
+        long unfinished = activeUploads.values().stream().filter(upload -> !upload.isCompleted()).count();
+        if (unfinished > 0) {
+            logger.info("Keeping " + unfinished + " unfinished uploads for resume after restart");
+        }
         for (String uploadId : activeUploads.keySet()) {
-            cleanupUploadFiles(uploadId);
+            releaseReservation(uploadId);
         }
         activeUploads.clear();
         
-        plugin.getLogger().info("ChunkedUploadService shutdown completed");
+        logger.info("ChunkedUploadService shutdown completed");
     }
     
     // Statistics
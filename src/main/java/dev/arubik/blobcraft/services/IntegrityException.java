@@ -0,0 +1,10 @@
+package dev.arubik.blobcraft.services;
+
+/**
+ * Thrown when received bytes do not match the SHA-256 the client declared for them.
+ */
+public class IntegrityException extends RuntimeException {
+    public IntegrityException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package dev.arubik.blobcraft.services;
+
+/**
+ * Thrown when a client already has the maximum number of chunked uploads in progress.
+ */
+public class UploadLimitException extends RuntimeException {
+    public UploadLimitException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,26 @@
+package dev.arubik.blobcraft.storage;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class BatchDeleteResult {
+    private final List<String> deleted;
+    private final List<String> notFound;
+    private final CompletableFuture<Void> commit;
+
+    public BatchDeleteResult(List<String> deleted, List<String> notFound, CompletableFuture<Void> commit) {
+        this.deleted = Collections.unmodifiableList(deleted);
+        this.notFound = Collections.unmodifiableList(notFound);
+        this.commit = commit;
+    }
+
+    // Getters
+    public List<String> getDeleted() { return deleted; }
+    public List<String> getNotFound() { return notFound; }
+    
+    /**
+     * Completes once the index no longer references the deleted files on disk.
+     */
+    public CompletableFuture<Void> getCommit() { return commit; }
+}
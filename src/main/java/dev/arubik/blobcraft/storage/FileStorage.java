@@ -1,33 +1,56 @@
 package dev.arubik.blobcraft.storage;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
-import org.bukkit.plugin.java.JavaPlugin;
-
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
+import dev.arubik.blobcraft.io.Hashing;
+import dev.arubik.blobcraft.metrics.BlobMetrics;
+import dev.arubik.blobcraft.models.FileView;
 import dev.arubik.blobcraft.models.StoredFile;
+import dev.arubik.blobcraft.profiling.BlobEvents;
 
 public class FileStorage {
     
@@ -41,14 +64,24 @@ public class FileStorage {
     private final Map<String, CachedFile> fileCache;
     private final int maxCacheSize = 100; // Maximum files to keep in memory
     
-    private long usedStorage;
-    private long usedMemory;
+    // Updated with CAS so limits are enforced without a global lock
+    private final QuotaManager quotaManager;
+    private final AtomicLong usedMemory = new AtomicLong();
+    
+    // Per-ID locks; disk I/O for different files never serializes on the whole storage
+    private final StripedLock idLocks = new StripedLock(64);
+    
+    // Content SHA-256 to the IDs holding it, for deduplicated uploads
+    private final Map<String, Set<String>> contentIndex = new ConcurrentHashMap<>();
+    // Chunk SHA-256 to a file assembled from that chunk; one owner is enough to reuse it
+    private final Map<String, String> chunkIndex = new ConcurrentHashMap<>();
     
     // Expiration settings
     private final boolean enableExpiration;
     private final long defaultTtl;
     private final long maxTtl;
     private final ScheduledExecutorService cleanupExecutor;
+    private final ScheduledExecutorService cacheCleanupExecutor;
     
     // Compression settings
     private final boolean enableCompression;
@@ -60,10 +93,27 @@ public class FileStorage {
     private final Path indexFile;
     private final Gson gson = new Gson();
     
-    private final JavaPlugin plugin;
+    // Group commit for index writes
+    private final IndexCommitter indexCommitter;
+    
+    // Small blobs are appended to segment files (null when disabled)
+    private final SegmentStore segmentStore;
+    private final long segmentThreshold;
+    private final double compactionRatio;
+    private final ScheduledExecutorService compactionExecutor;
+    
+    // Memory-mapped read path for uncompressed blobs too large for the heap cache (null when disabled)
+    private final MappedBlobPool mappedPool;
+    private final long mmapMinSize;
+    private final long mmapMaxSize;
     
-    // Inner classes for indexing
-    private static class FileIndex {
+    // Guards against running two flat-to-sharded migrations at once
+    private final AtomicBoolean migrationRunning = new AtomicBoolean(false);
+    
+    private final Logger logger;
+    
+    // Inner classes for indexing; entries double as the read-only view handed to callers
+    private static class FileIndex implements FileView {
         public String id;
         public String filename;
         public long size;
@@ -75,12 +125,16 @@ public class FileStorage {
         public Instant expiresAt;
         public String uploaderIp;
         public String uploaderAgent;
-        public Map<String, String> metadata;
-        public String diskPath; // Path to file on disk
+        public Map<String, String> metadata; // Unmodifiable, see frozen()
+        public String etag; // Hex SHA-256 of the original content, null for entries stored before hashing
+        public volatile String diskPath; // Path to file on disk, relative to the storage directory
+        public volatile SegmentStore.Location segment; // Set instead of diskPath for packed blobs
+        public int chunkSize; // Chunk size of the upload this file was assembled from
+        public volatile List<String> chunkHashes; // Hex SHA-256 per chunk, null unless chunk-uploaded
         
         public FileIndex() {}
         
-        public FileIndex(StoredFile file, String diskPath) {
+        public FileIndex(StoredFile file) {
             this.id = file.getId();
             this.filename = file.getFilename();
             this.size = file.getSize();
@@ -92,14 +146,40 @@ public class FileStorage {
             this.expiresAt = file.getExpiresAt();
             this.uploaderIp = file.getUploaderIp();
             this.uploaderAgent = file.getUploaderAgent();
-            this.metadata = file.getMetadata();
-            this.diskPath = diskPath;
+            this.metadata = frozen(file.getMetadata());
         }
         
+        /**
+         * Seal a freshly built map so it can be shared with readers without copying.
+         */
+        public static Map<String, String> frozen(Map<String, String> metadata) {
+            return metadata == null || metadata.isEmpty() ? Map.of() : Collections.unmodifiableMap(metadata);
+        }
+        
+        @Override public String getId() { return id; }
+        @Override public String getFilename() { return filename; }
+        @Override public long getSize() { return size; }
+        @Override public long getOriginalSize() { return originalSize; }
+        @Override public boolean isPublic() { return isPublic; }
+        @Override public boolean isCompressed() { return isCompressed; }
+        @Override public String getMimeType() { return mimeType; }
+        @Override public Instant getUploadedAt() { return uploadedAt; }
+        @Override public Instant getExpiresAt() { return expiresAt; }
+        @Override public String getUploaderIp() { return uploaderIp; }
+        @Override public String getUploaderAgent() { return uploaderAgent; }
+        @Override public Map<String, String> getMetadata() { return metadata; }
+        @Override public String getEtag() { return etag != null ? etag : id; }
+        @Override public String getSha256() { return etag; }
+        
+        @Override
         public boolean isExpired() {
             return expiresAt != null && Instant.now().isAfter(expiresAt);
         }
         
+        public String uploader() {
+            return metadata != null ? metadata.get("uploader") : null;
+        }
+        
         public StoredFile toStoredFile(byte[] data) {
             return new StoredFile(id, filename, data, isPublic, uploadedAt, expiresAt, 
                 isCompressed, originalSize, uploaderIp, uploaderAgent, metadata);
@@ -127,7 +207,26 @@ public class FileStorage {
                 }
                 json.add("metadata", metaJson);
             }
-            json.addProperty("diskPath", diskPath);
+            if (etag != null) {
+                json.addProperty("etag", etag);
+            }
+            List<String> chunks = chunkHashes;
+            if (chunks != null) {
+                json.addProperty("chunkSize", chunkSize);
+                JsonArray chunksJson = new JsonArray(chunks.size());
+                for (String chunk : chunks) {
+                    chunksJson.add(chunk);
+                }
+                json.add("chunks", chunksJson);
+            }
+            SegmentStore.Location location = segment;
+            if (location != null) {
+                json.addProperty("segment", location.segment);
+                json.addProperty("segmentOffset", location.offset);
+                json.addProperty("segmentLength", location.length);
+            } else {
+                json.addProperty("diskPath", diskPath);
+            }
             return json;
         }
 
@@ -147,17 +246,32 @@ public class FileStorage {
             index.uploaderIp = json.get("uploaderIp").getAsString();
             index.uploaderAgent = json.get("uploaderAgent").getAsString();
             
+            Map<String, String> metadata = new HashMap<>();
             if (json.has("metadata")) {
                 JsonObject metaJson = json.getAsJsonObject("metadata");
-                index.metadata = new HashMap<>();
                 for (Map.Entry<String, JsonElement> entry : metaJson.entrySet()) {
-                    index.metadata.put(entry.getKey(), entry.getValue().getAsString());
+                    metadata.put(entry.getKey(), entry.getValue().getAsString());
                 }
-            } else {
-                index.metadata = new HashMap<>();
+            }
+            index.metadata = frozen(metadata);
+            if (json.has("etag")) {
+                index.etag = json.get("etag").getAsString();
+            }
+            if (json.has("chunks")) {
+                index.chunkSize = json.get("chunkSize").getAsInt();
+                List<String> chunks = new ArrayList<>();
+                for (JsonElement chunk : json.getAsJsonArray("chunks")) {
+                    chunks.add(chunk.getAsString());
+                }
+                index.chunkHashes = List.copyOf(chunks);
             }
             
-            index.diskPath = json.get("diskPath").getAsString();
+            if (json.has("segment")) {
+                index.segment = new SegmentStore.Location(json.get("segment").getAsInt(),
+                    json.get("segmentOffset").getAsLong(), json.get("segmentLength").getAsInt());
+            } else {
+                index.diskPath = json.get("diskPath").getAsString();
+            }
             return index;
         }
     }
@@ -175,37 +289,62 @@ public class FileStorage {
     public FileStorage(long maxRam, long maxStorage, boolean enableExpiration, 
                       long defaultTtl, long maxTtl, long cleanupInterval,
                       boolean enableCompression, int compressionLevel, 
-                      long compressThreshold, JavaPlugin plugin) {
+                      long compressThreshold, long indexFlushInterval,
+                      int indexFlushThreshold, long perIpQuota, long perUploaderQuota,
+                      long segmentThreshold, long maxSegmentSize, double compactionRatio,
+                      long compactionInterval, long mmapMinSize, long mmapMaxSize,
+                      int mmapPoolEntries, long mmapPoolBytes, Path dataFolder, Logger logger) {
         this.maxRam = maxRam;
         this.maxStorage = maxStorage;
         this.fileIndex = new ConcurrentHashMap<>();
         this.fileCache = new ConcurrentHashMap<>();
-        this.usedStorage = 0;
-        this.usedMemory = 0;
+        this.quotaManager = new QuotaManager(maxStorage, perIpQuota, perUploaderQuota);
         
         this.enableExpiration = enableExpiration;
         this.defaultTtl = defaultTtl;
         this.maxTtl = maxTtl;
-        this.plugin = plugin;
+        this.logger = logger;
         
         this.enableCompression = enableCompression;
         this.compressionLevel = Math.max(1, Math.min(9, compressionLevel));
         this.compressThreshold = compressThreshold;
+        this.segmentThreshold = segmentThreshold;
+        this.compactionRatio = compactionRatio;
+        this.mmapMinSize = mmapMinSize;
+        this.mmapMaxSize = Math.min(mmapMaxSize, Integer.MAX_VALUE); // A single mapping is limited to 2GB
+        this.mappedPool = mmapPoolEntries > 0 ? new MappedBlobPool(mmapPoolEntries, mmapPoolBytes) : null;
         
         // Initialize storage directory
-        this.storageDirectory = Paths.get(plugin.getDataFolder().getAbsolutePath(), "storage");
+        this.storageDirectory = dataFolder.toAbsolutePath().resolve("storage");
         this.indexFile = storageDirectory.resolve("file_index.json");
+        this.indexCommitter = new IndexCommitter(this::saveFileIndex, indexFlushInterval, 
+            indexFlushThreshold, logger);
+        
+        SegmentStore segments = null;
+        if (segmentThreshold > 0) {
+            try {
+                segments = new SegmentStore(storageDirectory.resolve("segments"), maxSegmentSize, logger);
+            } catch (IOException e) {
+                logger.severe("Failed to open segment store, small files will be stored individually: " + 
+                    e.getMessage());
+            }
+        }
+        this.segmentStore = segments;
         
         try {
             Files.createDirectories(storageDirectory);
             loadFileIndex();
         } catch (IOException e) {
-            plugin.getLogger().severe("Failed to create storage directory: " + e.getMessage());
+            logger.severe("Failed to create storage directory: " + e.getMessage());
         }
         
         // Start cleanup task if expiration is enabled
         if (enableExpiration && cleanupInterval > 0) {
-            this.cleanupExecutor = Executors.newSingleThreadScheduledExecutor();
+            this.cleanupExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "BlobCraft-ExpiryCleanup");
+                thread.setDaemon(true);
+                return thread;
+            });
             this.cleanupExecutor.scheduleAtFixedRate(
                 this::cleanupExpiredFiles, 
                 cleanupInterval, 
@@ -216,24 +355,56 @@ public class FileStorage {
             this.cleanupExecutor = null;
         }
         
+        // Start segment compaction task
+        if (segmentStore != null && compactionInterval > 0) {
+            this.compactionExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "BlobCraft-SegmentCompactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.compactionExecutor.scheduleWithFixedDelay(
+                this::compactSegments, compactionInterval, compactionInterval, TimeUnit.SECONDS);
+        } else {
+            this.compactionExecutor = null;
+        }
+        
         // Start cache cleanup task
-        Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(
+        this.cacheCleanupExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "BlobCraft-CacheCleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.cacheCleanupExecutor.scheduleAtFixedRate(
             this::cleanupCache, 5, 5, TimeUnit.MINUTES
         );
         
-        plugin.getLogger().info("FileStorage initialized:");
-        plugin.getLogger().info("- Storage directory: " + storageDirectory.toString());
-        plugin.getLogger().info("- Max RAM: " + (maxRam / 1024 / 1024) + "MB");
-        plugin.getLogger().info("- Max Storage: " + (maxStorage / 1024 / 1024 / 1024) + "GB");
-        plugin.getLogger().info("- Compression: " + (enableCompression ? "enabled" : "disabled"));
-        plugin.getLogger().info("- Expiration: " + (enableExpiration ? "enabled" : "disabled"));
-        plugin.getLogger().info("- Files indexed: " + fileIndex.size());
+        BlobMetrics.STORAGE.register(this::getFileCount, "files");
+        BlobMetrics.STORAGE.register(this::getUsedStorage, "stored_bytes");
+        BlobMetrics.STORAGE.register(this::getReservedStorage, "reserved_bytes");
+        BlobMetrics.STORAGE.register(this::getUsedMemory, "cached_bytes");
+        BlobMetrics.STORAGE.register(this::getMappedBytes, "mapped_bytes");
+        
+        logger.info("FileStorage initialized:");
+        logger.info("- Storage directory: " + storageDirectory.toString());
+        logger.info("- Max RAM: " + (maxRam / 1024 / 1024) + "MB");
+        logger.info("- Max Storage: " + (maxStorage / 1024 / 1024 / 1024) + "GB");
+        logger.info("- Compression: " + (enableCompression ? "enabled" : "disabled"));
+        logger.info("- Expiration: " + (enableExpiration ? "enabled" : "disabled"));
+        logger.info("- Segments: " + (segmentStore != null 
+            ? "files up to " + (segmentThreshold / 1024) + "KB packed (" + segmentStore.getSegmentCount() + " segments)" 
+            : "disabled"));
+        logger.info("- Memory-mapped reads: " + (mappedPool != null 
+            ? (mmapMinSize / 1024) + "KB to " + (this.mmapMaxSize / 1024 / 1024) + "MB, " + mmapPoolEntries + " mappings" 
+            : "disabled"));
+        logger.info("- Index flush: every " + indexFlushInterval + "ms or " + 
+            indexFlushThreshold + " mutations");
+        logger.info("- Files indexed: " + fileIndex.size());
     }
     
     private void loadFileIndex() {
         try {
             if (!Files.exists(indexFile)) {
-                plugin.getLogger().info("No existing index file found, scanning storage directory...");
+                logger.info("No existing index file found, scanning storage directory...");
                 scanStorageDirectory();
                 return;
             }
@@ -248,22 +419,45 @@ public class FileStorage {
                 JsonObject fileJson = filesArray.get(i).getAsJsonObject();
                 FileIndex index = FileIndex.fromJson(fileJson);
                 
+                if (index.segment != null) {
+                    if (segmentStore != null && segmentStore.exists(index.segment)) {
+                        segmentStore.markLive(index.segment);
+                        fileIndex.put(index.id, index);
+                        indexContent(index);
+                        quotaManager.charge(index.size, index.uploaderIp, index.uploader());
+                        totalStorage += index.size;
+                    } else {
+                        logger.warning("File missing from segment store: " + index.id);
+                    }
+                    continue;
+                }
+                
                 // Verify file still exists on disk
                 Path filePath = storageDirectory.resolve(index.diskPath);
+                if (!Files.exists(filePath) && StorageLayout.isLegacy(index.diskPath)) {
+                    // Migrated to the sharded layout but the index was not committed yet
+                    String shardedPath = StorageLayout.pathFor(index.id);
+                    if (Files.exists(storageDirectory.resolve(shardedPath))) {
+                        index.diskPath = shardedPath;
+                        filePath = storageDirectory.resolve(shardedPath);
+                        indexCommitter.markDirty();
+                    }
+                }
                 if (Files.exists(filePath)) {
                     fileIndex.put(index.id, index);
+                    indexContent(index);
+                    quotaManager.charge(index.size, index.uploaderIp, index.uploader());
                     totalStorage += index.size;
                 } else {
-                    plugin.getLogger().warning("File missing from disk: " + index.diskPath);
+                    logger.warning("File missing from disk: " + index.diskPath);
                 }
             }
             
-            this.usedStorage = totalStorage;
-            plugin.getLogger().info("Loaded " + fileIndex.size() + " files from index (" + 
-                (usedStorage / 1024 / 1024) + "MB total)");
+            logger.info("Loaded " + fileIndex.size() + " files from index (" + 
+                (totalStorage / 1024 / 1024) + "MB total)");
             
         } catch (Exception e) {
-            plugin.getLogger().warning("Failed to load file index: " + e.getMessage());
+            logger.warning("Failed to load file index: " + e.getMessage());
             scanStorageDirectory();
         }
     }
@@ -274,51 +468,66 @@ public class FileStorage {
                 return;
             }
             
-            plugin.getLogger().info("Scanning storage directory for files...");
+            // Packed blobs cannot be recovered without the index; segments are not scanned
+            logger.info("Scanning storage directory for files...");
+            Path segmentDirectory = storageDirectory.resolve("segments");
             long totalStorage = 0;
             int fileCount = 0;
             
             Files.walk(storageDirectory)
                 .filter(Files::isRegularFile)
                 .filter(path -> !path.equals(indexFile))
-                .filter(path -> !path.getFileName().toString().endsWith(".meta"))
+                .filter(path -> !path.startsWith(segmentDirectory))
+                .filter(path -> !path.getFileName().toString().endsWith(StorageLayout.META_SUFFIX))
+                .filter(path -> !path.getFileName().toString().endsWith(".tmp"))
                 .forEach(filePath -> {
                     try {
                         FileIndex index = createIndexFromDiskFile(filePath);
                         if (index != null) {
                             fileIndex.put(index.id, index);
+                            indexContent(index);
                         }
                     } catch (Exception e) {
-                        plugin.getLogger().warning("Failed to index file " + filePath + ": " + e.getMessage());
+                        logger.warning("Failed to index file " + filePath + ": " + e.getMessage());
                     }
                 });
             
+            quotaManager.reset();
             for (FileIndex index : fileIndex.values()) {
+                quotaManager.charge(index.size, index.uploaderIp, index.uploader());
                 totalStorage += index.size;
                 fileCount++;
             }
             
-            this.usedStorage = totalStorage;
-            plugin.getLogger().info("Scanned " + fileCount + " files (" + (totalStorage / 1024 / 1024) + "MB total)");
-            saveFileIndex();
+            logger.info("Scanned " + fileCount + " files (" + (totalStorage / 1024 / 1024) + "MB total)");
+            indexCommitter.markDirty();
             
         } catch (IOException e) {
-            plugin.getLogger().severe("Failed to scan storage directory: " + e.getMessage());
+            logger.severe("Failed to scan storage directory: " + e.getMessage());
         }
     }
     
     private FileIndex createIndexFromDiskFile(Path filePath) throws IOException {
         String fileName = filePath.getFileName().toString();
+        String diskPath = storageDirectory.relativize(filePath).toString().replace(File.separatorChar, '/');
         
-        // Extract ID from filename (format: {id}_{originalname})
-        int underscoreIndex = fileName.indexOf('_');
-        if (underscoreIndex == -1) {
-            return null; // Invalid filename format
+        String id;
+        String originalName;
+        if (StorageLayout.isLegacy(diskPath)) {
+            // Extract ID from filename (format: {id}_{originalname})
+            int underscoreIndex = fileName.indexOf('_');
+            if (underscoreIndex == -1) {
+                return null; // Invalid filename format
+            }
+            
+            id = fileName.substring(0, underscoreIndex);
+            originalName = fileName.substring(underscoreIndex + 1);
+        } else {
+            // Sharded layout: the file is named by ID, the real name is in the sidecar
+            id = fileName;
+            originalName = fileName;
         }
         
-        String id = fileName.substring(0, underscoreIndex);
-        String originalName = fileName.substring(underscoreIndex + 1);
-        
         // Read file size
         long size = Files.size(filePath);
         
@@ -333,6 +542,7 @@ public class FileStorage {
         String uploaderIp = "unknown";
         String uploaderAgent = "unknown";
         String mimeType = "application/octet-stream";
+        String etag = null;
         
         if (Files.exists(metaPath)) {
             List<String> metaLines = Files.readAllLines(metaPath);
@@ -343,6 +553,9 @@ public class FileStorage {
                     String value = parts[1].trim();
                     
                     switch (key) {
+                        case "filename":
+                            originalName = value;
+                            break;
                         case "public":
                             isPublic = Boolean.parseBoolean(value);
                             break;
@@ -369,6 +582,12 @@ public class FileStorage {
                         case "mimeType":
                             mimeType = value;
                             break;
+                        case "etag":
+                            etag = value;
+                            break;
+                        case "dedupId":
+                            id = value; // Sidecar handed over to a deduplicated entry sharing this blob
+                            break;
                         default:
                             metadata.put(key, value);
                             break;
@@ -389,14 +608,25 @@ public class FileStorage {
         index.expiresAt = expiresAt;
         index.uploaderIp = uploaderIp;
         index.uploaderAgent = uploaderAgent;
-        index.metadata = metadata;
-        index.diskPath = fileName;
+        index.metadata = FileIndex.frozen(metadata);
+        index.etag = etag;
+        index.diskPath = diskPath;
         
         return index;
     }
     
-    private void saveFileIndex() {
+    // Package-private for the storage benchmarks
+    void saveFileIndex() {
+        // Not thread-safe: the index committer runs one flush at a time, the benchmarks call it directly
+        long start = System.nanoTime();
+        BlobEvents.IndexCommit event = new BlobEvents.IndexCommit();
+        event.begin();
         try {
+            // Appended segment data must be durable before the index points at it
+            if (segmentStore != null) {
+                segmentStore.sync();
+            }
+            
             JsonObject indexJson = new JsonObject();
             JsonArray filesArray = new JsonArray();
             
@@ -407,27 +637,72 @@ public class FileStorage {
             indexJson.add("files", filesArray);
             indexJson.addProperty("lastUpdated", Instant.now().toString());
             indexJson.addProperty("totalFiles", fileIndex.size());
-            indexJson.addProperty("totalStorage", usedStorage);
+            indexJson.addProperty("totalStorage", quotaManager.getCommitted());
             
-            Files.writeString(indexFile, gson.toJson(indexJson), 
-                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            // Write to a temp file, sync it and swap it in so a crash never leaves a truncated index
+            Path tempFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(tempFile, 
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = StandardCharsets.UTF_8.encode(gson.toJson(indexJson));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            BlobMetrics.INDEX_SAVE_DURATION.observeSince(start);
+            event.files = fileIndex.size();
+            event.commit();
             
         } catch (IOException e) {
-            plugin.getLogger().warning("Failed to save file index: " + e.getMessage());
+            throw new UncheckedIOException("Failed to save file index: " + e.getMessage(), e);
         }
     }
     
-    public synchronized StoredFile storeFile(String filename, byte[] data, boolean isPublic, 
+    /**
+     * Persist all pending index mutations. The future completes once they are on disk.
+     */
+    public CompletableFuture<Void> flushIndex() {
+        return indexCommitter.flush();
+    }
+    
+    /**
+     * Reserve space ahead of receiving an upload.
+     *
+     * @throws QuotaExceededException if the global, per-IP or per-uploader quota would be exceeded
+     */
+    public QuotaManager.Reservation reserveStorage(long bytes, String uploaderIp, String uploader) {
+        return quotaManager.reserve(bytes, uploaderIp, uploader);
+    }
+    
+    public StoredFile storeFile(String filename, byte[] data, boolean isPublic, 
                                            Long ttlSeconds, String uploaderIp, String uploaderAgent,
                                            Map<String, String> metadata) {
+        return storeFile(filename, data, isPublic, ttlSeconds, uploaderIp, uploaderAgent, metadata, null);
+    }
+    
+    public StoredFile storeFile(String filename, byte[] data, boolean isPublic, 
+                                           Long ttlSeconds, String uploaderIp, String uploaderAgent,
+                                           Map<String, String> metadata, QuotaManager.Reservation reservation) {
+        return storeFile(filename, data, isPublic, ttlSeconds, uploaderIp, uploaderAgent, metadata, reservation, null);
+    }
+    
+    /**
+     * Store a file against an existing reservation. The reservation is resized to the
+     * stored size and committed on success; on failure it is left for the caller to release.
+     *
+     * @param sha256 hex SHA-256 of {@code data} when the caller already hashed it while
+     *               receiving, or null to hash it here
+     */
+    public StoredFile storeFile(String filename, byte[] data, boolean isPublic, 
+                                           Long ttlSeconds, String uploaderIp, String uploaderAgent,
+                                           Map<String, String> metadata, QuotaManager.Reservation reservation,
+                                           String sha256) {
         // Calculate expiration
-        Instant expiresAt = null;
-        if (enableExpiration && ttlSeconds != null && ttlSeconds > 0) {
-            long actualTtl = Math.min(ttlSeconds, maxTtl);
-            expiresAt = Instant.now().plusSeconds(actualTtl);
-        } else if (enableExpiration && defaultTtl > 0) {
-            expiresAt = Instant.now().plusSeconds(defaultTtl);
-        }
+        Instant expiresAt = expiresAt(ttlSeconds);
+        
+        // Validator for conditional requests, over the bytes clients will receive
+        String etag = sha256 != null ? sha256.toLowerCase(Locale.ROOT) : Hashing.sha256Hex(data);
         
         // Compress if enabled and file is large enough
         byte[] finalData = data;
@@ -446,14 +721,14 @@ if (enableCompression && data.length >= compressThreshold) {
         try {
             finalData = compressData(data);
             compressed = true;
-            plugin.getLogger().info("Compressed file " + filename + " from " +
+            logger.fine("Compressed file " + filename + " from " +
                     originalSize + " to " + finalData.length + " bytes");
         } catch (IOException e) {
-            plugin.getLogger().warning("Failed to compress file " + filename + ": " + e.getMessage());
+            logger.warning("Failed to compress file " + filename + ": " + e.getMessage());
             finalData = data;
         }
     } else {
-        plugin.getLogger().warning("Skipping compression of file " + filename + 
+        logger.warning("Skipping compression of file " + filename + 
             " due to insufficient memory (needed: " + (data.length * 2 / 1024 / 1024) +
             "MB, available: " + (availableMemory / 1024 / 1024) + "MB)");
         finalData = data;
@@ -462,9 +737,18 @@ if (enableCompression && data.length >= compressThreshold) {
 
         long fileSize = finalData.length;
         
-        // Check storage limits
-        if (maxStorage > 0 && usedStorage + fileSize > maxStorage) {
-            plugin.getLogger().warning("Storage limit exceeded for file: " + filename);
+        // Settle the space before touching disk; the reservation is returned if the write fails
+        String uploader = metadata != null ? metadata.get("uploader") : null;
+        boolean ownReservation = reservation == null;
+        if (ownReservation) {
+            try {
+                reservation = quotaManager.reserve(fileSize, uploaderIp, uploader);
+            } catch (QuotaExceededException e) {
+                logger.warning(e.getMessage() + " for file: " + filename);
+                return null; // Storage limit exceeded
+            }
+        } else if (!reservation.resize(fileSize)) {
+            logger.warning("Storage limit exceeded for file: " + filename);
             return null; // Storage limit exceeded
         }
         
@@ -475,58 +759,434 @@ if (enableCompression && data.length >= compressThreshold) {
         StoredFile storedFile = new StoredFile(id, filename, finalData, isPublic, 
             Instant.now(), expiresAt, compressed, originalSize, uploaderIp, uploaderAgent, metadata);
         
-        // Save to disk
-        String diskPath = id + "_" + filename;
+        // Save to disk; only this ID's stripe is held during the write
+        FileIndex index = new FileIndex(storedFile);
+        index.etag = etag;
+        ReentrantLock lock = idLocks.forKey(id);
+        lock.lock();
         try {
-            saveFileToDisk(storedFile, finalData, diskPath);
-            System.gc(); // Suggest garbage collection after large file operations
+            BlobEvents.DiskWrite event = new BlobEvents.DiskWrite();
+            event.begin();
+            if (segmentStore != null && fileSize <= segmentThreshold) {
+                // Small blob: one append, no file or sidecar of its own
+                index.segment = segmentStore.append(finalData);
+            } else {
+                index.diskPath = StorageLayout.pathFor(id);
+                saveFileToDisk(index, finalData);
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.target = index.segment != null ? "segment" : "file";
+                event.id = id;
+                event.bytes = fileSize;
+                event.commit();
+            }
+            fileIndex.put(id, index);
+            indexContent(index);
+            reservation.commit();
         } catch (IOException e) {
-            plugin.getLogger().severe("Failed to save file to disk: " + e.getMessage());
+            if (ownReservation) {
+                reservation.release();
+            }
+            logger.severe("Failed to save file to disk: " + e.getMessage());
             return null;
+        } finally {
+            lock.unlock();
         }
         
-        // Create index entry
-        FileIndex index = new FileIndex(storedFile, diskPath);
-        fileIndex.put(id, index);
-        usedStorage += fileSize;
-        
         // Add to cache
-        fileCache.put(id, new CachedFile(finalData));
-        usedMemory += fileSize;
+        cacheData(id, finalData);
         
-        // Save updated index
-        saveFileIndex();
+        // Queue index update for the next group commit
+        indexCommitter.markDirty();
         
-        plugin.getLogger().info("Stored file: " + filename + " (ID: " + id + ", Size: " + fileSize + " bytes)");
+        logger.fine("Stored file: " + filename + " (ID: " + id + ", Size: " + fileSize + " bytes)");
         
         return storedFile;
     }
-    
-    private void saveFileToDisk(StoredFile storedFile, byte[] data, String diskPath) throws IOException {
+
+    /**
+     * Store a new file whose content is already held under another ID, without
+     * receiving it again. The new entry shares the existing blob on disk; packed and
+     * legacy-layout blobs are copied instead. Quota is charged for the full size, as
+     * for any other upload. Only sources the uploader may reuse count, see {@link #mayReuse}.
+     *
+     * @param sha256       hex SHA-256 of the content
+     * @param originalSize size of the content, which must match as well as the hash
+     * @return the new file, or null if no stored file the uploader may reuse has this content
+     * @throws QuotaExceededException if the global, per-IP or per-uploader quota would be exceeded
+     */
+    public FileView storeDuplicate(String sha256, long originalSize, String filename, boolean isPublic,
+                                   Long ttlSeconds, String uploaderIp, String uploaderAgent,
+                                   Map<String, String> metadata) {
+        Set<String> holders = contentIndex.get(sha256.toLowerCase(Locale.ROOT));
+        if (holders == null) {
+            return null;
+        }
+
+        String uploader = metadata != null ? metadata.get("uploader") : null;
+        for (String sourceId : holders) {
+            FileIndex source = fileIndex.get(sourceId);
+            if (source == null || source.isExpired() || source.originalSize != originalSize
+                    || !mayReuse(source, isPublic, uploaderIp, uploader)) {
+                continue;
+            }
+
+            QuotaManager.Reservation reservation = quotaManager.reserve(source.size, uploaderIp, uploader);
+
+            String id = generateUniqueId();
+            StoredFile storedFile = new StoredFile(id, filename, new byte[0], isPublic, Instant.now(),
+                expiresAt(ttlSeconds), source.isCompressed, originalSize, uploaderIp, uploaderAgent, metadata);
+            FileIndex index = new FileIndex(storedFile);
+            index.size = source.size;
+            index.etag = source.etag;
+            index.chunkSize = source.chunkSize;
+            index.chunkHashes = source.chunkHashes;
+
+            // Holding the source's lock keeps it from being deleted or migrated until the new entry is in
+            ReentrantLock lock = idLocks.forKey(sourceId);
+            lock.lock();
+            try {
+                if (fileIndex.get(sourceId) != source) {
+                    reservation.release();
+                    continue; // Deleted meanwhile
+                }
+                SegmentStore.Location location = source.segment;
+                if (location != null) {
+                    index.segment = segmentStore.append(segmentStore.read(location));
+                } else if (StorageLayout.isLegacy(source.diskPath)) {
+                    index.diskPath = StorageLayout.pathFor(id);
+                    Path target = storageDirectory.resolve(index.diskPath);
+                    Files.createDirectories(target.getParent());
+                    Files.copy(storageDirectory.resolve(source.diskPath), target);
+                    writeMetaFile(index, storageDirectory.resolve(StorageLayout.metaPathFor(index.diskPath)));
+                } else {
+                    index.diskPath = source.diskPath;
+                }
+                fileIndex.put(id, index);
+                indexContent(index);
+                reservation.commit();
+            } catch (IOException e) {
+                reservation.release();
+                logger.warning("Failed to deduplicate " + filename + " against " + sourceId + ": " + e.getMessage());
+                return null;
+            } finally {
+                lock.unlock();
+            }
+
+            indexCommitter.markDirty();
+            logger.fine("Stored file: " + filename + " (ID: " + id + ", deduplicated against " + sourceId + ")");
+            return index;
+        }
+        return null;
+    }
+
+    /**
+     * Whether content held by {@code source} may go into a new file without being received.
+     * A client that only knows the hash has not shown it holds the content, so only public
+     * files and the uploader's own files qualify, and never into a more visible file.
+     */
+    private static boolean mayReuse(FileIndex source, boolean isPublic, String uploaderIp, String uploader) {
+        if (source.isPublic) {
+            return true;
+        }
+        return !isPublic && Objects.equals(source.uploaderIp, uploaderIp) && Objects.equals(source.uploader(), uploader);
+    }
+
+    private Instant expiresAt(Long ttlSeconds) {
+        if (enableExpiration && ttlSeconds != null && ttlSeconds > 0) {
+            return Instant.now().plusSeconds(Math.min(ttlSeconds, maxTtl));
+        } else if (enableExpiration && defaultTtl > 0) {
+            return Instant.now().plusSeconds(defaultTtl);
+        }
+        return null;
+    }
+
+    /**
+     * Remember the chunk hashes of a file assembled from a chunked upload, so later
+     * uploads sharing chunk-aligned content can reuse them with {@link #readChunk}.
+     */
+    public void recordChunks(String id, int chunkSize, List<String> chunkHashes) {
+        FileIndex index = fileIndex.get(id);
+        if (index == null) {
+            return;
+        }
+        index.chunkSize = chunkSize;
+        index.chunkHashes = List.copyOf(chunkHashes);
+        for (String hash : index.chunkHashes) {
+            chunkIndex.put(hash, id);
+        }
+        indexCommitter.markDirty();
+    }
+
+    /**
+     * Bytes of a stored chunk with this SHA-256 and length, read from whichever file it
+     * was recorded for. Compressed blobs have to be inflated up to the chunk, which is
+     * still far cheaper than receiving it again. The same rules as {@link #storeDuplicate}
+     * apply, with {@code isPublic} and the uploader being those of the upload it goes into.
+     *
+     * @return the chunk, verified against its hash, or null if no stored file the uploader
+     *         may reuse has it
+     */
+    public byte[] readChunk(String sha256, int length, boolean isPublic, String uploaderIp, 
+                            String uploader) throws IOException {
+        String hash = sha256.toLowerCase(Locale.ROOT);
+        String id = chunkIndex.get(hash);
+        FileIndex index = id != null ? fileIndex.get(id) : null;
+        if (index != null && !mayReuse(index, isPublic, uploaderIp, uploader)) {
+            // Deduplicated copies hold the same chunks and may belong to this uploader
+            Set<String> holders = index.etag != null ? contentIndex.get(index.etag) : null;
+            List<String> chunks = index.chunkHashes;
+            index = holders == null ? null : holders.stream()
+                .map(fileIndex::get)
+                .filter(other -> other != null && Objects.equals(chunks, other.chunkHashes)
+                    && mayReuse(other, isPublic, uploaderIp, uploader))
+                .findAny().orElse(null);
+        }
+        if (index == null || index.isExpired()) {
+            return null;
+        }
+        List<String> hashes = index.chunkHashes;
+        int position = hashes != null ? hashes.indexOf(hash) : -1;
+        long offset = (long) position * index.chunkSize;
+        if (position < 0 || offset + length > index.originalSize) {
+            return null;
+        }
+
+        byte[] data;
+        try {
+            data = readRange(index, offset, length);
+        } catch (NoSuchFileException e) {
+            return null; // Deleted, migrated or compacted while we were reading
+        }
+        return Hashing.sha256Hex(data).equals(hash) ? data : null;
+    }
+
+    private byte[] readRange(FileIndex index, long offset, int length) throws IOException {
+        SegmentStore.Location location = index.segment;
+        if (location != null) {
+            byte[] blob = segmentStore.read(location);
+            byte[] data = index.isCompressed ? decompressData(blob) : blob;
+            return Arrays.copyOfRange(data, (int) offset, (int) offset + length);
+        }
+
+        Path path = storageDirectory.resolve(index.diskPath);
+        byte[] data = new byte[length];
+        if (!index.isCompressed) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, offset + buffer.position()) < 0) {
+                        throw new EOFException("Blob shorter than its index entry: " + index.id);
+                    }
+                }
+            }
+            return data;
+        }
+
+        // Gzip has no random access, so inflate and discard everything before the chunk
+        try (InputStream in = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(path), 65536), 65536)) {
+            in.skipNBytes(offset);
+            if (in.readNBytes(data, 0, length) != length) {
+                throw new EOFException("Blob shorter than its index entry: " + index.id);
+            }
+        }
+        return data;
+    }
+
+    private void saveFileToDisk(FileIndex index, byte[] data) throws IOException {
         // Save file data
-        Path filePath = storageDirectory.resolve(diskPath);
+        Path filePath = storageDirectory.resolve(index.diskPath);
+        Files.createDirectories(filePath.getParent());
         Files.write(filePath, data, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
         
         // Save metadata
-        Path metaPath = storageDirectory.resolve(diskPath + ".meta");
+        writeMetaFile(index, storageDirectory.resolve(StorageLayout.metaPathFor(index.diskPath)));
+    }
+    
+    private void writeMetaFile(FileIndex index, Path metaPath) throws IOException {
+        // Sidecar is only read when the index has to be rebuilt from a directory scan
         List<String> metaLines = new ArrayList<>();
-        metaLines.add("public=" + storedFile.isPublic());
-        metaLines.add("compressed=" + storedFile.isCompressed());
-        metaLines.add("originalSize=" + storedFile.getOriginalSize());
-        metaLines.add("uploadedAt=" + storedFile.getUploadedAt().toString());
-        metaLines.add("expiresAt=" + (storedFile.getExpiresAt() != null ? storedFile.getExpiresAt().toString() : "null"));
-        metaLines.add("uploaderIp=" + storedFile.getUploaderIp());
-        metaLines.add("uploaderAgent=" + (storedFile.getUploaderAgent() != null ? storedFile.getUploaderAgent() : "unknown"));
-        metaLines.add("mimeType=" + storedFile.getMimeType());
+        metaLines.add("filename=" + index.filename);
+        metaLines.add("public=" + index.isPublic);
+        metaLines.add("compressed=" + index.isCompressed);
+        metaLines.add("originalSize=" + index.originalSize);
+        metaLines.add("uploadedAt=" + index.uploadedAt.toString());
+        metaLines.add("expiresAt=" + (index.expiresAt != null ? index.expiresAt.toString() : "null"));
+        metaLines.add("uploaderIp=" + index.uploaderIp);
+        metaLines.add("uploaderAgent=" + (index.uploaderAgent != null ? index.uploaderAgent : "unknown"));
+        metaLines.add("mimeType=" + index.mimeType);
+        if (index.etag != null) {
+            metaLines.add("etag=" + index.etag);
+        }
+        if (!metaPath.getFileName().toString().startsWith(index.id)) {
+            metaLines.add("dedupId=" + index.id);
+        }
         
         // Add custom metadata
-        if (storedFile.getMetadata() != null) {
-            for (Map.Entry<String, String> entry : storedFile.getMetadata().entrySet()) {
-                metaLines.add(entry.getKey() + "=" + entry.getValue());
+        for (Map.Entry<String, String> entry : index.metadata.entrySet()) {
+            metaLines.add(entry.getKey() + "=" + entry.getValue());
+        }
+        
+        Files.write(metaPath, metaLines, StandardOpenOption.CREATE, StandardOpenOption.WRITE, 
+            StandardOpenOption.TRUNCATE_EXISTING);
+    }
+    
+    /**
+     * Move blobs from the legacy flat layout ({id}_{filename}) into the sharded layout.
+     * Runs in the background; files stay readable while they are being moved.
+     *
+     * @return future with the number of migrated files
+     */
+    public CompletableFuture<Integer> migrateLayout() {
+        if (!migrationRunning.compareAndSet(false, true)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Layout migration already running"));
+        }
+        return CompletableFuture.supplyAsync(this::migrateLegacyFiles, runnable -> {
+            Thread thread = new Thread(runnable, "BlobCraft-LayoutMigration");
+            thread.setDaemon(true);
+            thread.start();
+        }).whenComplete((count, error) -> migrationRunning.set(false));
+    }
+    
+    private int migrateLegacyFiles() {
+        List<String> legacyIds = new ArrayList<>();
+        for (FileIndex index : fileIndex.values()) {
+            if (index.diskPath != null && StorageLayout.isLegacy(index.diskPath)) {
+                legacyIds.add(index.id);
             }
         }
+        if (legacyIds.isEmpty()) {
+            return 0;
+        }
         
-        Files.write(metaPath, metaLines, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        logger.info("Migrating " + legacyIds.size() + " files to sharded storage layout...");
+        int migrated = 0;
+        
+        for (String id : legacyIds) {
+            ReentrantLock lock = idLocks.forKey(id);
+            lock.lock();
+            try {
+                FileIndex index = fileIndex.get(id);
+                if (index == null || index.diskPath == null || !StorageLayout.isLegacy(index.diskPath)) {
+                    continue; // Deleted or already moved meanwhile
+                }
+                
+                String newPath = StorageLayout.pathFor(id);
+                Path target = storageDirectory.resolve(newPath);
+                Files.createDirectories(target.getParent());
+                Files.move(storageDirectory.resolve(index.diskPath), target, StandardCopyOption.ATOMIC_MOVE);
+                
+                // Rewrite the sidecar so it carries the filename the path no longer does
+                writeMetaFile(index, storageDirectory.resolve(StorageLayout.metaPathFor(newPath)));
+                Files.deleteIfExists(storageDirectory.resolve(StorageLayout.metaPathFor(index.diskPath)));
+                
+                index.diskPath = newPath;
+                migrated++;
+            } catch (IOException e) {
+                logger.warning("Failed to migrate file " + id + ": " + e.getMessage());
+            } finally {
+                lock.unlock();
+            }
+            
+            if (migrated > 0 && migrated % 1000 == 0) {
+                indexCommitter.markDirty();
+                logger.info("Migrated " + migrated + "/" + legacyIds.size() + " files");
+            }
+        }
+        
+        indexCommitter.markDirty();
+        logger.info("Storage layout migration completed: " + migrated + " files moved");
+        return migrated;
+    }
+    
+    /**
+     * Rewrite the live blobs of mostly-deleted segments into the active segment
+     * and delete the old segment files once the index no longer references them.
+     *
+     * @return number of segments reclaimed
+     */
+    public int compactSegments() {
+        if (segmentStore == null) {
+            return 0;
+        }
+        
+        int reclaimed = 0;
+        for (int segment : segmentStore.compactionCandidates(compactionRatio)) {
+            try {
+                int moved = 0;
+                for (FileIndex index : fileIndex.values()) {
+                    SegmentStore.Location location = index.segment;
+                    if (location == null || location.segment != segment) {
+                        continue;
+                    }
+                    
+                    ReentrantLock lock = idLocks.forKey(index.id);
+                    lock.lock();
+                    try {
+                        if (fileIndex.get(index.id) != index || index.segment != location) {
+                            continue; // Deleted meanwhile
+                        }
+                        index.segment = segmentStore.append(segmentStore.read(location));
+                        segmentStore.free(location);
+                        moved++;
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+                
+                // The old copies may only go once the index pointing at the new ones is on disk
+                indexCommitter.flush().join();
+                segmentStore.deleteSegment(segment);
+                reclaimed++;
+                logger.info("Compacted segment " + segment + " (" + moved + " files moved)");
+            } catch (IOException | CompletionException e) {
+                logger.warning("Failed to compact segment " + segment + ": " + e.getMessage());
+            }
+        }
+        return reclaimed;
+    }
+    
+    /**
+     * Metadata of a file without loading its data.
+     */
+    public FileView getFileView(String id) {
+        FileIndex index = fileIndex.get(id);
+        if (index == null) {
+            return null;
+        }
+        
+        if (index.isExpired()) {
+            deleteFile(id);
+            return null;
+        }
+        return index;
+    }
+    
+    /**
+     * Read-only view of a blob's bytes backed by a shared memory mapping.
+     * Returns null when the blob is not eligible (compressed, packed, cached on heap
+     * or outside the mmap size range); callers then fall back to {@link #getFileData}.
+     */
+    public ByteBuffer getMappedData(String id) throws IOException {
+        if (mappedPool == null) {
+            return null;
+        }
+        FileIndex index = fileIndex.get(id);
+        if (index == null || index.isExpired() || index.isCompressed || index.diskPath == null
+                || index.size < mmapMinSize || index.size > mmapMaxSize || fileCache.containsKey(id)) {
+            return null;
+        }
+        
+        String diskPath = index.diskPath;
+        try {
+            return mappedPool.map(id, storageDirectory.resolve(diskPath));
+        } catch (NoSuchFileException e) {
+            if (!diskPath.equals(index.diskPath)) {
+                return getMappedData(id); // Moved by the layout migration while we were mapping
+            }
+            return null; // Let the regular read path report and forget the missing file
+        }
     }
     
     public StoredFile getFile(String id) {
@@ -541,14 +1201,18 @@ if (enableCompression && data.length >= compressThreshold) {
         }
         
         // Check cache first
+        BlobEvents.CacheLookup event = new BlobEvents.CacheLookup();
+        event.begin();
         CachedFile cached = fileCache.get(id);
         if (cached != null) {
+            BlobMetrics.CACHE_HITS.increment();
             byte[] data = cached.data;
+            commitLookup(event, id, true, data.length);
             if (index.isCompressed) {
                 try {
                     data = decompressData(data);
                 } catch (IOException e) {
-                    plugin.getLogger().warning("Failed to decompress cached file " + id + ": " + e.getMessage());
+                    logger.warning("Failed to decompress cached file " + id + ": " + e.getMessage());
                     return null;
                 }
             }
@@ -556,31 +1220,35 @@ if (enableCompression && data.length >= compressThreshold) {
         }
         
         // Load from disk
+        BlobMetrics.CACHE_MISSES.increment();
         try {
-            Path filePath = storageDirectory.resolve(index.diskPath);
-            if (!Files.exists(filePath)) {
-                plugin.getLogger().warning("File missing from disk: " + index.diskPath);
-                fileIndex.remove(id);
-                saveFileIndex();
+            byte[] data = readBlob(id, index);
+            if (data == null) {
                 return null;
             }
-            
-            byte[] data = Files.readAllBytes(filePath);
+            commitLookup(event, id, false, data.length);
             
             // Add to cache if we have memory available
-            if (usedMemory + data.length <= maxRam) {
-                fileCache.put(id, new CachedFile(data));
-                usedMemory += data.length;
-            }
+            cacheData(id, data);
             
             return index.toStoredFile(data);
             
         } catch (IOException e) {
-            plugin.getLogger().warning("Failed to load file from disk: " + e.getMessage());
+            logger.warning("Failed to load file from disk: " + e.getMessage());
             return null;
         }
     }
     
+    private static void commitLookup(BlobEvents.CacheLookup event, String id, boolean hit, long bytes) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.fileId = id;
+            event.hit = hit;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+    
     public byte[] getFileData(String id) throws IOException {
         FileIndex index = fileIndex.get(id);
         if (index == null) {
@@ -593,9 +1261,13 @@ if (enableCompression && data.length >= compressThreshold) {
         }
         
         // Check cache first
+        BlobEvents.CacheLookup event = new BlobEvents.CacheLookup();
+        event.begin();
         CachedFile cached = fileCache.get(id);
         if (cached != null) {
+            BlobMetrics.CACHE_HITS.increment();
             byte[] data = cached.data;
+            commitLookup(event, id, true, data.length);
             if (index.isCompressed) {
                 return decompressData(data);
             }
@@ -603,21 +1275,15 @@ if (enableCompression && data.length >= compressThreshold) {
         }
         
         // Load from disk
-        Path filePath = storageDirectory.resolve(index.diskPath);
-        if (!Files.exists(filePath)) {
-            plugin.getLogger().warning("File missing from disk: " + index.diskPath);
-            fileIndex.remove(id);
-            saveFileIndex();
+        BlobMetrics.CACHE_MISSES.increment();
+        byte[] data = readBlob(id, index);
+        if (data == null) {
             return null;
         }
-        
-        byte[] data = Files.readAllBytes(filePath);
+        commitLookup(event, id, false, data.length);
         
         // Add to cache if we have memory available
-        if (usedMemory + data.length <= maxRam) {
-            fileCache.put(id, new CachedFile(data));
-            usedMemory += data.length;
-        }
+        cacheData(id, data);
         
         if (index.isCompressed) {
             return decompressData(data);
@@ -626,37 +1292,216 @@ if (enableCompression && data.length >= compressThreshold) {
         return data;
     }
     
-    public synchronized boolean deleteFile(String id) {
-        FileIndex index = fileIndex.remove(id);
-        if (index != null) {
-            // Delete from disk
+    /**
+     * Read the stored (possibly compressed) bytes of a blob.
+     * Returns null if the blob is gone from disk.
+     */
+    private byte[] readBlob(String id, FileIndex index) throws IOException {
+        SegmentStore.Location location = index.segment;
+        if (location != null) {
             try {
-                Path filePath = storageDirectory.resolve(index.diskPath);
-                Path metaPath = storageDirectory.resolve(index.diskPath + ".meta");
-                
-                Files.deleteIfExists(filePath);
-                Files.deleteIfExists(metaPath);
-                
+                return segmentStore.read(location);
             } catch (IOException e) {
-                plugin.getLogger().warning("Failed to delete file from disk: " + e.getMessage());
+                if (location != index.segment) {
+                    return readBlob(id, index); // Moved by compaction while we were reading
+                }
+                throw e;
             }
-            
-            // Remove from cache
-            CachedFile cached = fileCache.remove(id);
-            if (cached != null) {
-                usedMemory -= cached.data.length;
+        }
+        
+        String diskPath = index.diskPath;
+        try {
+            return Files.readAllBytes(storageDirectory.resolve(diskPath));
+        } catch (NoSuchFileException e) {
+            if (!diskPath.equals(index.diskPath)) {
+                return readBlob(id, index); // Moved by the layout migration while we were reading
             }
-            
-            usedStorage -= index.size;
-            saveFileIndex();
-            
-            plugin.getLogger().info("Deleted file: " + index.filename + " (ID: " + id + ")");
+            logger.warning("File missing from disk: " + diskPath);
+            forgetMissingFile(id, diskPath);
+            return null;
+        }
+    }
+    
+    public boolean deleteFile(String id) {
+        FileIndex index = removeFile(id);
+        if (index != null) {
+            indexCommitter.markDirty();
+            logger.fine("Deleted file: " + index.filename + " (ID: " + id + ")");
             return true;
         }
         return false;
     }
     
-    public List<StoredFile> listFiles(int page, int pageSize, String extensionFilter) {
+    /**
+     * Delete many files with a single index commit.
+     * The result's commit future completes once the removals are durable.
+     */
+    public BatchDeleteResult deleteFiles(Collection<String> ids) {
+        List<String> deleted = new ArrayList<>();
+        List<String> notFound = new ArrayList<>();
+        
+        for (String id : ids) {
+            if (removeFile(id) != null) {
+                deleted.add(id);
+            } else {
+                notFound.add(id);
+            }
+        }
+        
+        CompletableFuture<Void> commit = deleted.isEmpty() 
+            ? CompletableFuture.completedFuture(null) 
+            : indexCommitter.markDirty();
+        
+        if (!deleted.isEmpty()) {
+            logger.info("Deleted " + deleted.size() + " files in batch");
+        }
+        return new BatchDeleteResult(deleted, notFound, commit);
+    }
+    
+    private FileIndex removeFile(String id) {
+        ReentrantLock lock = idLocks.forKey(id);
+        lock.lock();
+        try {
+            FileIndex index = fileIndex.remove(id);
+            if (index != null) {
+                unindexContent(index);
+            }
+            if (index != null && index.segment != null) {
+                // Space is reclaimed later by compaction
+                segmentStore.free(index.segment);
+                evictFromCache(id);
+                quotaManager.release(index.size, index.uploaderIp, index.uploader());
+            } else if (index != null) {
+                // Delete from disk, unless a deduplicated entry still shares the blob
+                try {
+                    Path filePath = storageDirectory.resolve(index.diskPath);
+                    Path metaPath = storageDirectory.resolve(StorageLayout.metaPathFor(index.diskPath));
+                    
+                    FileIndex sharer = findSharer(index);
+                    if (sharer != null) {
+                        // Hand the sidecar over so a directory scan recovers the surviving entry
+                        writeMetaFile(sharer, metaPath);
+                    } else {
+                        Files.deleteIfExists(filePath);
+                        Files.deleteIfExists(metaPath);
+                    }
+                    
+                } catch (IOException e) {
+                    logger.warning("Failed to delete file from disk: " + e.getMessage());
+                }
+                
+                evictFromCache(id);
+                if (mappedPool != null) {
+                    mappedPool.invalidate(id);
+                }
+                quotaManager.release(index.size, index.uploaderIp, index.uploader());
+            }
+            return index;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void forgetMissingFile(String id, String missingPath) {
+        ReentrantLock lock = idLocks.forKey(id);
+        lock.lock();
+        try {
+            // Only drop the entry if it still points at the path we failed to read
+            FileIndex current = fileIndex.get(id);
+            if (current != null && missingPath.equals(current.diskPath) 
+                    && !Files.exists(storageDirectory.resolve(missingPath))) {
+                removeFile(id);
+                indexCommitter.markDirty();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void indexContent(FileIndex index) {
+        if (index.etag != null) {
+            contentIndex.compute(index.etag, (hash, ids) -> {
+                Set<String> holders = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                holders.add(index.id);
+                return holders;
+            });
+        }
+        List<String> chunks = index.chunkHashes;
+        if (chunks != null) {
+            for (String chunk : chunks) {
+                chunkIndex.putIfAbsent(chunk, index.id);
+            }
+        }
+    }
+    
+    private void unindexContent(FileIndex index) {
+        if (index.etag != null) {
+            contentIndex.computeIfPresent(index.etag, (hash, ids) -> {
+                ids.remove(index.id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+        List<String> chunks = index.chunkHashes;
+        if (chunks != null) {
+            // Deduplicated copies hold the same chunks, so one of them takes over
+            Set<String> holders = index.etag != null ? contentIndex.get(index.etag) : null;
+            String heir = holders == null ? null : holders.stream()
+                .filter(id -> {
+                    FileIndex other = fileIndex.get(id);
+                    return other != null && chunks.equals(other.chunkHashes);
+                })
+                .findAny().orElse(null);
+            for (String chunk : chunks) {
+                if (chunkIndex.remove(chunk, index.id) && heir != null) {
+                    chunkIndex.putIfAbsent(chunk, heir);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Another live entry pointing at the same blob file as a removed one, or null.
+     * Callers remove their entry first, so of two racing deletes at least the later
+     * one sees no sharer and deletes the blob.
+     */
+    private FileIndex findSharer(FileIndex removed) {
+        Set<String> holders = removed.etag != null ? contentIndex.get(removed.etag) : null;
+        if (holders == null) {
+            return null;
+        }
+        for (String id : holders) {
+            FileIndex other = fileIndex.get(id);
+            if (other != null && removed.diskPath.equals(other.diskPath)) {
+                return other;
+            }
+        }
+        return null;
+    }
+    
+    private void cacheData(String id, byte[] data) {
+        // Reserve memory first so concurrent loads cannot overshoot max-ram together
+        while (true) {
+            long current = usedMemory.get();
+            if (current + data.length > maxRam) {
+                return;
+            }
+            if (usedMemory.compareAndSet(current, current + data.length)) {
+                break;
+            }
+        }
+        if (fileCache.putIfAbsent(id, new CachedFile(data)) != null) {
+            usedMemory.addAndGet(-data.length); // Another thread cached it first
+        }
+    }
+    
+    private void evictFromCache(String id) {
+        CachedFile cached = fileCache.remove(id);
+        if (cached != null) {
+            usedMemory.addAndGet(-cached.data.length);
+        }
+    }
+    
+    public List<FileView> listFiles(int page, int pageSize, String extensionFilter) {
         List<FileIndex> allIndices = new ArrayList<>();
         
         // Filter out expired files and apply extension filter
@@ -687,27 +1532,20 @@ if (enableCompression && data.length >= compressThreshold) {
             return new ArrayList<>();
         }
         
-        List<StoredFile> result = new ArrayList<>();
-        for (int i = start; i < end; i++) {
-            FileIndex index = allIndices.get(i);
-            // Create StoredFile without loading actual data (for listing purposes)
-            StoredFile file = index.toStoredFile(new byte[0]); // Empty data for listing
-            result.add(file);
-        }
-        
-        return result;
+        // Index entries are handed out as-is; nothing is copied per row
+        return new ArrayList<>(allIndices.subList(start, end));
     }
-    public List<StoredFile> listFiles(int page, int pageSize, String extensionFilter, String inputFilter) {
-        List<StoredFile> files = listFiles(page, pageSize, extensionFilter);
+    public List<FileView> listFiles(int page, int pageSize, String extensionFilter, String inputFilter) {
+        List<FileView> files = listFiles(page, pageSize, extensionFilter);
         
         if (inputFilter == null || inputFilter.trim().isEmpty()) {
             return files; // No filter applied
         }
         
         String filter = inputFilter.toLowerCase();
-        List<StoredFile> filteredFiles = new ArrayList<>();
+        List<FileView> filteredFiles = new ArrayList<>();
         
-        for (StoredFile file : files) {
+        for (FileView file : files) {
             if (file.getFilename().toLowerCase().contains(filter) || 
                 file.getId().toLowerCase().contains(filter)) {
                 filteredFiles.add(file);
@@ -773,15 +1611,13 @@ if (enableCompression && data.length >= compressThreshold) {
         }
         
         if (!expiredIds.isEmpty()) {
-            plugin.getLogger().info("Cleaning up " + expiredIds.size() + " expired files");
-            for (String id : expiredIds) {
-                deleteFile(id);
-            }
+            logger.info("Cleaning up " + expiredIds.size() + " expired files");
+            deleteFiles(expiredIds);
         }
     }
     
     private void cleanupCache() {
-        if (fileCache.size() <= maxCacheSize && usedMemory <= maxRam) {
+        if (fileCache.size() <= maxCacheSize && usedMemory.get() <= maxRam) {
             return;
         }
         
@@ -790,48 +1626,79 @@ if (enableCompression && data.length >= compressThreshold) {
         entries.sort((a, b) -> Long.compare(a.getValue().lastAccessed, b.getValue().lastAccessed));
         
         int toRemove = Math.max(0, fileCache.size() - maxCacheSize);
-        if (usedMemory > maxRam) {
+        if (usedMemory.get() > maxRam) {
             toRemove = Math.max(toRemove, fileCache.size() / 2); // Remove half if over memory limit
         }
         
         for (int i = 0; i < toRemove && i < entries.size(); i++) {
             Map.Entry<String, CachedFile> entry = entries.get(i);
-            fileCache.remove(entry.getKey());
-            usedMemory -= entry.getValue().data.length;
+            // Only account for entries this thread actually removed
+            if (fileCache.remove(entry.getKey(), entry.getValue())) {
+                usedMemory.addAndGet(-entry.getValue().data.length);
+            }
         }
         
         if (toRemove > 0) {
-            plugin.getLogger().info("Cleaned up " + toRemove + " files from cache");
+            logger.info("Cleaned up " + toRemove + " files from cache");
         }
     }
     
-private byte[] compressData(byte[] data) throws IOException {
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    // You can customize compression level with Deflater
+    
+byte[] compressData(byte[] data) throws IOException {
+    long start = System.nanoTime();
+    BlobEvents.Compression event = new BlobEvents.Compression();
+    event.begin();
+    // Sized for a typical 2:1 ratio so the output grows at most once
+    ByteArrayOutputStream baos = new ByteArrayOutputStream(Math.max(64, data.length / 2));
     try (GZIPOutputStream gzos = new GZIPOutputStream(baos)) {
-        int chunkSize = 8192;
-        for (int offset = 0; offset < data.length; offset += chunkSize) {
-            int len = Math.min(chunkSize, data.length - offset);
-            gzos.write(data, offset, len);
-        }
+        gzos.write(data);
     }
-    return baos.toByteArray();
+    byte[] compressed = baos.toByteArray();
+    BlobMetrics.COMPRESS_DURATION.observeSince(start);
+    BlobMetrics.COMPRESS_IN.add(data.length);
+    BlobMetrics.COMPRESS_OUT.add(compressed.length);
+    commitCompression(event, "compress", data.length, compressed.length);
+    return compressed;
 }
 
 
-private byte[] decompressData(byte[] compressedData) throws IOException {
-    ByteArrayInputStream bais = new ByteArrayInputStream(compressedData);
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+byte[] decompressData(byte[] compressedData) throws IOException {
+    long start = System.nanoTime();
+    BlobEvents.Compression event = new BlobEvents.Compression();
+    event.begin();
+    // The gzip trailer ends with the uncompressed size, so inflate straight into an exact array
+    int length = compressedData.length;
+    if (length < 18) {
+        throw new IOException("Compressed data too short: " + length + " bytes");
+    }
+    int originalSize = (compressedData[length - 4] & 0xff)
+        | (compressedData[length - 3] & 0xff) << 8
+        | (compressedData[length - 2] & 0xff) << 16
+        | (compressedData[length - 1] & 0xff) << 24;
+    if (originalSize < 0) {
+        throw new IOException("Compressed data larger than 2GB");
+    }
 
-    try (GZIPInputStream gzis = new GZIPInputStream(bais)) {
-        byte[] buffer = new byte[8192];
-        int len;
-        while ((len = gzis.read(buffer)) != -1) {
-            baos.write(buffer, 0, len);
+    byte[] data = new byte[originalSize];
+    try (GZIPInputStream gzis = new GZIPInputStream(new ByteArrayInputStream(compressedData))) {
+        if (gzis.readNBytes(data, 0, originalSize) != originalSize || gzis.read() != -1) {
+            throw new IOException("Decompressed size does not match the gzip trailer");
         }
     }
 
-    return baos.toByteArray();
+    BlobMetrics.DECOMPRESS_DURATION.observeSince(start);
+    commitCompression(event, "decompress", compressedData.length, data.length);
+    return data;
+}
+
+private static void commitCompression(BlobEvents.Compression event, String operation, long in, long out) {
+    event.end();
+    if (event.shouldCommit()) {
+        event.operation = operation;
+        event.inputBytes = in;
+        event.outputBytes = out;
+        event.commit();
+    }
 }
 
     
@@ -846,11 +1713,31 @@ private byte[] decompressData(byte[] compressedData) throws IOException {
     }
     
     public long getUsedMemory() {
-        return usedMemory;
+        return usedMemory.get();
     }
     
     public long getUsedStorage() {
-        return usedStorage;
+        return quotaManager.getCommitted();
+    }
+    
+    public long getReservedStorage() {
+        return quotaManager.getReserved();
+    }
+    
+    public int getSegmentCount() {
+        return segmentStore != null ? segmentStore.getSegmentCount() : 0;
+    }
+    
+    public long getSegmentDeadBytes() {
+        return segmentStore != null ? segmentStore.getDeadBytes() : 0;
+    }
+    
+    public int getMappedBlobCount() {
+        return mappedPool != null ? mappedPool.size() : 0;
+    }
+    
+    public long getMappedBytes() {
+        return mappedPool != null ? mappedPool.getMappedBytes() : 0;
     }
     
     public long getMaxRam() {
@@ -861,20 +1748,43 @@ private byte[] decompressData(byte[] compressedData) throws IOException {
         return maxStorage;
     }
     
-    public synchronized void clear() {
-        fileIndex.clear();
-        fileCache.clear();
-        usedMemory = 0;
-        usedStorage = 0;
-        saveFileIndex();
+    public void clear() {
+        idLocks.lockAll();
+        try {
+            fileIndex.clear();
+            contentIndex.clear();
+            chunkIndex.clear();
+            fileCache.clear();
+            usedMemory.set(0);
+            if (mappedPool != null) {
+                mappedPool.clear();
+            }
+            quotaManager.reset();
+        } finally {
+            idLocks.unlockAll();
+        }
+        indexCommitter.markDirty();
     }
     
     public void shutdown() {
         if (cleanupExecutor != null) {
             cleanupExecutor.shutdown();
         }
-        saveFileIndex();
-        plugin.getLogger().info("FileStorage shutdown completed");
+        cacheCleanupExecutor.shutdown();
+        if (compactionExecutor != null) {
+            // No interrupt: it would close the segment channels under a running compaction
+            compactionExecutor.shutdown();
+            try {
+                compactionExecutor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        indexCommitter.shutdown();
+        if (segmentStore != null) {
+            segmentStore.close();
+        }
+        logger.info("FileStorage shutdown completed");
     }
     
     private String generateUniqueId() {
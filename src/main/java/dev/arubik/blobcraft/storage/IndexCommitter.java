@@ -0,0 +1,137 @@
+package dev.arubik.blobcraft.storage;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Group-commit writer for the file index.
+ * Mutations only mark the index dirty; a single background thread persists
+ * the coalesced state every flush interval or once enough mutations are pending.
+ * Once shut down, callers flush on their own thread, one writer at a time.
+ */
+public class IndexCommitter {
+
+    private final Runnable writer;
+    private final Logger logger;
+    private final long flushIntervalMs;
+    private final int flushThreshold;
+    private final ScheduledExecutorService executor;
+
+    private final AtomicInteger pendingMutations = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Object commitLock = new Object();
+    // Held for a whole flush: after shutdown, flushes also run on caller threads
+    private final Object writeLock = new Object();
+
+    // Completed by the next flush that covers the mutations registered against it
+    private CompletableFuture<Void> nextCommit = new CompletableFuture<>();
+    private volatile boolean running = true;
+
+    public IndexCommitter(Runnable writer, long flushIntervalMs, int flushThreshold, Logger logger) {
+        this.writer = writer;
+        this.logger = logger;
+        this.flushIntervalMs = Math.max(10, flushIntervalMs);
+        this.flushThreshold = Math.max(1, flushThreshold);
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "BlobCraft-IndexCommitter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleWithFixedDelay(this::flushIfDirty,
+            this.flushIntervalMs, this.flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Register an index mutation. The returned future completes once the
+     * mutation has been written to disk; callers may ignore it.
+     */
+    public CompletableFuture<Void> markDirty() {
+        CompletableFuture<Void> commit;
+        synchronized (commitLock) {
+            commit = nextCommit;
+            pendingMutations.incrementAndGet();
+        }
+
+        if (!running) {
+            flushNow();
+        } else if (pendingMutations.get() >= flushThreshold && flushScheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                flushScheduled.set(false);
+                flushIfDirty();
+            });
+        }
+        return commit;
+    }
+
+    /**
+     * Force a flush of any pending mutations and wait for it to finish.
+     */
+    public CompletableFuture<Void> flush() {
+        CompletableFuture<Void> commit;
+        synchronized (commitLock) {
+            commit = nextCommit;
+            pendingMutations.incrementAndGet();
+        }
+        if (running) {
+            executor.execute(this::flushIfDirty);
+        } else {
+            flushNow();
+        }
+        return commit;
+    }
+
+    public int getPendingMutations() {
+        return pendingMutations.get();
+    }
+
+    private void flushIfDirty() {
+        if (pendingMutations.get() > 0) {
+            flushNow();
+        }
+    }
+
+    private void flushNow() {
+        synchronized (writeLock) {
+            CompletableFuture<Void> commit;
+            int flushed;
+            synchronized (commitLock) {
+                flushed = pendingMutations.getAndSet(0);
+                commit = nextCommit;
+                nextCommit = new CompletableFuture<>();
+            }
+
+            try {
+                if (flushed > 0) {
+                    writer.run();
+                }
+                commit.complete(null);
+            } catch (RuntimeException e) {
+                logger.warning("Failed to commit file index (" + flushed + " mutations): " + e.getMessage());
+                commit.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Stop the background writer and persist whatever is still pending.
+     */
+    public void shutdown() {
+        running = false;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flushNow();
+    }
+}
@@ -0,0 +1,94 @@
+package dev.arubik.blobcraft.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU of memory-mapped blobs.
+ * Concurrent downloads of the same blob read the same page-cache pages through
+ * duplicates of one mapping instead of each copying the file onto the heap.
+ * Evicted mappings are unmapped by the GC once no download still uses them.
+ */
+class MappedBlobPool {
+
+    private final int maxEntries;
+    private final long maxMappedBytes;
+
+    // Access-ordered, so iteration starts at the least recently served blob
+    private final LinkedHashMap<String, MappedByteBuffer> buffers = new LinkedHashMap<>(16, 0.75f, true);
+    private long mappedBytes;
+
+    MappedBlobPool(int maxEntries, long maxMappedBytes) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxMappedBytes = maxMappedBytes;
+    }
+
+    /**
+     * Read-only view of the blob, mapping the file if it is not pooled yet.
+     * Each caller gets its own position and limit.
+     */
+    ByteBuffer map(String id, Path path) throws IOException {
+        synchronized (this) {
+            MappedByteBuffer pooled = buffers.get(id);
+            if (pooled != null) {
+                return pooled.duplicate();
+            }
+        }
+
+        // Map outside the lock; blobs are never rewritten in place so the mapping stays valid
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        synchronized (this) {
+            MappedByteBuffer raced = buffers.get(id);
+            if (raced != null) {
+                return raced.duplicate();
+            }
+            buffers.put(id, buffer);
+            mappedBytes += buffer.capacity();
+            evictOverflow(id);
+        }
+        return buffer.duplicate();
+    }
+
+    synchronized void invalidate(String id) {
+        MappedByteBuffer removed = buffers.remove(id);
+        if (removed != null) {
+            mappedBytes -= removed.capacity();
+        }
+    }
+
+    synchronized void clear() {
+        buffers.clear();
+        mappedBytes = 0;
+    }
+
+    synchronized int size() {
+        return buffers.size();
+    }
+
+    synchronized long getMappedBytes() {
+        return mappedBytes;
+    }
+
+    private void evictOverflow(String keep) {
+        Iterator<Map.Entry<String, MappedByteBuffer>> it = buffers.entrySet().iterator();
+        while ((buffers.size() > maxEntries || (maxMappedBytes > 0 && mappedBytes > maxMappedBytes)) && it.hasNext()) {
+            Map.Entry<String, MappedByteBuffer> eldest = it.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            mappedBytes -= eldest.getValue().capacity();
+            it.remove();
+        }
+    }
+}
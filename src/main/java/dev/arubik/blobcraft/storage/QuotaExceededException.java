@@ -0,0 +1,10 @@
+package dev.arubik.blobcraft.storage;
+
+/**
+ * Thrown when a storage reservation would exceed the global, per-IP or per-uploader quota.
+ */
+public class QuotaExceededException extends RuntimeException {
+    public QuotaExceededException(String message) {
+        super(message);
+    }
+}
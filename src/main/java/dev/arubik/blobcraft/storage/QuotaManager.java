@@ -0,0 +1,216 @@
+package dev.arubik.blobcraft.storage;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks storage usage globally, per uploader IP and per uploader name.
+ * Space is debited through reservations before any bytes are received, so
+ * concurrent uploads are rejected up front instead of failing after the transfer.
+ */
+public class QuotaManager {
+
+    private final long maxStorage;
+    private final long perIpLimit;
+    private final long perUploaderLimit;
+
+    // Committed plus reserved bytes; this is what the limits are checked against
+    private final AtomicLong used = new AtomicLong();
+    private final AtomicLong reserved = new AtomicLong();
+    private final Map<String, AtomicLong> ipUsage = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> uploaderUsage = new ConcurrentHashMap<>();
+
+    public QuotaManager(long maxStorage, long perIpLimit, long perUploaderLimit) {
+        this.maxStorage = maxStorage;
+        this.perIpLimit = perIpLimit;
+        this.perUploaderLimit = perUploaderLimit;
+    }
+
+    /**
+     * Reserve space for an upload that has not been stored yet.
+     *
+     * @throws QuotaExceededException if any of the limits would be exceeded
+     */
+    public Reservation reserve(long bytes, String uploaderIp, String uploader) {
+        if (!tryDebit(used, bytes, maxStorage)) {
+            throw new QuotaExceededException("Storage limit exceeded");
+        }
+        if (!tryDebit(ipUsage, uploaderIp, bytes, perIpLimit)) {
+            used.addAndGet(-bytes);
+            throw new QuotaExceededException("Storage quota exceeded for IP " + uploaderIp);
+        }
+        if (!tryDebit(uploaderUsage, uploader, bytes, perUploaderLimit)) {
+            used.addAndGet(-bytes);
+            credit(ipUsage, uploaderIp, bytes);
+            throw new QuotaExceededException("Storage quota exceeded for uploader " + uploader);
+        }
+        reserved.addAndGet(bytes);
+        return new Reservation(bytes, uploaderIp, uploader);
+    }
+
+    /**
+     * Record space used by an already stored file (index load).
+     */
+    void charge(long bytes, String uploaderIp, String uploader) {
+        used.addAndGet(bytes);
+        tryDebit(ipUsage, uploaderIp, bytes, 0);
+        tryDebit(uploaderUsage, uploader, bytes, 0);
+    }
+
+    /**
+     * Return the space of a deleted file.
+     */
+    void release(long bytes, String uploaderIp, String uploader) {
+        used.addAndGet(-bytes);
+        credit(ipUsage, uploaderIp, bytes);
+        credit(uploaderUsage, uploader, bytes);
+    }
+
+    void reset() {
+        used.set(reserved.get());
+        ipUsage.clear();
+        uploaderUsage.clear();
+    }
+
+    public long getCommitted() {
+        return used.get() - reserved.get();
+    }
+
+    public long getReserved() {
+        return reserved.get();
+    }
+
+    public long getUsage(String uploaderIp) {
+        AtomicLong usage = uploaderIp != null ? ipUsage.get(uploaderIp) : null;
+        return usage != null ? usage.get() : 0;
+    }
+
+    /**
+     * IPs and uploader names that currently hold storage.
+     */
+    public int getTrackedKeys() {
+        return ipUsage.size() + uploaderUsage.size();
+    }
+
+    private static boolean tryDebit(AtomicLong counter, long bytes, long limit) {
+        if (limit <= 0) {
+            counter.addAndGet(bytes);
+            return true;
+        }
+        while (true) {
+            long current = counter.get();
+            if (current + bytes > limit) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Debit a client's counter under the map's per-key lock, so it cannot race with
+     * {@link #credit} dropping the same counter at zero.
+     */
+    private static boolean tryDebit(Map<String, AtomicLong> usage, String key, long bytes, long limit) {
+        if (key == null) {
+            return true;
+        }
+        boolean[] debited = new boolean[1];
+        usage.compute(key, (k, counter) -> {
+            long current = counter != null ? counter.get() : 0;
+            if (limit > 0 && current + bytes > limit) {
+                return counter;
+            }
+            debited[0] = true;
+            if (counter == null) {
+                counter = new AtomicLong();
+            }
+            counter.addAndGet(bytes);
+            return counter;
+        });
+        return debited[0];
+    }
+
+    /**
+     * Give bytes back to a client; clients with nothing stored or reserved are forgotten.
+     */
+    private static void credit(Map<String, AtomicLong> usage, String key, long bytes) {
+        if (key != null) {
+            usage.computeIfPresent(key, (k, counter) -> counter.addAndGet(-bytes) <= 0 ? null : counter);
+        }
+    }
+
+    /**
+     * Space held for an in-flight upload. Either committed when the file is
+     * stored or released when the upload is cancelled, expires or fails.
+     */
+    public class Reservation {
+        private final String uploaderIp;
+        private final String uploader;
+        private final AtomicBoolean settled = new AtomicBoolean(false);
+        private volatile long bytes;
+
+        private Reservation(long bytes, String uploaderIp, String uploader) {
+            this.bytes = bytes;
+            this.uploaderIp = uploaderIp;
+            this.uploader = uploader;
+        }
+
+        /**
+         * Grow or shrink the reservation to the final stored size.
+         * Returns false (leaving the reservation unchanged) if growing would exceed a limit.
+         */
+        synchronized boolean resize(long newBytes) {
+            if (settled.get()) {
+                return false;
+            }
+            long delta = newBytes - bytes;
+            if (delta < 0) {
+                reserved.addAndGet(delta);
+                QuotaManager.this.release(-delta, uploaderIp, uploader);
+            } else if (delta > 0) {
+                try {
+                    reserve(delta, uploaderIp, uploader); // Debits the extra bytes as reserved
+                } catch (QuotaExceededException e) {
+                    return false;
+                }
+            }
+            bytes = newBytes;
+            return true;
+        }
+
+        /**
+         * Turn the reservation into committed usage.
+         */
+        synchronized void commit() {
+            if (settled.compareAndSet(false, true)) {
+                reserved.addAndGet(-bytes);
+            }
+        }
+
+        /**
+         * Give the space back. Safe to call more than once and after commit.
+         */
+        public synchronized void release() {
+            if (settled.compareAndSet(false, true)) {
+                reserved.addAndGet(-bytes);
+                QuotaManager.this.release(bytes, uploaderIp, uploader);
+            }
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public String getUploaderIp() {
+            return uploaderIp;
+        }
+
+        public String getUploader() {
+            return uploader;
+        }
+    }
+}
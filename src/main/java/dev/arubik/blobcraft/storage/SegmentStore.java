@@ -0,0 +1,260 @@
+package dev.arubik.blobcraft.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Log-structured store for small blobs.
+ * Blobs are appended to large segment files and addressed by (segment, offset, length),
+ * so a small upload costs one append instead of a blob file plus a sidecar.
+ * Space of deleted blobs is reclaimed by rewriting mostly-dead segments.
+ */
+class SegmentStore {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    private final Path directory;
+    private final long maxSegmentSize;
+    private final Logger logger;
+
+    // Sizes and live bytes per segment; dead bytes = size - live
+    private final Map<Integer, AtomicLong> segmentSizes = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicLong> liveBytes = new ConcurrentHashMap<>();
+    private final Map<Integer, FileChannel> readChannels = new ConcurrentHashMap<>();
+
+    private final Object appendLock = new Object();
+    private int activeSegment;
+    private FileChannel activeChannel;
+    private long activeSize;
+    private boolean dirty;
+
+    /**
+     * Immutable address of a blob inside a segment.
+     */
+    static final class Location {
+        final int segment;
+        final long offset;
+        final int length;
+
+        Location(int segment, long offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    SegmentStore(Path directory, long maxSegmentSize, Logger logger) throws IOException {
+        this.directory = directory;
+        this.maxSegmentSize = maxSegmentSize;
+        this.logger = logger;
+
+        Files.createDirectories(directory);
+        int highest = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                int id = parseSegmentId(path);
+                if (id > 0) {
+                    segmentSizes.put(id, new AtomicLong(Files.size(path)));
+                    liveBytes.put(id, new AtomicLong());
+                    highest = Math.max(highest, id);
+                }
+            }
+        }
+        openActive(highest > 0 ? highest : 1);
+    }
+
+    /**
+     * Append a blob to the active segment, rolling over to a new segment when full.
+     */
+    Location append(byte[] data) throws IOException {
+        synchronized (appendLock) {
+            if (!activeChannel.isOpen()) {
+                openActive(activeSegment); // Closed by an interrupted writer
+            }
+            if (activeSize > 0 && activeSize + data.length > maxSegmentSize) {
+                activeChannel.force(false);
+                activeChannel.close();
+                openActive(activeSegment + 1);
+            }
+
+            long offset = activeSize;
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                activeChannel.write(buffer, offset + buffer.position());
+            }
+            activeSize += data.length;
+            dirty = true;
+
+            segmentSizes.get(activeSegment).set(activeSize);
+            liveBytes.get(activeSegment).addAndGet(data.length);
+            return new Location(activeSegment, offset, data.length);
+        }
+    }
+
+    byte[] read(Location location) throws IOException {
+        FileChannel channel = readChannel(location.segment);
+        byte[] data = new byte[location.length];
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, location.offset + buffer.position());
+            if (read < 0) {
+                throw new IOException("Segment " + location.segment + " is truncated");
+            }
+        }
+        return data;
+    }
+
+    boolean exists(Location location) {
+        AtomicLong size = segmentSizes.get(location.segment);
+        return size != null && location.offset + location.length <= size.get();
+    }
+
+    /**
+     * Count a blob loaded from the index as live.
+     */
+    void markLive(Location location) {
+        AtomicLong live = liveBytes.get(location.segment);
+        if (live != null) {
+            live.addAndGet(location.length);
+        }
+    }
+
+    /**
+     * Mark a blob's bytes as dead so compaction can reclaim them.
+     */
+    void free(Location location) {
+        AtomicLong live = liveBytes.get(location.segment);
+        if (live != null) {
+            live.addAndGet(-location.length);
+        }
+    }
+
+    /**
+     * Flush appended data so the index never references bytes that are not on disk.
+     */
+    void sync() throws IOException {
+        synchronized (appendLock) {
+            if (dirty) {
+                if (!activeChannel.isOpen()) {
+                    openActive(activeSegment);
+                }
+                activeChannel.force(false);
+                dirty = false;
+            }
+        }
+    }
+
+    /**
+     * Sealed segments whose dead fraction is at least the given ratio.
+     */
+    List<Integer> compactionCandidates(double deadRatio) {
+        List<Integer> candidates = new ArrayList<>();
+        int active;
+        synchronized (appendLock) {
+            active = activeSegment;
+        }
+        for (Map.Entry<Integer, AtomicLong> entry : segmentSizes.entrySet()) {
+            int segment = entry.getKey();
+            long size = entry.getValue().get();
+            if (segment == active || size == 0) {
+                continue;
+            }
+            long dead = size - liveBytes.get(segment).get();
+            if ((double) dead / size >= deadRatio) {
+                candidates.add(segment);
+            }
+        }
+        return candidates;
+    }
+
+    void deleteSegment(int segment) throws IOException {
+        FileChannel channel = readChannels.remove(segment);
+        if (channel != null) {
+            channel.close();
+        }
+        segmentSizes.remove(segment);
+        liveBytes.remove(segment);
+        Files.deleteIfExists(segmentPath(segment));
+    }
+
+    int getSegmentCount() {
+        return segmentSizes.size();
+    }
+
+    long getDeadBytes() {
+        long dead = 0;
+        for (Map.Entry<Integer, AtomicLong> entry : segmentSizes.entrySet()) {
+            AtomicLong live = liveBytes.get(entry.getKey());
+            dead += entry.getValue().get() - (live != null ? live.get() : 0);
+        }
+        return dead;
+    }
+
+    void close() {
+        synchronized (appendLock) {
+            try {
+                activeChannel.force(false);
+                activeChannel.close();
+            } catch (IOException e) {
+                logger.warning("Failed to close active segment: " + e.getMessage());
+            }
+        }
+        for (FileChannel channel : readChannels.values()) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Closing read-only channels cannot lose data
+            }
+        }
+        readChannels.clear();
+    }
+
+    private void openActive(int segment) throws IOException {
+        Path path = segmentPath(segment);
+        activeChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        activeSegment = segment;
+        activeSize = activeChannel.size();
+        segmentSizes.computeIfAbsent(segment, s -> new AtomicLong()).set(activeSize);
+        liveBytes.computeIfAbsent(segment, s -> new AtomicLong());
+    }
+
+    private FileChannel readChannel(int segment) throws IOException {
+        FileChannel channel = readChannels.get(segment);
+        if (channel == null || !channel.isOpen()) {
+            channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ);
+            FileChannel existing = readChannels.putIfAbsent(segment, channel);
+            if (existing != null && existing.isOpen()) {
+                channel.close();
+                channel = existing;
+            } else if (existing != null) {
+                readChannels.put(segment, channel);
+            }
+        }
+        return channel;
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private static int parseSegmentId(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package dev.arubik.blobcraft.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk naming for blobs.
+ * Files are fanned out over two levels of 256 directories ({@code ab/cd/{id}})
+ * so no single directory grows past a few thousand entries. The original
+ * filename is kept in the index, never in the path.
+ */
+final class StorageLayout {
+
+    static final String META_SUFFIX = ".meta";
+
+    private StorageLayout() {}
+
+    /**
+     * Relative path of the blob for a file ID, e.g. {@code 3f/a2/0123456789abcdef}.
+     */
+    static String pathFor(String id) {
+        CRC32 crc = new CRC32();
+        crc.update(id.getBytes(StandardCharsets.UTF_8));
+        String hash = String.format("%08x", crc.getValue());
+        return hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + id;
+    }
+
+    static String metaPathFor(String diskPath) {
+        return diskPath + META_SUFFIX;
+    }
+
+    /**
+     * Legacy entries live directly in the storage root as {@code {id}_{filename}}.
+     */
+    static boolean isLegacy(String diskPath) {
+        return diskPath.indexOf('/') == -1;
+    }
+}
@@ -0,0 +1,500 @@
+let currentPage = 1;
+let totalPages = 1;
+const pageSize = 10;
+
+// Initialize dashboard
+document.addEventListener('DOMContentLoaded', function() {
+    loadStats();
+    loadFiles();
+    setupEventListeners();
+
+    // Refresh stats every 30 seconds
+    setInterval(loadStats, 30000);
+});
+
+function setupEventListeners() {
+    // File upload
+    const fileInput = document.getElementById('fileInput');
+    fileInput.addEventListener('change', handleFileUpload);
+
+    // Drag and drop
+    const uploadArea = document.querySelector('.upload-area');
+    uploadArea.addEventListener('dragover', handleDragOver);
+    uploadArea.addEventListener('dragleave', handleDragLeave);
+    uploadArea.addEventListener('drop', handleDrop);
+
+    // Search and filter
+    document.getElementById('searchInput').addEventListener('input', debounce(loadFiles, 500));
+    document.getElementById('extensionFilter').addEventListener('change', loadFiles);
+
+    // Modal
+    const modal = document.getElementById('metadataModal');
+    const closeBtn = document.querySelector('.close');
+    closeBtn.onclick = function() {
+        modal.style.display = 'none';
+    }
+    window.onclick = function(event) {
+        if (event.target == modal) {
+            modal.style.display = 'none';
+        }
+    }
+}
+
+async function loadStats() {
+    try {
+        const response = await fetch('/api/stats');
+        const stats = await response.json();
+
+        document.getElementById('totalFiles').textContent = stats.totalFiles;
+
+        const memoryPercent = stats.memoryUsagePercent.toFixed(1);
+        document.getElementById('memoryUsage').textContent = memoryPercent + '%';
+        updateProgressBar('memoryProgress', stats.memoryUsagePercent);
+
+        const storagePercent = stats.storageUsagePercent.toFixed(1);
+        document.getElementById('storageUsage').textContent = storagePercent + '%';
+        updateProgressBar('storageProgress', stats.storageUsagePercent);
+
+    } catch (error) {
+        console.error('Failed to load stats:', error);
+        document.getElementById('serverStatus').textContent = '🔴';
+        document.querySelector('#serverStatus').nextElementSibling.textContent = 'error';
+    }
+}
+
+function updateProgressBar(id, percent) {
+    const progressBar = document.getElementById(id);
+    progressBar.style.width = percent + '%';
+
+    progressBar.className = 'progress-fill';
+    if (percent > 80) {
+        progressBar.classList.add('danger');
+    } else if (percent > 60) {
+        progressBar.classList.add('warning');
+    }
+}
+
+async function loadFiles() {
+    const search = document.getElementById('searchInput').value;
+    const extension = document.getElementById('extensionFilter').value;
+
+    try {
+        const params = new URLSearchParams({
+            page: currentPage,
+            pageSize: pageSize
+        });
+
+        if (extension) params.set('ext', extension);
+        if (search) params.set('search', search);
+
+        const response = await fetch(`/list?${params}`);
+        const data = await response.json();
+
+        displayFiles(data.files);
+        updatePagination(data.page, Math.ceil(data.total / data.pageSize), data.total);
+        updateExtensionFilter(data.files);
+
+    } catch (error) {
+        document.getElementById('filesContainer').innerHTML = 
+            '<div class="error">Failed to load files: ' + error.message + '</div>';
+    }
+}
+
+function displayFiles(files) {
+    const container = document.getElementById('filesContainer');
+
+    if (files.length === 0) {
+        container.innerHTML = '<div class="loading">No files found</div>';
+        return;
+    }
+
+    const table = `
+        <table class="files-table">
+            <thead>
+                <tr>
+                    <th>Name</th>
+                    <th>Size</th>
+                    <th>Type</th>
+                    <th>Status</th>
+                    <th>Uploader</th>
+                    <th>Uploaded</th>
+                    <th>Actions</th>
+                </tr>
+            </thead>
+            <tbody>
+                ${files.map(file => `
+                    <tr>
+                        <td title="${file.filename}">${truncateText(file.filename, 30)}</td>
+                        <td class="file-size">${formatFileSize(file.originalSize)}</td>
+                        <td>${file.extension || 'unknown'}</td>
+                        <td>
+                            <span class="file-status ${file.public ? 'status-public' : 'status-private'}">
+                                ${file.public ? 'Public' : 'Private'}
+                            </span>
+                            ${file.compressed ? '<span class="file-status status-compressed">Compressed</span>' : ''}
+                        </td>
+                        <td>${file.uploaderIp || 'anonymous'}</td>
+                        <td>${formatDate(file.uploadedAt)}</td>
+                        <td class="file-actions">
+                            <button class="btn-download" onclick="downloadFile('${file.id}', '${file.filename}', ${file.public})">
+                                📥 Download
+                            </button>
+                            <button class="btn-metadata" onclick="showMetadata('${file.id}')">
+                                📋 Info
+                            </button>
+                            ${file.public ? `<button class="btn-copy" onclick="copyPublicUrl('${file.id}')">🔗 Copy URL</button>` : ''}
+                            <button class="btn-delete" onclick="deleteFile('${file.id}', '${file.filename}')">
+                                🗑️ Delete
+                            </button>
+                        </td>
+                    </tr>
+                `).join('')}
+            </tbody>
+        </table>
+    `;
+
+    container.innerHTML = table;
+}
+
+function updatePagination(current, total, totalFiles) {
+    currentPage = current;
+    totalPages = total;
+
+    const pagination = document.getElementById('pagination');
+
+    if (total <= 1) {
+        pagination.innerHTML = '';
+        return;
+    }
+
+    let html = '';
+
+    // Previous button
+    html += `<button ${current === 1 ? 'disabled' : ''} onclick="changePage(${current - 1})">← Previous</button>`;
+
+    // Page numbers
+    for (let i = Math.max(1, current - 2); i <= Math.min(total, current + 2); i++) {
+        html += `<button class="${i === current ? 'active' : ''}" onclick="changePage(${i})">${i}</button>`;
+    }
+
+    // Next button
+    html += `<button ${current === total ? 'disabled' : ''} onclick="changePage(${current + 1})">Next →</button>`;
+
+    pagination.innerHTML = html;
+}
+
+function changePage(page) {
+    if (page >= 1 && page <= totalPages) {
+        currentPage = page;
+        loadFiles();
+    }
+}
+
+function updateExtensionFilter(files) {
+    const filter = document.getElementById('extensionFilter');
+    const currentValue = filter.value;
+    const extensions = [...new Set(files.map(f => f.extension).filter(Boolean))].sort();
+
+    filter.innerHTML = '<option value="">All extensions</option>' +
+        extensions.map(ext => `<option value="${ext}">${ext}</option>`).join('');
+
+    filter.value = currentValue;
+}
+
+async function handleFileUpload() {
+    const files = document.getElementById('fileInput').files;
+    if (files.length === 0) return;
+
+    await uploadFiles(Array.from(files));
+}
+
+async function uploadFiles(files) {
+    const isPublic = document.getElementById('publicFile').checked;
+    const ttl = document.getElementById('ttlInput').value;
+    const tags = document.getElementById('tagsInput').value;
+    const category = document.getElementById('categoryInput').value;
+    const uploader = document.getElementById('uploaderInput').value;
+    const description = document.getElementById('descriptionInput').value;
+    const statusDiv = document.getElementById('uploadStatus');
+
+    statusDiv.innerHTML = '<div class="loading">Uploading files...</div>';
+
+    try {
+        const results = [];
+
+        for (const file of files) {
+            const headers = {
+                'X-Filename': file.name,
+                'X-Public': isPublic ? 'true' : 'false'
+            };
+
+            if (ttl) headers['X-TTL'] = ttl;
+            if (tags) headers['X-Tags'] = tags;
+            if (category) headers['X-Category'] = category;
+            if (uploader) headers['X-Uploader'] = uploader;
+            if (description) headers['X-Description'] = description;
+
+            const response = await fetch('/upload', {
+                method: 'POST',
+                headers: headers,
+                body: file
+            });
+
+            if (response.ok) {
+                const result = await response.json();
+                results.push(result);
+            } else {
+                throw new Error(`Failed to upload ${file.name}: ${response.statusText}`);
+            }
+        }
+
+        statusDiv.innerHTML = `<div class="success">Successfully uploaded ${results.length} file(s)</div>`;
+        loadFiles();
+        loadStats();
+
+        // Clear form
+        document.getElementById('fileInput').value = '';
+        document.getElementById('tagsInput').value = '';
+        document.getElementById('uploaderInput').value = '';
+        document.getElementById('descriptionInput').value = '';
+
+    } catch (error) {
+        statusDiv.innerHTML = `<div class="error">Upload failed: ${error.message}</div>`;
+    }
+}
+
+async function downloadFile(id, filename, isPublic) {
+    try {
+        const url = isPublic ? `/public/${id}` : `/blob/${id}`;
+        const response = await fetch(url);
+
+        if (!response.ok) throw new Error('Download failed');
+
+        const blob = await response.blob();
+        const downloadUrl = URL.createObjectURL(blob);
+
+        const a = document.createElement('a');
+        a.href = downloadUrl;
+        a.download = filename;
+        document.body.appendChild(a);
+        a.click();
+        document.body.removeChild(a);
+        URL.revokeObjectURL(downloadUrl);
+
+    } catch (error) {
+        alert('Download failed: ' + error.message);
+    }
+}
+
+async function showMetadata(id) {
+    try {
+        const response = await fetch(`/metadata/${id}`);
+        if (!response.ok) throw new Error('Failed to load metadata');
+
+        const metadata = await response.json();
+        const modal = document.getElementById('metadataModal');
+        const content = document.getElementById('metadataContent');
+
+        content.innerHTML = `
+            <div class="metadata-grid">
+                <div class="metadata-key">ID:</div>
+                <div class="metadata-value">${metadata.id}</div>
+
+                <div class="metadata-key">Filename:</div>
+                <div class="metadata-value">${metadata.filename}</div>
+
+                <div class="metadata-key">Extension:</div>
+                <div class="metadata-value">${metadata.extension || 'none'}</div>
+
+                <div class="metadata-key">Size:</div>
+                <div class="metadata-value">${formatFileSize(metadata.size)}</div>
+
+                <div class="metadata-key">MIME Type:</div>
+                <div class="metadata-value">${metadata.mimeType}</div>
+
+                <div class="metadata-key">Uploaded:</div>
+                <div class="metadata-value">${formatDate(metadata.uploadedAt)}</div>
+
+                <div class="metadata-key">Public:</div>
+                <div class="metadata-value">${metadata.public ? 'Yes' : 'No'}</div>
+
+                <div class="metadata-key">Compressed:</div>
+                <div class="metadata-value">${metadata.compressed ? 'Yes' : 'No'}</div>
+
+                <div class="metadata-key">Uploader IP:</div>
+                <div class="metadata-value">${metadata.uploaderIp}</div>
+
+                <div class="metadata-key">User Agent:</div>
+                <div class="metadata-value">${metadata.uploaderAgent || 'Unknown'}</div>
+
+                ${metadata.expiresAt ? `
+                <div class="metadata-key">Expires:</div>
+                <div class="metadata-value">${formatDate(metadata.expiresAt)} (TTL: ${metadata.ttl}s)</div>
+                ` : ''}
+            </div>
+
+            <h3>🗄️ BlobCraft Info</h3>
+            <div class="metadata-grid">
+                <div class="metadata-key">Name:</div>
+                <div class="metadata-value">${metadata.filename || 'none'}</div>
+
+                <div class="metadata-key">Extension:</div>
+                <div class="metadata-value">${metadata.extension || 'none'}</div>
+
+                <div class="metadata-key">Uploader:</div>
+                <div class="metadata-value">${metadata.uploaderIp || 'none'}</div>
+
+                <div class="metadata-key">Tags:</div>
+                <div class="metadata-value">${metadata.tags || 'none'}</div>
+
+                <div class="metadata-key">Category:</div>
+                <div class="metadata-value">${metadata.category || 'none'}</div>
+
+                <div class="metadata-key">Description:</div>
+                <div class="metadata-value">${metadata.description || 'none'}</div>
+
+                <div class="metadata-key">Raw:</div>
+                <div class="metadata-value">${JSON.stringify(metadata || {})}</div>
+            </div>
+
+            <h3>🔗 URLs</h3>
+            <div class="metadata-grid">
+                <div class="metadata-key">Private URL:</div>
+                <div class="metadata-value">
+                    ${window.location.origin}/blob/${metadata.id}
+                    <button class="copy-button" onclick="copyToClipboard(window.location.origin + '/blob/' + metadata.id)"">Copy</button>
+                </div>
+
+                <div class="metadata-key">Metadata URL:</div>
+                <div class="metadata-value">
+                    ${window.location.origin}/meta/${metadata.id}
+                    <button class="copy-button" onclick="copyToClipboard(window.location.origin + '/meta/' + metadata.id)">Copy</button>
+                </div>
+
+                ${metadata.public ? `
+                <div class="metadata-key">Public URL:</div>
+                <div class="metadata-value">
+                    ${window.location.origin}/public/${metadata.id}
+                    <button class="copy-button" onclick="copyToClipboard('${window.location.origin}/public/${metadata.id}')">Copy</button>
+                </div>
+
+                ` : ''}
+            </div>
+
+            ${Object.keys(metadata.metadata).length > 0 ? `
+            <h3>📝 Custom Metadata</h3>
+            <div class="metadata-grid">
+                ${Object.entries(metadata.metadata).map(([key, value]) => `
+                    <div class="metadata-key">${key}:</div>
+                    <div class="metadata-value">${value}</div>
+                `).join('')}
+            </div>
+            ` : ''}
+        `;
+
+        modal.style.display = 'block';
+
+    } catch (error) {
+        alert('Failed to load metadata: ' + error.message);
+    }
+}
+
+async function copyPublicUrl(id) {
+    try {
+        const response = await fetch(`/metadata/${id}`);
+        if (!response.ok) throw new Error('Failed to load metadata');
+
+        const metadata = await response.json();
+        if (metadata.urls.publicFull) {
+            await copyToClipboard(metadata.urls.publicFull);
+            alert('Public URL copied to clipboard!');
+        } else {
+            alert('File is not public');
+        }
+    } catch (error) {
+        alert('Failed to copy URL: ' + error.message);
+    }
+}
+
+async function copyToClipboard(text) {
+    try {
+        await navigator.clipboard.writeText(text);
+    } catch (err) {
+        // Fallback for older browsers
+        const textArea = document.createElement('textarea');
+        textArea.value = text;
+        document.body.appendChild(textArea);
+        textArea.select();
+        document.execCommand('copy');
+        document.body.removeChild(textArea);
+    }
+}
+
+async function deleteFile(id, filename) {
+    if (!confirm(`Are you sure you want to delete "${filename}"?`)) return;
+
+    try {
+        const response = await fetch(`/delete/${id}`, {
+            method: 'DELETE'
+        });
+
+        if (response.ok) {
+            loadFiles();
+            loadStats();
+        } else {
+            throw new Error('Delete failed');
+        }
+
+    } catch (error) {
+        alert('Delete failed: ' + error.message);
+    }
+}
+
+// Drag and drop handlers
+function handleDragOver(e) {
+    e.preventDefault();
+    e.currentTarget.classList.add('dragover');
+}
+
+function handleDragLeave(e) {
+    e.currentTarget.classList.remove('dragover');
+}
+
+function handleDrop(e) {
+    e.preventDefault();
+    e.currentTarget.classList.remove('dragover');
+
+    const files = Array.from(e.dataTransfer.files);
+    uploadFiles(files);
+}
+
+// Utility functions
+
+function formatFileSize(bytes) {
+    if (bytes === 0) return '0 B';
+    const k = 1024;
+    const sizes = ['B', 'KB', 'MB', 'GB'];
+    const i = bytes < k ? 0 : Math.floor(Math.log(bytes) / Math.log(k));
+    if (i === 0) return bytes + ' B';
+    return parseFloat((bytes / Math.pow(k, i)).toFixed(2)) + ' ' + sizes[i];
+}
+
+function formatDate(dateString) {
+    return new Date(dateString).toLocaleString();
+}
+
+function truncateText(text, maxLength) {
+    return text.length > maxLength ? text.substring(0, maxLength) + '...' : text;
+}
+
+function debounce(func, wait) {
+    let timeout;
+    return function executedFunction(...args) {
+        const later = () => {
+            clearTimeout(timeout);
+            func(...args);
+        };
+        clearTimeout(timeout);
+        timeout = setTimeout(later, wait);
+    };
+}
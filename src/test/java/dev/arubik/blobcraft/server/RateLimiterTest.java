@@ -0,0 +1,60 @@
+package dev.arubik.blobcraft.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTest {
+
+    @Test
+    void burstThenWaitForRetryAfter() throws InterruptedException {
+        RateLimiter limiter = RateLimiter.perWindow(5, 1); // One token every 200ms
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0L, limiter.tryAcquire("10.0.0.1", 1), "request " + i + " is within the burst");
+        }
+        long wait = limiter.tryAcquire("10.0.0.1", 1);
+        assertTrue(wait > 0 && wait <= TimeUnit.MILLISECONDS.toNanos(200), "wait was " + wait);
+        assertEquals(1L, RateLimiter.retryAfterSeconds(wait));
+
+        // Buckets are per key
+        assertEquals(0L, limiter.tryAcquire("10.0.0.2", 1));
+
+        TimeUnit.NANOSECONDS.sleep(wait + TimeUnit.MILLISECONDS.toNanos(10));
+        assertEquals(0L, limiter.tryAcquire("10.0.0.1", 1));
+        assertTrue(limiter.tryAcquire("10.0.0.1", 1) > 0, "only one token refilled");
+    }
+
+    @Test
+    void rejectedRequestsAreNotCharged() {
+        RateLimiter limiter = RateLimiter.perWindow(2, 60);
+        limiter.tryAcquire("key", 1);
+        limiter.tryAcquire("key", 1);
+
+        long first = limiter.tryAcquire("key", 1);
+        long second = limiter.tryAcquire("key", 1);
+        assertTrue(first > 0);
+        assertTrue(second <= first, "a refused request must not push the wait further out");
+    }
+
+    @Test
+    void byteBudgetAdmitsLargeTransferThenWaits() {
+        RateLimiter limiter = RateLimiter.bytesPerSecond(1000);
+
+        assertEquals(0L, limiter.tryAcquire("10.0.0.1", 5000), "a transfer larger than the budget is still admitted");
+        long wait = limiter.tryAcquire("10.0.0.1", 1);
+        assertTrue(wait > TimeUnit.SECONDS.toNanos(3) && wait <= TimeUnit.SECONDS.toNanos(4), "wait was " + wait);
+        assertEquals(4L, RateLimiter.retryAfterSeconds(wait));
+    }
+
+    @Test
+    void retryAfterRoundsUpToWholeSeconds() {
+        assertEquals(1L, RateLimiter.retryAfterSeconds(0));
+        assertEquals(1L, RateLimiter.retryAfterSeconds(1));
+        assertEquals(1L, RateLimiter.retryAfterSeconds(TimeUnit.SECONDS.toNanos(1)));
+        assertEquals(2L, RateLimiter.retryAfterSeconds(TimeUnit.SECONDS.toNanos(1) + 1));
+    }
+}
@@ -0,0 +1,245 @@
+package dev.arubik.blobcraft.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import dev.arubik.blobcraft.io.BufferPool;
+import dev.arubik.blobcraft.io.Hashing;
+import dev.arubik.blobcraft.models.ChunkedUpload;
+import dev.arubik.blobcraft.storage.FileStorage;
+import dev.arubik.blobcraft.storage.TestStorage;
+
+/**
+ * Restart recovery of chunked uploads: each test leaves a session on disk, tampers
+ * with it the way a crash or a stale directory would, and starts a fresh service on it.
+ */
+class ChunkedUploadRestoreTest {
+
+    private static final int CHUNK_SIZE = 1024;
+    private static final String TEMP_PATH = "temp/uploads";
+
+    @TempDir
+    Path dataFolder;
+
+    private final byte[] content = content(2 * CHUNK_SIZE + 452, 7); // Chunks of 1024, 1024 and 452 bytes
+    private FileStorage storage;
+    private ChunkedUploadService service;
+
+    @BeforeEach
+    void setUp() {
+        storage = newStorage(0);
+        service = newService(storage);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        storage.shutdown();
+    }
+
+    @Test
+    void resumesJournaledChunks() throws IOException {
+        String uploadId = startUpload(0, 1);
+
+        restart(0);
+
+        assertEquals(List.of(2), service.getMissingChunks(uploadId));
+        assertEquals(2L * CHUNK_SIZE, service.getUpload(uploadId).getUploadedBytes());
+        assertTrue(service.uploadChunk(uploadId, 2, chunk(2)));
+        assertStored(uploadId);
+    }
+
+    @Test
+    void rehashesChunkBehindTornJournalLine() throws IOException {
+        String uploadId = startUpload(0, 1);
+        Path journal = uploadPath(uploadId).resolve("chunks.journal");
+        byte[] lines = Files.readAllBytes(journal);
+        Files.write(journal, Arrays.copyOf(lines, lines.length - 20)); // Crash in the middle of the last line
+
+        restart(0);
+
+        ChunkedUpload upload = service.getUpload(uploadId);
+        assertEquals(List.of(2), service.getMissingChunks(uploadId));
+        assertEquals(Hashing.sha256Hex(chunk(1)), upload.getChunks().get(1).getChecksum());
+        assertTrue(service.uploadChunk(uploadId, 2, chunk(2)));
+        assertStored(uploadId);
+    }
+
+    @Test
+    void dropsChunkWhoseSizeDisagreesWithJournal() throws IOException {
+        String uploadId = startUpload(0, 1);
+        Path chunkFile = uploadPath(uploadId).resolve("chunk_000001");
+        Files.write(chunkFile, Arrays.copyOf(chunk(1), 500));
+
+        restart(0);
+
+        assertEquals(List.of(1, 2), service.getMissingChunks(uploadId));
+        assertFalse(Files.exists(chunkFile), "partial chunk file should be deleted");
+        assertTrue(service.uploadChunk(uploadId, 1, chunk(1)));
+        assertTrue(service.uploadChunk(uploadId, 2, chunk(2)));
+        assertStored(uploadId);
+    }
+
+    @Test
+    void recoversFullChunkMissingFromJournal() throws IOException {
+        String uploadId = startUpload(0);
+        Files.write(uploadPath(uploadId).resolve("chunk_000001"), chunk(1)); // Written, not yet journaled
+
+        restart(0);
+
+        assertEquals(List.of(2), service.getMissingChunks(uploadId));
+        assertTrue(service.uploadChunk(uploadId, 2, chunk(2)));
+        assertStored(uploadId);
+    }
+
+    @Test
+    void discardsExpiredSession() throws IOException {
+        String uploadId = startUpload(0);
+        Path session = uploadPath(uploadId).resolve("session.json");
+        Gson gson = new Gson();
+        JsonObject json = gson.fromJson(Files.readString(session), JsonObject.class);
+        json.addProperty("expiresAt", Instant.now().minusSeconds(60).toString());
+        Files.writeString(session, gson.toJson(json));
+
+        restart(0);
+
+        assertNull(service.getUpload(uploadId));
+        assertFalse(Files.exists(uploadPath(uploadId)), "expired session directory should be removed");
+        assertEquals(0L, storage.getReservedStorage());
+    }
+
+    @Test
+    void reservesQuotaAgain() throws IOException {
+        String uploadId = startUpload(0);
+
+        restart(content.length);
+
+        assertNotNull(service.getUpload(uploadId));
+        assertEquals((long) content.length, storage.getReservedStorage());
+        assertTrue(service.cancelUpload(uploadId));
+        assertEquals(0L, storage.getReservedStorage());
+    }
+
+    @Test
+    void discardsSessionThatNoLongerFitsQuota() throws IOException {
+        String uploadId = startUpload(0);
+
+        restart(content.length - 1);
+
+        assertNull(service.getUpload(uploadId));
+        assertFalse(Files.exists(uploadPath(uploadId)));
+        assertEquals(0L, storage.getReservedStorage());
+    }
+
+    @Test
+    void finalizesCompleteSessionOnRestore() throws IOException, InterruptedException {
+        String uploadId = startUpload(0, 1);
+        Files.write(uploadPath(uploadId).resolve("chunk_000002"), chunk(2)); // Last chunk landed, then the crash
+
+        restart(0);
+
+        // Finalization runs in the background after startup
+        ChunkedUpload upload = service.getUpload(uploadId);
+        for (int i = 0; i < 100 && !upload.isCompleted(); i++) {
+            Thread.sleep(50);
+        }
+        assertStored(uploadId);
+    }
+
+    @Test
+    void doesNotStoreFinalizedUploadAgain() throws IOException {
+        String uploadId = startUpload(0, 1);
+        Path uploadPath = uploadPath(uploadId);
+        Path leftovers = dataFolder.resolve("leftovers");
+        Files.createDirectories(leftovers);
+        for (String name : List.of("chunk_000000", "chunk_000001", "chunks.journal")) {
+            Files.copy(uploadPath.resolve(name), leftovers.resolve(name));
+        }
+        assertTrue(service.uploadChunk(uploadId, 2, chunk(2)));
+        assertStored(uploadId);
+
+        // What a crash between storing the file and removing its temp files leaves behind
+        Files.createDirectories(uploadPath);
+        for (String name : List.of("chunk_000000", "chunk_000001", "chunks.journal")) {
+            Files.copy(leftovers.resolve(name), uploadPath.resolve(name));
+        }
+        Files.write(uploadPath.resolve("chunk_000002"), chunk(2));
+
+        restart(0);
+
+        assertNull(service.getUpload(uploadId));
+        assertFalse(Files.exists(uploadPath), "leftovers should be removed");
+        assertEquals(1, storage.getFileCount(), "the file must be stored once");
+    }
+
+    private String startUpload(int... chunks) {
+        ChunkedUpload upload = service.initializeUpload("restore.bin", content.length, false, null,
+            new HashMap<>(), "10.0.0.1", "test", Hashing.sha256Hex(content));
+        for (int chunk : chunks) {
+            assertTrue(service.uploadChunk(upload.getUploadId(), chunk, chunk(chunk)));
+        }
+        return upload.getUploadId();
+    }
+
+    private void assertStored(String uploadId) throws IOException {
+        ChunkedUpload upload = service.getUpload(uploadId);
+        assertTrue(upload.isCompleted(), "upload should be finalized");
+        assertArrayEquals(content, storage.getFileData(upload.getFinalFileId()));
+        assertFalse(Files.exists(uploadPath(uploadId)), "temp files should be removed");
+    }
+
+    /**
+     * Stop everything as a shutdown would, keeping the temp directory, and start again.
+     */
+    private void restart(long maxStorage) {
+        service.shutdown();
+        storage.shutdown();
+        storage = newStorage(maxStorage);
+        service = newService(storage);
+    }
+
+    private Path uploadPath(String uploadId) {
+        return dataFolder.toAbsolutePath().resolve(TEMP_PATH).resolve(uploadId);
+    }
+
+    private byte[] chunk(int chunkNumber) {
+        int start = chunkNumber * CHUNK_SIZE;
+        return Arrays.copyOfRange(content, start, Math.min(start + CHUNK_SIZE, content.length));
+    }
+
+    private FileStorage newStorage(long maxStorage) {
+        return TestStorage.create(dataFolder, 0, maxStorage, false, 0, 64L * 1024 * 1024);
+    }
+
+    private ChunkedUploadService newService(FileStorage storage) {
+        return new ChunkedUploadService(storage, dataFolder, TestStorage.SILENT, TEMP_PATH, CHUNK_SIZE,
+            Long.MAX_VALUE, false, 0, new BufferPool(CHUNK_SIZE, 4, false, TestStorage.SILENT));
+    }
+
+    private static byte[] content(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,118 @@
+package dev.arubik.blobcraft.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.arubik.blobcraft.models.StoredFile;
+
+/**
+ * Small blobs packed into segments: after deleting most of them and compacting,
+ * every survivor must still read back intact, before and after a restart.
+ */
+class FileStorageCompactionTest {
+
+    private static final int FILES = 60;
+    private static final int FILE_SIZE = 1000;
+
+    @TempDir
+    Path dataFolder;
+
+    private FileStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = newStorage();
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.shutdown();
+    }
+
+    @Test
+    void survivorsReadBackAfterCompaction() throws IOException {
+        Map<String, byte[]> survivors = new LinkedHashMap<>();
+        List<String> deleted = new ArrayList<>();
+        for (int i = 0; i < FILES; i++) {
+            byte[] data = content(FILE_SIZE, i);
+            StoredFile file = storage.storeFile("file-" + i + ".bin", data, false, null, "10.0.0.1", "test",
+                new HashMap<>());
+            if (i % 3 == 0) {
+                survivors.put(file.getId(), data);
+            } else {
+                deleted.add(file.getId());
+            }
+        }
+        assertTrue(storage.getSegmentCount() > 2, "files should span several segments");
+
+        storage.deleteFiles(deleted);
+        long deadBefore = storage.getSegmentDeadBytes();
+        assertTrue(deadBefore >= (long) deleted.size() * FILE_SIZE);
+
+        int reclaimed = storage.compactSegments();
+
+        assertTrue(reclaimed > 0, "mostly-dead segments should be compacted");
+        assertTrue(storage.getSegmentDeadBytes() < deadBefore);
+        assertReadable(survivors);
+        for (String id : deleted) {
+            assertNull(storage.getFile(id));
+        }
+
+        // The index must point at the relocated copies, not the deleted segments
+        storage.shutdown();
+        storage = newStorage();
+        assertEquals(survivors.size(), storage.getFileCount());
+        assertReadable(survivors);
+    }
+
+    @Test
+    void compactionWithNothingDeadKeepsSegments() throws IOException {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        for (int i = 0; i < FILES; i++) {
+            byte[] data = content(FILE_SIZE, i);
+            files.put(storage.storeFile("file-" + i + ".bin", data, false, null, "10.0.0.1", "test",
+                new HashMap<>()).getId(), data);
+        }
+        int segments = storage.getSegmentCount();
+
+        assertEquals(0, storage.compactSegments());
+        assertEquals(segments, storage.getSegmentCount());
+        assertReadable(files);
+    }
+
+    private void assertReadable(Map<String, byte[]> files) throws IOException {
+        for (Map.Entry<String, byte[]> entry : files.entrySet()) {
+            byte[] data = storage.getFileData(entry.getKey());
+            assertNotNull(data, "missing " + entry.getKey());
+            assertArrayEquals(entry.getValue(), data, "corrupt " + entry.getKey());
+        }
+    }
+
+    private FileStorage newStorage() {
+        // Nothing cached in memory, so every read hits the segments; 16KB segments
+        return TestStorage.create(dataFolder, 0, 0, false, 64 * 1024, 16 * 1024);
+    }
+
+    private static byte[] content(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}
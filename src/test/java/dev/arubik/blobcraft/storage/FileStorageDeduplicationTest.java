@@ -0,0 +1,145 @@
+package dev.arubik.blobcraft.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.arubik.blobcraft.io.Hashing;
+import dev.arubik.blobcraft.models.FileView;
+import dev.arubik.blobcraft.models.StoredFile;
+
+/**
+ * Files created from a hash instead of their bytes: who may reuse which content,
+ * and the shared blob outliving every file but the last one using it.
+ */
+class FileStorageDeduplicationTest {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    @TempDir
+    Path dataFolder;
+
+    private final byte[] content = content(4 * CHUNK_SIZE, 11);
+    private final String sha256 = Hashing.sha256Hex(content);
+    private FileStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        // No segments, so every blob is a file of its own that duplicates share
+        storage = TestStorage.create(dataFolder, 0, 0, false, 0, 64L * 1024 * 1024);
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.shutdown();
+    }
+
+    @Test
+    void privateContentIsReusedOnlyByItsUploader() {
+        store(false, "10.0.0.1", "alice");
+
+        assertNull(duplicate(false, "10.0.0.2", "alice"), "another IP only knows the hash");
+        assertNull(duplicate(false, "10.0.0.1", "bob"), "another uploader only knows the hash");
+        assertNull(duplicate(true, "10.0.0.1", "alice"), "a duplicate must not be more visible than its source");
+
+        FileView own = duplicate(false, "10.0.0.1", "alice");
+        assertNotNull(own);
+        assertFalse(own.isPublic());
+    }
+
+    @Test
+    void publicContentIsReusedByAnyone() throws IOException {
+        store(true, "10.0.0.1", "alice");
+
+        FileView copy = duplicate(false, "10.0.0.2", "bob");
+        assertNotNull(copy);
+        assertArrayEquals(content, storage.getFileData(copy.getId()));
+        assertNotNull(duplicate(true, "10.0.0.3", null));
+    }
+
+    @Test
+    void privateChunksAreReusedOnlyByTheirUploader() throws IOException {
+        StoredFile source = store(false, "10.0.0.1", "alice");
+        storage.recordChunks(source.getId(), CHUNK_SIZE, chunkHashes());
+        String hash = Hashing.sha256Hex(chunk(1));
+
+        assertNull(storage.readChunk(hash, CHUNK_SIZE, false, "10.0.0.2", "bob"));
+        assertNull(storage.readChunk(hash, CHUNK_SIZE, true, "10.0.0.1", "alice"));
+        assertArrayEquals(chunk(1), storage.readChunk(hash, CHUNK_SIZE, false, "10.0.0.1", "alice"));
+
+        // Once the same content is public, anyone may reuse its chunks
+        StoredFile published = store(true, "10.0.0.1", "alice");
+        storage.recordChunks(published.getId(), CHUNK_SIZE, chunkHashes());
+        assertArrayEquals(chunk(1), storage.readChunk(hash, CHUNK_SIZE, true, "10.0.0.2", "bob"));
+    }
+
+    @Test
+    void sharedBlobIsDeletedWithItsLastHolder() throws IOException {
+        StoredFile source = store(false, "10.0.0.1", "alice");
+        FileView first = duplicate(false, "10.0.0.1", "alice");
+        FileView second = duplicate(false, "10.0.0.1", "alice");
+        Path blob = dataFolder.toAbsolutePath().resolve("storage").resolve(StorageLayout.pathFor(source.getId()));
+        assertTrue(Files.exists(blob));
+
+        assertTrue(storage.deleteFile(source.getId()));
+        assertTrue(Files.exists(blob), "duplicates still use the blob");
+        assertArrayEquals(content, storage.getFileData(first.getId()));
+
+        assertTrue(storage.deleteFile(first.getId()));
+        assertTrue(Files.exists(blob));
+        assertArrayEquals(content, storage.getFileData(second.getId()));
+
+        assertTrue(storage.deleteFile(second.getId()));
+        assertFalse(Files.exists(blob), "the last holder takes the blob with it");
+        assertEquals(0, storage.getFileCount());
+        assertEquals(0L, storage.getUsedStorage());
+    }
+
+    private StoredFile store(boolean isPublic, String uploaderIp, String uploader) {
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put("uploader", uploader);
+        return storage.storeFile("source.bin", content, isPublic, null, uploaderIp, "test", metadata);
+    }
+
+    private FileView duplicate(boolean isPublic, String uploaderIp, String uploader) {
+        Map<String, String> metadata = new HashMap<>();
+        if (uploader != null) {
+            metadata.put("uploader", uploader);
+        }
+        return storage.storeDuplicate(sha256, content.length, "copy.bin", isPublic, null, uploaderIp, "test",
+            metadata);
+    }
+
+    private byte[] chunk(int chunkNumber) {
+        int start = chunkNumber * CHUNK_SIZE;
+        return Arrays.copyOfRange(content, start, start + CHUNK_SIZE);
+    }
+
+    private List<String> chunkHashes() {
+        return List.of(Hashing.sha256Hex(chunk(0)), Hashing.sha256Hex(chunk(1)),
+            Hashing.sha256Hex(chunk(2)), Hashing.sha256Hex(chunk(3)));
+    }
+
+    private static byte[] content(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}
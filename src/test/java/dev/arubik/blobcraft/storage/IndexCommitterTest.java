@@ -0,0 +1,67 @@
+package dev.arubik.blobcraft.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class IndexCommitterTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    void flushesAfterShutdownNeverOverlap() throws Exception {
+        AtomicInteger writing = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        AtomicInteger writes = new AtomicInteger();
+        IndexCommitter committer = new IndexCommitter(() -> {
+            if (writing.incrementAndGet() > 1) {
+                overlaps.incrementAndGet();
+            }
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writes.incrementAndGet();
+            writing.decrementAndGet();
+        }, 10, Integer.MAX_VALUE, TestStorage.SILENT);
+
+        committer.markDirty();
+        committer.shutdown();
+        assertEquals(1, writes.get(), "shutdown writes what is pending");
+
+        // A late mutation is written on the caller's thread, one writer at a time
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<CompletableFuture<Void>>> commits = new ArrayList<>();
+            for (int i = 0; i < THREADS * 10; i++) {
+                commits.add(executor.submit(() -> {
+                    start.await();
+                    return committer.markDirty();
+                }));
+            }
+            start.countDown();
+            for (Future<CompletableFuture<Void>> commit : commits) {
+                commit.get().get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, overlaps.get(), "two writers ran at once");
+        assertTrue(writes.get() > 1);
+        assertEquals(0, committer.getPendingMutations());
+    }
+}
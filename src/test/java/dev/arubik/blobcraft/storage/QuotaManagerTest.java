@@ -0,0 +1,167 @@
+package dev.arubik.blobcraft.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class QuotaManagerTest {
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 2000;
+
+    @Test
+    void concurrentReserveAndReleaseBalance() throws Exception {
+        QuotaManager quota = new QuotaManager(1L << 40, 1L << 40, 1L << 40);
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < ROUNDS; i++) {
+                QuotaManager.Reservation reservation = quota.reserve(100 + i, "10.0.0." + thread, "player" + thread);
+                reservation.release();
+                reservation.release(); // Second release is a no-op
+            }
+        });
+
+        assertEquals(0L, quota.getReserved());
+        assertEquals(0L, quota.getCommitted());
+        for (int thread = 0; thread < THREADS; thread++) {
+            assertEquals(0L, quota.getUsage("10.0.0." + thread));
+        }
+        assertEquals(0, quota.getTrackedKeys(), "clients with nothing held should be forgotten");
+    }
+
+    @Test
+    void concurrentReservationsNeverExceedLimit() throws Exception {
+        long limit = 50_000;
+        QuotaManager quota = new QuotaManager(limit, 0, 0);
+        ConcurrentLinkedQueue<QuotaManager.Reservation> granted = new ConcurrentLinkedQueue<>();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < ROUNDS; i++) {
+                try {
+                    granted.add(quota.reserve(10, "10.0.0.1", null));
+                } catch (QuotaExceededException e) {
+                    // Expected once the limit is reached
+                }
+            }
+        });
+
+        // 8 * 2000 * 10 bytes were asked for, exactly the limit was handed out
+        assertEquals(limit, quota.getReserved());
+        assertEquals(limit / 10, granted.size());
+        granted.forEach(QuotaManager.Reservation::release);
+        assertEquals(0L, quota.getReserved());
+        assertEquals(0L, quota.getUsage("10.0.0.1"));
+    }
+
+    @Test
+    void resizeGrowsAndShrinksWithinLimits() {
+        QuotaManager quota = new QuotaManager(2000, 0, 0);
+        QuotaManager.Reservation reservation = quota.reserve(1000, "10.0.0.1", "alice");
+
+        assertTrue(reservation.resize(1500));
+        assertEquals(1500L, quota.getReserved());
+        assertEquals(1500L, quota.getUsage("10.0.0.1"));
+
+        assertTrue(reservation.resize(400)); // Compressed smaller than announced
+        assertEquals(400L, quota.getReserved());
+        assertEquals(400L, quota.getUsage("10.0.0.1"));
+
+        assertFalse(reservation.resize(2500));
+        assertEquals(400L, reservation.getBytes());
+        assertEquals(400L, quota.getReserved());
+
+        reservation.release();
+        assertEquals(0L, quota.getReserved());
+        assertEquals(0L, quota.getUsage("10.0.0.1"));
+    }
+
+    @Test
+    void commitTurnsReservationIntoUsage() {
+        QuotaManager quota = new QuotaManager(0, 0, 0);
+        QuotaManager.Reservation reservation = quota.reserve(1000, "10.0.0.1", "alice");
+
+        reservation.commit();
+        assertEquals(0L, quota.getReserved());
+        assertEquals(1000L, quota.getCommitted());
+        assertEquals(1000L, quota.getUsage("10.0.0.1"));
+
+        // A committed reservation belongs to the stored file; releasing it must not free the space
+        reservation.release();
+        assertFalse(reservation.resize(2000));
+        assertEquals(1000L, quota.getCommitted());
+
+        quota.release(1000, "10.0.0.1", "alice"); // The file is deleted
+        assertEquals(0L, quota.getCommitted());
+        assertEquals(0L, quota.getUsage("10.0.0.1"));
+        assertEquals(0, quota.getTrackedKeys());
+    }
+
+    @Test
+    void clientsAreTrackedOnlyWhileHoldingStorage() {
+        QuotaManager quota = new QuotaManager(0, 1000, 0);
+        QuotaManager.Reservation first = quota.reserve(600, "10.0.0.1", "alice");
+        QuotaManager.Reservation second = quota.reserve(400, "10.0.0.1", "alice");
+        assertEquals(2, quota.getTrackedKeys());
+
+        first.release();
+        assertEquals(400L, quota.getUsage("10.0.0.1"));
+        assertEquals(2, quota.getTrackedKeys());
+
+        second.release();
+        assertEquals(0, quota.getTrackedKeys());
+
+        // A forgotten client starts again from zero, against the same limit
+        quota.reserve(1000, "10.0.0.1", "alice");
+        assertThrows(QuotaExceededException.class, () -> quota.reserve(1, "10.0.0.1", "alice"));
+    }
+
+    @Test
+    void perIpLimitRollsBackGlobalUsage() {
+        QuotaManager quota = new QuotaManager(10_000, 1000, 0);
+        quota.reserve(800, "10.0.0.1", null);
+
+        assertThrows(QuotaExceededException.class, () -> quota.reserve(300, "10.0.0.1", null));
+        assertEquals(800L, quota.getReserved());
+        assertEquals(800L, quota.getUsage("10.0.0.1"));
+
+        quota.reserve(300, "10.0.0.2", null);
+        assertEquals(1100L, quota.getReserved());
+    }
+
+    private interface Worker {
+        void run(int thread) throws Exception;
+    }
+
+    private static void runConcurrently(Worker worker) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int id = thread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    worker.run(id);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package dev.arubik.blobcraft.storage;
+
+import java.nio.file.Path;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * FileStorage fixture shared by the tests and the benchmarks: no expiration, no per-client
+ * quotas, background compaction off and the index written only on shutdown or when asked.
+ */
+public final class TestStorage {
+
+    public static final Logger SILENT = Logger.getLogger("BlobCraft-Test");
+
+    static {
+        SILENT.setUseParentHandlers(false);
+        SILENT.setLevel(Level.OFF);
+    }
+
+    private TestStorage() {}
+
+    /**
+     * @param maxRam           heap cache budget, 0 to cache nothing
+     * @param maxStorage       total storage limit, 0 for none
+     * @param segmentThreshold largest blob packed into segments, 0 to store every blob as a file
+     * @param maxSegmentSize   size at which a segment is sealed and a new one started
+     */
+    public static FileStorage create(Path dataFolder, long maxRam, long maxStorage, boolean compression,
+                                     long segmentThreshold, long maxSegmentSize) {
+        return new FileStorage(
+            maxRam,
+            maxStorage,
+            false, 0, 0, 0,     // No expiration
+            compression, 6, 1024,
+            Long.MAX_VALUE / 2, // Index is only written on shutdown or flushIndex()
+            Integer.MAX_VALUE,
+            0, 0,               // No per-IP or per-uploader quota
+            segmentThreshold, maxSegmentSize, 0.5, 0,
+            256 * 1024, 256L * 1024 * 1024, 0, 0,
+            dataFolder,
+            SILENT);
+    }
+}